@@ -0,0 +1,69 @@
+package com.ezlevup.dentalchat.config;
+
+import com.ezlevup.dentalchat.dto.CustomerChat;
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 로그인 세션이 없는 고객이 채팅 API 를 부를 때 Authorization: Bearer {채팅 토큰} 으로 인증한다.
+ * 헤더가 없는 채팅 API 요청은 이 브라우저 세션에서 상담을 시작할 때 받아 둔 토큰({@link CustomerChat})으로 인증한다.
+ * 세션 토큰은 채팅 API 에만 쓰므로 채팅 페이지와 STOMP 연결은 로그인하지 않은 고객으로 남는다.
+ * 토큰은 STOMP CONNECT 와 같은 {@link ChatAccessTokenService} 토큰이고, 인증은 요청마다 하며 세션에 저장하지 않는다.
+ */
+public class ChatTokenAuthenticationFilter extends OncePerRequestFilter {
+
+    public static final String BEARER_PREFIX = "Bearer ";
+
+    private static final String CHAT_API_PATH = "/chat/api/";
+
+    private final ChatAccessTokenService chatAccessTokenService;
+
+    public ChatTokenAuthenticationFilter(ChatAccessTokenService chatAccessTokenService) {
+        this.chatAccessTokenService = chatAccessTokenService;
+    }
+
+    public static boolean hasBearerToken(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        return authorization != null && authorization.startsWith(BEARER_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || authentication instanceof AnonymousAuthenticationToken) {
+            chatAccessTokenService.verify(token(request)).ifPresent(username -> {
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(username, null, List.of()));
+                SecurityContextHolder.setContext(context);
+            });
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private static String token(HttpServletRequest request) {
+        if (hasBearerToken(request)) {
+            return request.getHeader(HttpHeaders.AUTHORIZATION).substring(BEARER_PREFIX.length());
+        }
+        boolean chatApi = request.getRequestURI().startsWith(request.getContextPath() + CHAT_API_PATH);
+        HttpSession session = chatApi ? request.getSession(false) : null;
+        if (session != null && session.getAttribute(CustomerChat.SESSION_ATTRIBUTE) instanceof CustomerChat customerChat) {
+            return customerChat.token();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,34 @@
+package com.ezlevup.dentalchat.config;
+
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.ObjectUtils;
+
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final String CACHE_CONFIG_RESOURCE = "classpath:hibernate-jcache.conf";
+
+    /**
+     * Hibernate 2차 캐시가 쓸 JCache CacheManager. CacheManager 는 URI 마다 JVM 에 하나이므로
+     * 애플리케이션 컨텍스트별로 fragment 를 붙여 따로 만든다. 같은 JVM 의 다른 컨텍스트(테스트, 노드)와
+     * 캐시를 공유하거나, 먼저 종료된 컨텍스트가 닫은 캐시를 쓰지 않는다.
+     * 설정은 fragment 를 뺀 hibernate-jcache.conf 에서 읽고, SessionFactory 가 닫힐 때 함께 닫힌다.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(ApplicationContext applicationContext) {
+        return properties -> {
+            URI uri = URI.create(CACHE_CONFIG_RESOURCE + "#" + ObjectUtils.getIdentityHexString(applicationContext));
+            CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+            properties.put(ConfigSettings.CACHE_MANAGER, provider.getCacheManager(uri, getClass().getClassLoader()));
+        };
+    }
+}
@@ -1,7 +1,12 @@
 package com.ezlevup.dentalchat.config;
 
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -13,17 +18,27 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
 import org.springframework.security.web.header.writers.ReferrerPolicyHeaderWriter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.session.SessionManagementFilter;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
+    @Autowired
+    private ChatAccessTokenService chatAccessTokenService;
+
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/", "/home", "/login", "/webjars/**", "/css/**", "/js/**", "/images/**").permitAll()
+                // 상담 시작은 채팅 토큰을 받는 곳이라 누구나 부를 수 있다
+                .requestMatchers(HttpMethod.POST, "/chat/api/rooms").permitAll()
+                // 채팅 API 는 로그인 세션이나 채팅 토큰이 필요하고, 채팅방 참여 여부는 컨트롤러에서 확인한다
+                .requestMatchers("/chat/api/**").authenticated()
                 .requestMatchers("/chat/**").permitAll()
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**", "/swagger-resources/**").permitAll()
                 .requestMatchers("/admin/**").hasRole("ADMIN")
@@ -31,6 +46,12 @@ public class SecurityConfig {
                 .requestMatchers("/api/websocket-docs/**").permitAll()
                 .anyRequest().authenticated()
             )
+            // SessionManagementFilter 뒤에 두어야 토큰 인증이 HTTP 세션에 저장되지 않는다
+            .addFilterAfter(new ChatTokenAuthenticationFilter(chatAccessTokenService), SessionManagementFilter.class)
+            .exceptionHandling(exceptions -> exceptions
+                .defaultAuthenticationEntryPointFor(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED),
+                    PathPatternRequestMatcher.withDefaults().matcher("/chat/api/**"))
+            )
             .formLogin(form -> form
                 .loginPage("/login")
                 .defaultSuccessUrl("/", true)
@@ -41,7 +62,9 @@ public class SecurityConfig {
                 .permitAll()
             )
             .csrf(csrf -> csrf
-                .ignoringRequestMatchers("/chat/**")
+                // SockJS 엔드포인트와, 브라우저가 자동으로 붙이지 않는 Bearer 토큰 요청만 제외한다
+                .ignoringRequestMatchers(SecurityConfig::isSockJsRequest)
+                .ignoringRequestMatchers(ChatTokenAuthenticationFilter::hasBearerToken)
                 .csrfTokenRepository(org.springframework.security.web.csrf.CookieCsrfTokenRepository.withHttpOnlyFalse())
             )
             .headers(headers -> headers
@@ -62,6 +85,11 @@ public class SecurityConfig {
         return http.build();
     }
 
+    private static boolean isSockJsRequest(HttpServletRequest request) {
+        String path = request.getServletPath();
+        return path.startsWith("/chat") && !path.startsWith("/chat/api/");
+    }
+
     @Bean
     public UserDetailsService userDetailsService() {
         UserDetails admin = User.builder()
@@ -1,26 +1,111 @@
 package com.ezlevup.dentalchat.config;
 
+import com.ezlevup.dentalchat.messaging.ChatMessageCodec;
+import com.ezlevup.dentalchat.messaging.ChatMessageConverter;
+import com.ezlevup.dentalchat.messaging.RoomPartitionedExecutor;
+import com.ezlevup.dentalchat.messaging.RoomTaskExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    @Autowired
+    private ChatMessageCodec chatMessageCodec;
+
+    @Value("${dental-chat.broker.relay.enabled:false}")
+    private boolean relayEnabled;
+
+    @Value("${dental-chat.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${dental-chat.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${dental-chat.broker.relay.client-login:guest}")
+    private String relayClientLogin;
+
+    @Value("${dental-chat.broker.relay.client-passcode:guest}")
+    private String relayClientPasscode;
+
+    @Value("${dental-chat.broker.relay.system-login:guest}")
+    private String relaySystemLogin;
+
+    @Value("${dental-chat.broker.relay.system-passcode:guest}")
+    private String relaySystemPasscode;
+
+    /**
+     * 메시지 파이프라인 공용 실행기. 컨텍스트 종료 시 close() 로 진행 중인 작업을 마무리한다.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService chatMessageExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("chat-message-", 0).factory());
+    }
+
+    /**
+     * 파티션 모드(기본)에서는 roomId 별 단일 스레드 레인에서 메시지를 처리해 방 단위 순서를 보장한다.
+     * 끄면 공용 가상 스레드 실행기를 사용하며 순서는 보장되지 않는다.
+     */
+    @Bean
+    public RoomTaskExecutor roomTaskExecutor(ExecutorService chatMessageExecutor,
+                                             MeterRegistry meterRegistry,
+                                             @Value("${dental-chat.broker.partitioned.enabled:true}") boolean partitioned,
+                                             @Value("${dental-chat.broker.partitioned.partitions:0}") int partitions,
+                                             @Value("${dental-chat.broker.partitioned.lane-capacity:10000}") int laneCapacity) {
+        if (partitioned) {
+            return new RoomPartitionedExecutor(partitions, laneCapacity, meterRegistry);
+        }
+        return (roomId, task) -> chatMessageExecutor.execute(task);
+    }
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        config.enableSimpleBroker("/topic");
+        if (relayEnabled) {
+            // 외부 STOMP 브로커로 중계해서 여러 노드가 같은 채팅방 토픽을 공유
+            config.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayClientLogin)
+                    .setClientPasscode(relayClientPasscode)
+                    .setSystemLogin(relaySystemLogin)
+                    .setSystemPasscode(relaySystemPasscode);
+        } else {
+            config.enableSimpleBroker("/topic", "/queue");
+        }
+
+        // 같은 세션으로 나가는 프레임의 순서를 유지
+        config.setPreservePublishOrder(true);
         
         config.setApplicationDestinationPrefixes("/app");
         
         config.setUserDestinationPrefix("/user");
     }
 
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // ChatMessage 는 전용 코덱으로, 나머지 타입은 기본 컨버터로 처리
+        messageConverters.add(0, new ChatMessageConverter(chatMessageCodec));
+        return true;
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
+        // 같은 세션에서 들어온 프레임은 도착 순서대로 파이프라인에 넘긴다
+        registry.setPreserveReceiveOrder(true);
+
         registry.addEndpoint("/chat")
                 .setAllowedOriginPatterns("*")
                 .withSockJS()
@@ -1,8 +1,20 @@
 package com.ezlevup.dentalchat.config;
 
+import com.ezlevup.dentalchat.messaging.RoomMembershipInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
+import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
 @Configuration
-public class WebSocketSecurityConfig {
-    
-}
\ No newline at end of file
+public class WebSocketSecurityConfig implements WebSocketMessageBrokerConfigurer {
+
+    @Autowired
+    private RoomMembershipInterceptor roomMembershipInterceptor;
+
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // 채팅방 참여자만 방 목적지로 SEND, SUBSCRIBE 할 수 있다
+        registration.interceptors(roomMembershipInterceptor);
+    }
+}
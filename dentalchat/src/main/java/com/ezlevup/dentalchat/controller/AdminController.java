@@ -1,5 +1,6 @@
 package com.ezlevup.dentalchat.controller;
 
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
 import com.ezlevup.dentalchat.entity.User.UserType;
 import com.ezlevup.dentalchat.entity.ChatRoom;
 import com.ezlevup.dentalchat.entity.User;
@@ -32,6 +33,7 @@ import java.util.Optional;
 public class AdminController {
 
     private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private static final String CLINIC_CLOSING_MESSAGE = "진료 시간이 종료되어 상담을 마칩니다. 이용해 주셔서 감사합니다.";
 
     @Autowired
     private ChatRoomService chatRoomService;
@@ -242,6 +244,38 @@ public class AdminController {
         }
     }
 
+    @PostMapping("/api/end-chats")
+    @ResponseBody
+    @Operation(summary = "채팅방 일괄 종료", description = "지정한 채팅방들을 한 번에 종료합니다. " +
+            "목록을 보내지 않으면 진행 중인 모든 상담을 종료합니다 (진료 종료 시각용).")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 종료된 채팅방 목록을 반환"),
+        @ApiResponse(responseCode = "500", description = "서버 내부 오류")
+    })
+    public ResponseEntity<Map<String, Object>> endChatRooms(
+        @Parameter(description = "종료할 채팅방 ID 목록 (생략 시 진행 중인 전체)")
+        @RequestBody(required = false) List<String> roomIds) {
+        try {
+            List<EndedChatRoom> endedRooms = roomIds == null || roomIds.isEmpty()
+                ? chatRoomService.endAllActiveChatRooms(CLINIC_CLOSING_MESSAGE)
+                : chatRoomService.endChatRooms(roomIds, CLINIC_CLOSING_MESSAGE);
+            
+            Map<String, Object> response = Map.of(
+                "success", true,
+                "endedCount", endedRooms.size(),
+                "endedRoomIds", endedRooms.stream().map(EndedChatRoom::roomId).toList()
+            );
+            
+            logger.info("채팅방 일괄 종료 완료: {} 건", endedRooms.size());
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            logger.error("채팅방 일괄 종료 중 오류 발생", e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "채팅방 일괄 종료 중 오류가 발생했습니다."));
+        }
+    }
+
     @GetMapping("/api/room-details/{roomId}")
     @ResponseBody
     @Operation(summary = "채팅방 상세 정보 조회", description = "지정된 채팅방의 상세 정보를 조회합니다.")
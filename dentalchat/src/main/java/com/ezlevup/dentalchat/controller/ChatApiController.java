@@ -0,0 +1,253 @@
+package com.ezlevup.dentalchat.controller;
+
+import com.ezlevup.dentalchat.dto.ChatHistoryPage;
+import com.ezlevup.dentalchat.dto.CustomerChat;
+import com.ezlevup.dentalchat.dto.ReadReceipt;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import com.ezlevup.dentalchat.service.ChatRoomService;
+import com.ezlevup.dentalchat.service.MessageService;
+import com.ezlevup.dentalchat.service.UserService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+@Controller
+@RequestMapping("/chat/api")
+@Tag(name = "Chat", description = "채팅 이력 및 읽음 처리 API")
+public class ChatApiController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatApiController.class);
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChatAccessTokenService chatAccessTokenService;
+
+    @PostMapping("/rooms")
+    @ResponseBody
+    @Operation(summary = "상담 시작", description = "로그인하지 않은 고객을 만들고 대기 중인 채팅방을 엽니다. " +
+            "응답의 token 을 STOMP CONNECT 의 token 헤더나 채팅 API 의 Bearer 토큰으로 보냅니다. " +
+            "같은 브라우저 세션에서 다시 부르면 끝나지 않은 상담을 그대로 돌려줍니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 채팅방과 채팅 토큰을 반환"),
+        @ApiResponse(responseCode = "400", description = "잘못된 요청 - 이름이 비어 있음"),
+        @ApiResponse(responseCode = "500", description = "서버 내부 오류")
+    })
+    public ResponseEntity<Object> openCustomerChat(
+            @Parameter(description = "고객 이름", required = true) @RequestParam String nickname,
+            @Parameter(description = "상담 분야") @RequestParam(defaultValue = "GENERAL") ConsultationType consultationType,
+            @Parameter(description = "상담 메모") @RequestParam(required = false) String notes,
+            @Parameter(hidden = true) HttpSession session) {
+        if (session.getAttribute(CustomerChat.SESSION_ATTRIBUTE) instanceof CustomerChat customerChat
+                && chatRoomService.isOpen(customerChat.roomId())
+                && chatAccessTokenService.verify(customerChat.token()).isPresent()) {
+            return ResponseEntity.ok(customerChat);
+        }
+        if (nickname.isBlank()) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", "이름을 입력해주세요."));
+        }
+        try {
+            User customer = userService.createCustomer(nickname.trim());
+            ChatRoom chatRoom = chatRoomService.createChatRoom(customer, notes, consultationType);
+            CustomerChat customerChat = new CustomerChat(chatRoom.getRoomId(), customer.getUsername(),
+                    chatAccessTokenService.issue(customer.getUsername()));
+            session.setAttribute(CustomerChat.SESSION_ATTRIBUTE, customerChat);
+
+            logger.info("고객 상담 시작: roomId={}, username={}", customerChat.roomId(), customerChat.username());
+            return ResponseEntity.ok(customerChat);
+
+        } catch (Exception e) {
+            logger.error("고객 상담 시작 중 오류 발생: nickname={}", nickname, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "상담을 시작할 수 없습니다."));
+        }
+    }
+
+    @GetMapping("/rooms/{roomId}/messages")
+    @ResponseBody
+    @Operation(summary = "채팅 이력 조회", description = "채팅방 메시지를 최신 페이지부터 keyset 방식으로 조회합니다. " +
+            "다음 페이지는 응답의 next_before_message_id 를 before 로 넘겨 조회합니다. 채팅방의 고객, 배정된 상담원, 관리자만 조회할 수 있습니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 메시지 페이지를 반환"),
+        @ApiResponse(responseCode = "401", description = "로그인 세션이나 채팅 토큰이 없음"),
+        @ApiResponse(responseCode = "403", description = "채팅방 참여자가 아님"),
+        @ApiResponse(responseCode = "500", description = "서버 내부 오류")
+    })
+    public ResponseEntity<Object> getMessages(
+            @Parameter(description = "채팅방 ID", required = true) @PathVariable String roomId,
+            @Parameter(description = "이 메시지 ID 보다 이전 메시지를 조회") @RequestParam(required = false) Long before,
+            @Parameter(description = "페이지 크기 (최대 max-page-size)") @RequestParam(required = false) Integer limit,
+            @Parameter(hidden = true) Authentication authentication) {
+        if (!isAdmin(authentication) && !chatRoomService.isParticipant(roomId, authentication.getName())) {
+            logger.warn("채팅 이력 조회 거부: roomId={}, username={}", roomId, authentication.getName());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "채팅방 참여자만 조회할 수 있습니다."));
+        }
+        try {
+            ChatHistoryPage page = messageService.getChatHistory(roomId, before, limit);
+
+            logger.debug("채팅 이력 조회: roomId={}, before={}, 조회 건수={}", roomId, before, page.messages().size());
+            return ResponseEntity.ok(page);
+
+        } catch (Exception e) {
+            logger.error("채팅 이력 조회 중 오류 발생: roomId={}", roomId, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "채팅 이력을 불러올 수 없습니다."));
+        }
+    }
+
+    @PostMapping("/rooms/{roomId}/read")
+    @ResponseBody
+    @Operation(summary = "읽음 처리", description = "채팅방의 마지막 메시지까지 읽음 위치를 옮기고 READ 이벤트를 브로드캐스트합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 읽음 위치를 갱신"),
+        @ApiResponse(responseCode = "400", description = "잘못된 요청 - 유효하지 않은 채팅방 또는 사용자"),
+        @ApiResponse(responseCode = "500", description = "서버 내부 오류")
+    })
+    public ResponseEntity<Map<String, Object>> markAsRead(
+            @Parameter(description = "채팅방 ID", required = true) @PathVariable String roomId,
+            @Parameter(hidden = true) Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            ReadReceipt receipt = messageService.markMessagesAsRead(roomId, username);
+
+            return ResponseEntity.ok(Map.of(
+                "success", true,
+                "roomId", roomId,
+                "lastReadMessageId", receipt != null ? receipt.lastReadMessageId() : 0L
+            ));
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("읽음 처리 실패: roomId={}, username={}, error={}", roomId, username, e.getMessage());
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("읽음 처리 중 오류 발생: roomId={}", roomId, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "읽음 처리 중 오류가 발생했습니다."));
+        }
+    }
+
+    @GetMapping("/rooms/{roomId}/unread-count")
+    @ResponseBody
+    @Operation(summary = "안 읽은 메시지 수 조회", description = "읽음 위치 이후 다른 참여자가 보낸 메시지 수를 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 안 읽은 메시지 수를 반환"),
+        @ApiResponse(responseCode = "400", description = "잘못된 요청 - 유효하지 않은 채팅방 또는 사용자"),
+        @ApiResponse(responseCode = "500", description = "서버 내부 오류")
+    })
+    public ResponseEntity<Map<String, Object>> getUnreadCount(
+            @Parameter(description = "채팅방 ID", required = true) @PathVariable String roomId,
+            @Parameter(hidden = true) Authentication authentication) {
+        try {
+            long unreadCount = messageService.getUnreadCount(roomId, authentication.getName());
+
+            return ResponseEntity.ok(Map.of(
+                "roomId", roomId,
+                "unreadCount", unreadCount
+            ));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("안 읽은 메시지 수 조회 중 오류 발생: roomId={}", roomId, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "안 읽은 메시지 수를 불러올 수 없습니다."));
+        }
+    }
+
+    @GetMapping("/unread-counts")
+    @ResponseBody
+    @Operation(summary = "여러 채팅방의 안 읽은 메시지 수 조회", description = "대시보드 배지용으로 여러 채팅방의 안 읽은 메시지 수를 한 번에 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 채팅방별 안 읽은 메시지 수를 반환"),
+        @ApiResponse(responseCode = "400", description = "잘못된 요청 - 유효하지 않은 사용자"),
+        @ApiResponse(responseCode = "500", description = "서버 내부 오류")
+    })
+    public ResponseEntity<Map<String, Object>> getUnreadCounts(
+            @Parameter(description = "채팅방 ID 목록", required = true) @RequestParam List<String> roomIds,
+            @Parameter(hidden = true) Authentication authentication) {
+        String username = authentication.getName();
+        try {
+            Map<String, Long> unreadCounts = messageService.getUnreadCounts(username, roomIds);
+
+            return ResponseEntity.ok(Map.of(
+                "unreadCounts", unreadCounts,
+                "timestamp", System.currentTimeMillis()
+            ));
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                .body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("안 읽은 메시지 수 일괄 조회 중 오류 발생: username={}", username, e);
+            return ResponseEntity.internalServerError()
+                .body(Map.of("error", "안 읽은 메시지 수를 불러올 수 없습니다."));
+        }
+    }
+
+    @GetMapping("/rooms/{roomId}/waiting-position")
+    @ResponseBody
+    @Operation(summary = "대기 순번 조회", description = "채팅방 상담 분야의 대기열에서 현재 순번(1부터 시작)과 그 분야 및 전체 대기 인원을 조회합니다.")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "성공적으로 대기 순번을 반환"),
+        @ApiResponse(responseCode = "404", description = "대기 중인 채팅방이 아님")
+    })
+    public ResponseEntity<Map<String, Object>> getWaitingPosition(
+            @Parameter(description = "채팅방 ID", required = true) @PathVariable String roomId) {
+        Optional<ConsultationType> consultationType = chatRoomService.getWaitingConsultationType(roomId);
+        OptionalInt position = chatRoomService.getWaitingPosition(roomId);
+        if (consultationType.isEmpty() || position.isEmpty()) {
+            return ResponseEntity.status(404)
+                .body(Map.of("error", "대기 중인 채팅방이 아닙니다."));
+        }
+
+        return ResponseEntity.ok(Map.of(
+            "roomId", roomId,
+            "consultationType", consultationType.get(),
+            "position", position.getAsInt(),
+            "laneSize", chatRoomService.getWaitingQueueSize(consultationType.get()),
+            "waitingQueueSize", chatRoomService.getWaitingQueueSize()
+        ));
+    }
+
+    private static boolean isAdmin(Authentication authentication) {
+        return authentication.getAuthorities().stream()
+                .anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()));
+    }
+}
@@ -1,145 +1,80 @@
 package com.ezlevup.dentalchat.controller;
 
+import com.ezlevup.dentalchat.dto.ChatHistoryPage;
 import com.ezlevup.dentalchat.dto.ChatMessage;
 import com.ezlevup.dentalchat.dto.MessageType;
-import com.ezlevup.dentalchat.dto.UserRole;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.ezlevup.dentalchat.messaging.ChatMessageContext;
+import com.ezlevup.dentalchat.messaging.ChatMessagePipeline;
+import com.ezlevup.dentalchat.service.MessageService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.handler.annotation.SendTo;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.stereotype.Controller;
 
-import java.util.concurrent.CompletableFuture;
+import java.security.Principal;
 
 @Controller
 public class ChatController {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
 
+    @Autowired
+    private ChatMessagePipeline chatMessagePipeline;
+
+    @Autowired
+    private MessageService messageService;
+
     @MessageMapping("/chat.sendMessage/{roomId}")
-    @SendTo("/topic/room/{roomId}")
-    public ChatMessage sendMessage(@DestinationVariable String roomId, @Payload String payload, SimpMessageHeaderAccessor headerAccessor) {
-        logger.debug("Raw payload received: {}", payload);
-        
-        ObjectMapper objectMapper = new ObjectMapper();
-        ChatMessage chatMessage;
-        try {
-            chatMessage = objectMapper.readValue(payload, ChatMessage.class);
-        } catch (Exception e) {
-            logger.error("Failed to parse ChatMessage: {}", e.getMessage());
-            throw new RuntimeException("Failed to parse message", e);
-        }
-        
-        logger.debug("Received message - roomId: {}, sender: {}, senderRole: {}, content: {}", 
-                    roomId, chatMessage.sender(), chatMessage.senderRole(), chatMessage.content());
-        return processMessageAsync(roomId, chatMessage, MessageType.CHAT, headerAccessor)
-                .join();
+    public void sendMessage(@DestinationVariable String roomId, @Payload ChatMessage chatMessage, SimpMessageHeaderAccessor headerAccessor) {
+        logger.debug("Received message - roomId: {}, sender: {}, senderRole: {}",
+                    roomId, chatMessage.sender(), chatMessage.senderRole());
+        submit(roomId, MessageType.CHAT, chatMessage, headerAccessor);
     }
 
     @MessageMapping("/chat.joinRoom/{roomId}")
-    @SendTo("/topic/room/{roomId}")
-    public ChatMessage joinRoom(@DestinationVariable String roomId, @Payload String payload, SimpMessageHeaderAccessor headerAccessor) {
-        logger.debug("Raw payload received: {}", payload);
-        
-        ObjectMapper objectMapper = new ObjectMapper();
-        ChatMessage chatMessage;
-        try {
-            chatMessage = objectMapper.readValue(payload, ChatMessage.class);
-        } catch (Exception e) {
-            logger.error("Failed to parse ChatMessage: {}", e.getMessage());
-            throw new RuntimeException("Failed to parse message", e);
-        }
-        
-        logger.debug("Join request - roomId: {}, sender: {}, senderRole: {}", 
+    public void joinRoom(@DestinationVariable String roomId, @Payload ChatMessage chatMessage, SimpMessageHeaderAccessor headerAccessor) {
+        logger.debug("Join request - roomId: {}, sender: {}, senderRole: {}",
                     roomId, chatMessage.sender(), chatMessage.senderRole());
-        String sessionId = headerAccessor.getSessionId();
-        headerAccessor.getSessionAttributes().put("roomId", roomId);
-        headerAccessor.getSessionAttributes().put("username", chatMessage.sender());
-        
-        logger.info("User {} joined room {} (session: {})", chatMessage.sender(), roomId, sessionId);
-        
-        ChatMessage joinMessage = ChatMessage.of(
-            chatMessage.sender() + " joined the room",
-            chatMessage.sender(),
-            chatMessage.senderRole(),
-            MessageType.JOIN,
-            roomId
-        );
-        
-        return processMessageAsync(roomId, joinMessage, MessageType.JOIN, headerAccessor)
-                .join();
+        submit(roomId, MessageType.JOIN, chatMessage, headerAccessor);
     }
 
-    private CompletableFuture<ChatMessage> processMessageAsync(String roomId, ChatMessage message, MessageType messageType, SimpMessageHeaderAccessor headerAccessor) {
-        return CompletableFuture.supplyAsync(() -> {
-            try {
-                validateMessage(message, roomId);
-                
-                ChatMessage processedMessage = new ChatMessage(
-                    message.content(),
-                    message.sender(),
-                    message.senderRole(),
-                    messageType,
-                    message.timestamp(),
-                    roomId
-                ).withTimestamp();
-                
-                logMessage(processedMessage, headerAccessor.getSessionId());
-                
-                return processedMessage;
-                
-            } catch (Exception e) {
-                logger.error("Error processing message in room {}: {}", roomId, e.getMessage(), e);
-                throw new RuntimeException("Failed to process message", e);
-            }
-        }, java.util.concurrent.Executors.newVirtualThreadPerTaskExecutor());
+    /**
+     * 이력 요청/응답. STOMP 헤더 before, limit 으로 페이지를 지정하고 응답은 요청한 세션의 /user/queue/history 로만 보낸다.
+     */
+    @MessageMapping("/chat.history/{roomId}")
+    @SendToUser(destinations = "/queue/history", broadcast = false)
+    public ChatHistoryPage chatHistory(@DestinationVariable String roomId,
+                                       @Header(name = "before", required = false) Long beforeMessageId,
+                                       @Header(name = "limit", required = false) Integer limit) {
+        logger.debug("History request - roomId: {}, before: {}, limit: {}", roomId, beforeMessageId, limit);
+        return messageService.getChatHistory(roomId, beforeMessageId, limit);
     }
 
-    private void validateMessage(ChatMessage message, String roomId) {
-        if (message == null) {
-            throw new IllegalArgumentException("Message cannot be null");
-        }
-        
-        if (message.content() == null || message.content().trim().isEmpty()) {
-            throw new IllegalArgumentException("Message content cannot be empty");
-        }
-        
-        if (message.sender() == null || message.sender().trim().isEmpty()) {
-            throw new IllegalArgumentException("Sender cannot be empty");
-        }
-        
-        if (message.senderRole() == null) {
-            throw new IllegalArgumentException("Sender role cannot be null");
-        }
-        
-        if (roomId == null || roomId.trim().isEmpty()) {
-            throw new IllegalArgumentException("Room ID cannot be empty");
-        }
-        
-        if (message.content().length() > 1000) {
-            throw new IllegalArgumentException("Message content too long (max 1000 characters)");
+    /**
+     * 읽음 처리. 읽은 사용자는 STOMP 세션의 사용자이고, 처리 결과는 채팅방 토픽에 READ 이벤트로 전달된다.
+     */
+    @MessageMapping("/chat.read/{roomId}")
+    public void markAsRead(@DestinationVariable String roomId, Principal principal) {
+        try {
+            messageService.markMessagesAsRead(roomId, principal.getName());
+        } catch (IllegalArgumentException e) {
+            logger.warn("Read request ignored - roomId: {}, username: {}, reason: {}", roomId, principal.getName(), e.getMessage());
         }
-        
-        logger.debug("Message validation successful for room: {}, sender: {}", roomId, message.sender());
-    }
-
-    private void logMessage(ChatMessage message, String sessionId) {
-        logger.info("Message processed - Room: {}, Sender: {}, Role: {}, Type: {}, Session: {}, Content: {}", 
-            message.roomId(),
-            message.sender(),
-            message.senderRole(),
-            message.type(),
-            sessionId,
-            truncateContent(message.content())
-        );
     }
 
-    private String truncateContent(String content) {
-        if (content == null) return "null";
-        return content.length() > 50 ? content.substring(0, 50) + "..." : content;
+    private void submit(String roomId, MessageType messageType, ChatMessage chatMessage, SimpMessageHeaderAccessor headerAccessor) {
+        chatMessagePipeline.submit(new ChatMessageContext(
+                roomId,
+                messageType,
+                headerAccessor.getSessionId(),
+                headerAccessor.getSessionAttributes(),
+                chatMessage
+        ));
     }
-}
\ No newline at end of file
+}
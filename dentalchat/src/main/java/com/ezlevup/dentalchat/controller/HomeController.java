@@ -1,31 +1,51 @@
 package com.ezlevup.dentalchat.controller;
 
+import com.ezlevup.dentalchat.dto.CustomerChat;
+import com.ezlevup.dentalchat.service.ChatRoomService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.SessionAttribute;
 
 @Controller
 public class HomeController {
 
+    @Autowired
+    private ChatRoomService chatRoomService;
+
     @GetMapping("/")
-    public String home(Model model) {
+    public String home(Model model,
+                       @SessionAttribute(name = CustomerChat.SESSION_ATTRIBUTE, required = false) CustomerChat customerChat) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
             model.addAttribute("username", auth.getName());
             model.addAttribute("authorities", auth.getAuthorities());
         }
+        addCustomerChat(model, customerChat);
         return "chat";
     }
 
     @GetMapping("/chat")
-    public String chat(Model model) {
+    public String chat(Model model,
+                       @SessionAttribute(name = CustomerChat.SESSION_ATTRIBUTE, required = false) CustomerChat customerChat) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated() && !auth.getName().equals("anonymousUser")) {
             model.addAttribute("username", auth.getName());
             model.addAttribute("authorities", auth.getAuthorities());
         }
+        addCustomerChat(model, customerChat);
         return "chat";
     }
-}
\ No newline at end of file
+
+    /**
+     * 이 브라우저 세션에서 시작한 상담이 아직 끝나지 않았으면 채팅 토큰과 함께 페이지에 넣어 다시 연결할 수 있게 한다.
+     */
+    private void addCustomerChat(Model model, CustomerChat customerChat) {
+        if (customerChat != null && chatRoomService.isOpen(customerChat.roomId())) {
+            model.addAttribute("customerChat", customerChat);
+        }
+    }
+}
@@ -94,6 +94,10 @@ public class WebSocketDocController {
     public ResponseEntity<Map<String, Object>> getWebSocketEndpoints() {
         return ResponseEntity.ok(Map.of(
             "websocket_url", "/ws",
+            "connect_headers", Map.of(
+                "token", "로그인 세션이 없을 때 서버가 발급한 채팅 토큰, 로그인 세션도 토큰도 없으면 연결이 거부됨. " +
+                        "참여자(고객 또는 배정된 상담원)가 아니면 방으로 보내기와 구독이 거부됨"
+            ),
             "endpoints", Map.of(
                 "sendMessage", Map.of(
                     "destination", "/app/chat.sendMessage/{roomId}",
@@ -104,6 +108,10 @@ public class WebSocketDocController {
                     "destination", "/app/chat.joinRoom/{roomId}",
                     "subscribe", "/topic/room/{roomId}",
                     "description", "채팅방 입장"
+                ),
+                "queuePosition", Map.of(
+                    "subscribe", "/user/queue/position (헤더 roomId)",
+                    "description", "대기 순번과 예상 대기 시간(분) 알림, 바뀐 경우에만 최대 1초에 한 번"
                 )
             ),
             "message_types", Map.of(
@@ -0,0 +1,12 @@
+package com.ezlevup.dentalchat.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 기동 시 세션 만료 일정 복원에 필요한 진행 중인 채팅방 컬럼.
+ */
+public record ActiveSessionRow(
+    String roomId,
+    LocalDateTime startedAt
+) {
+}
@@ -0,0 +1,13 @@
+package com.ezlevup.dentalchat.dto;
+
+import com.ezlevup.dentalchat.entity.User;
+
+/**
+ * 상담원별 진행 중인 상담 수와 접속 상태 집계 결과.
+ */
+public record AdminLoadRow(
+    Long adminId,
+    Long activeRooms,
+    User.UserStatus status
+) {
+}
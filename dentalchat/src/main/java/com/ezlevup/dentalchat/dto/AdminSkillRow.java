@@ -0,0 +1,12 @@
+package com.ezlevup.dentalchat.dto;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+
+/**
+ * 상담원 담당 분야 한 건.
+ */
+public record AdminSkillRow(
+    Long adminId,
+    ConsultationType consultationType
+) {
+}
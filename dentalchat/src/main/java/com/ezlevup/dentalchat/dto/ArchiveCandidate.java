@@ -0,0 +1,10 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 메시지를 세그먼트 파일로 옮길 종료된 채팅방.
+ */
+public record ArchiveCandidate(
+    Long id,
+    String roomId
+) {
+}
@@ -0,0 +1,10 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 최근 메시지 캐시 항목. id 는 저장 전에 미리 발급되므로 write-behind 로 저장 중인 메시지도 다음 페이지 커서로 쓸 수 있다.
+ */
+public record CachedMessage(
+    Long id,
+    ChatMessage message
+) {
+}
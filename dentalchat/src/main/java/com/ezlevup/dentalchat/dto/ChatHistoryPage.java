@@ -0,0 +1,15 @@
+package com.ezlevup.dentalchat.dto;
+
+import java.util.List;
+
+/**
+ * 채팅 이력 한 페이지. messages 는 오래된 순이며,
+ * 더 이전 메시지는 nextBeforeMessageId 를 beforeMessageId 로 넘겨 조회한다.
+ */
+public record ChatHistoryPage(
+    String roomId,
+    List<ChatMessage> messages,
+    Long nextBeforeMessageId,
+    boolean hasMore
+) {
+}
@@ -0,0 +1,31 @@
+package com.ezlevup.dentalchat.dto;
+
+import com.ezlevup.dentalchat.entity.Message;
+import com.ezlevup.dentalchat.entity.User;
+
+import java.time.LocalDateTime;
+
+/**
+ * 채팅 이력 조회용 JPQL 프로젝션. 엔티티를 로딩하지 않고 발신자를 조인한 컬럼만 읽는다.
+ * 발신자가 없는 행은 시스템 메시지다.
+ */
+public record ChatHistoryRow(
+    Long id,
+    String content,
+    String senderUsername,
+    User.UserType senderType,
+    Message.MessageType messageType,
+    LocalDateTime sentAt,
+    String roomId
+) {
+    public ChatMessage toChatMessage() {
+        String sender = senderUsername != null ? senderUsername : "system";
+        UserRole senderRole = senderType == User.UserType.CUSTOMER ? UserRole.CUSTOMER : UserRole.ADMIN;
+        MessageType type = switch (messageType) {
+            case CHAT, SYSTEM -> MessageType.CHAT;
+            case JOIN -> MessageType.JOIN;
+            case LEAVE -> MessageType.LEAVE;
+        };
+        return new ChatMessage(content, sender, senderRole, type, sentAt, roomId);
+    }
+}
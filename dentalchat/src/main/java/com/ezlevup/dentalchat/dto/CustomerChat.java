@@ -0,0 +1,15 @@
+package com.ezlevup.dentalchat.dto;
+
+import java.io.Serializable;
+
+/**
+ * 로그인하지 않은 고객이 만든 상담과 그 고객에게 발급한 채팅 토큰. HTTP 세션에 보관해서 채팅 페이지를 다시 열어도 이어서 쓴다.
+ */
+public record CustomerChat(
+    String roomId,
+    String username,
+    String token
+) implements Serializable {
+
+    public static final String SESSION_ATTRIBUTE = "customerChat";
+}
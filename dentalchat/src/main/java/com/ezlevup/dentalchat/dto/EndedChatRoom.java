@@ -0,0 +1,12 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 일괄 종료 UPDATE 로 실제로 ACTIVE 에서 ENDED 로 바뀐 채팅방.
+ */
+public record EndedChatRoom(
+    Long id,
+    String roomId,
+    Long customerId,
+    Long adminId
+) {
+}
@@ -0,0 +1,15 @@
+package com.ezlevup.dentalchat.dto;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+
+/**
+ * 대기 고객에게 /user/queue/position 으로 보내는 대기 순번과 예상 대기 시간(분).
+ * 배정되었거나 대기를 취소해 더 이상 대기 중이 아니면 position 이 0 인 마지막 알림을 한 번 보낸다.
+ */
+public record QueuePosition(
+    String roomId,
+    ConsultationType consultationType,
+    int position,
+    long estimatedWaitMinutes
+) {
+}
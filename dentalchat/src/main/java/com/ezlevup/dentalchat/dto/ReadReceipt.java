@@ -0,0 +1,11 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 읽음 위치 이벤트. 채팅방 토픽에 {"type":"READ","roomId":..,"reader":..,"lastReadMessageId":..} 로 전송된다.
+ */
+public record ReadReceipt(
+    String roomId,
+    String reader,
+    Long lastReadMessageId
+) {
+}
@@ -0,0 +1,12 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 메시지 처리에 필요한 채팅방 식별 정보와 참여자 id. roomId 로 캐시된다.
+ */
+public record RoomIdentity(
+    Long id,
+    String roomId,
+    Long customerId,
+    Long adminId
+) {
+}
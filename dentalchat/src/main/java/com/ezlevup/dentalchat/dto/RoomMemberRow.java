@@ -0,0 +1,11 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 종료되지 않은 채팅방의 참여자 사용자명. 상담원이 배정되기 전에는 adminUsername 이 null 이다.
+ */
+public record RoomMemberRow(
+    String roomId,
+    String customerUsername,
+    String adminUsername
+) {
+}
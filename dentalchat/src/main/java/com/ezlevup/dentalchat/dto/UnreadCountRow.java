@@ -0,0 +1,11 @@
+package com.ezlevup.dentalchat.dto;
+
+/**
+ * 채팅방 참여자별 안 읽은 메시지 수 집계 결과.
+ */
+public record UnreadCountRow(
+    String roomId,
+    Long userId,
+    Long unreadCount
+) {
+}
@@ -0,0 +1,13 @@
+package com.ezlevup.dentalchat.dto;
+
+import com.ezlevup.dentalchat.entity.User;
+
+/**
+ * 메시지 처리에 필요한 사용자 식별 정보. username 으로 캐시된다.
+ */
+public record UserIdentity(
+    Long id,
+    String username,
+    User.UserType userType
+) {
+}
@@ -0,0 +1,15 @@
+package com.ezlevup.dentalchat.dto;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+
+import java.time.LocalDateTime;
+
+/**
+ * 기동 시 대기열 복원에 필요한 대기 중인 채팅방 컬럼.
+ */
+public record WaitingRoomRow(
+    String roomId,
+    ConsultationType consultationType,
+    LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,99 @@
+package com.ezlevup.dentalchat.entity;
+
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * 메시지를 세그먼트 파일로 옮긴 채팅방. 압축 블록이 segmentNo 번 세그먼트의 segmentOffset 부터 blockLength 바이트에 있다.
+ */
+@Entity
+@Table(name = "archived_rooms")
+public class ArchivedRoom implements Persistable<Long> {
+    @Id
+    @Column(name = "chat_room_id")
+    private Long chatRoomId;
+
+    @Transient
+    private boolean isNew = true;
+
+    @Column(name = "segment_no", nullable = false)
+    private Integer segmentNo;
+
+    @Column(name = "segment_offset", nullable = false)
+    private Long segmentOffset;
+
+    @Column(name = "block_length", nullable = false)
+    private Integer blockLength;
+
+    @Column(name = "message_count", nullable = false)
+    private Integer messageCount;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public Long getId() {
+        return chatRoomId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public Long getChatRoomId() {
+        return chatRoomId;
+    }
+
+    public void setChatRoomId(Long chatRoomId) {
+        this.chatRoomId = chatRoomId;
+    }
+
+    public Integer getSegmentNo() {
+        return segmentNo;
+    }
+
+    public void setSegmentNo(Integer segmentNo) {
+        this.segmentNo = segmentNo;
+    }
+
+    public Long getSegmentOffset() {
+        return segmentOffset;
+    }
+
+    public void setSegmentOffset(Long segmentOffset) {
+        this.segmentOffset = segmentOffset;
+    }
+
+    public Integer getBlockLength() {
+        return blockLength;
+    }
+
+    public void setBlockLength(Integer blockLength) {
+        this.blockLength = blockLength;
+    }
+
+    public Integer getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(Integer messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public LocalDateTime getArchivedAt() {
+        return archivedAt;
+    }
+
+    public void setArchivedAt(LocalDateTime archivedAt) {
+        this.archivedAt = archivedAt;
+    }
+}
@@ -1,11 +1,21 @@
 package com.ezlevup.dentalchat.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.CacheLayout;
+import org.hibernate.annotations.QueryCacheLayout;
+
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "chat_rooms")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "chat-rooms")
+// 상담원 배정(조건부 UPDATE)마다 chat-rooms 영역이 통째로 비워지므로, 조회 캐시에는 id 가 아니라 행 전체를 담아
+// 캐시된 조회 결과가 행마다 다시 SELECT 되지 않게 한다
+@QueryCacheLayout(layout = CacheLayout.FULL)
 public class ChatRoom {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -41,6 +51,10 @@ public class ChatRoom {
     @Column(length = 500)
     private String customerNotes;
 
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private ConsultationType consultationType = ConsultationType.GENERAL;
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -129,4 +143,12 @@ public class ChatRoom {
     public void setCustomerNotes(String customerNotes) {
         this.customerNotes = customerNotes;
     }
-}
\ No newline at end of file
+
+    public ConsultationType getConsultationType() {
+        return consultationType;
+    }
+
+    public void setConsultationType(ConsultationType consultationType) {
+        this.consultationType = consultationType;
+    }
+}
@@ -16,8 +16,9 @@ public class ChatSession {
     @Column(nullable = false, length = 100)
     private String patientName;
 
+    @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 50)
-    private String consultationType;
+    private ConsultationType consultationType;
 
     @Column(name = "start_time", nullable = false)
     private LocalDateTime startTime;
@@ -56,11 +57,11 @@ public class ChatSession {
         this.patientName = patientName;
     }
 
-    public String getConsultationType() {
+    public ConsultationType getConsultationType() {
         return consultationType;
     }
 
-    public void setConsultationType(String consultationType) {
+    public void setConsultationType(ConsultationType consultationType) {
         this.consultationType = consultationType;
     }
 
@@ -0,0 +1,22 @@
+package com.ezlevup.dentalchat.entity;
+
+/**
+ * 상담 분야. 분야마다 대기열이 따로 있고, 상담원은 담당 분야(skills)의 대기열에서만 배정받는다.
+ * priority 가 높은 분야의 고객이 먼저 배정되지만, 낮은 분야도 기다린 시간만큼 우선순위가 올라간다.
+ */
+public enum ConsultationType {
+    EMERGENCY(3),     // 응급 (치통, 외상)
+    IMPLANT(1),
+    ORTHODONTICS(1),
+    GENERAL(0);       // 일반 문의
+
+    private final int priority;
+
+    ConsultationType(int priority) {
+        this.priority = priority;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+}
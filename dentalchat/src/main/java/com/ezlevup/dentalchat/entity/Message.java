@@ -1,21 +1,27 @@
 package com.ezlevup.dentalchat.entity;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
+
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "messages")
-public class Message {
+public class Message implements Persistable<Long> {
+    // IdGenerator 가 발급한 시간순 ID. 저장 전에 정해지므로 write-behind 메시지도 브로드캐스트 시점에 ID 를 가진다.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
+    @Transient
+    private boolean isNew = true;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "chat_room_id", nullable = false)
     private ChatRoom chatRoom;
 
+    // 시스템 메시지는 발신자가 없다
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "sender_id", nullable = false)
+    @JoinColumn(name = "sender_id")
     private User sender;
 
     @Column(nullable = false, columnDefinition = "TEXT")
@@ -28,22 +34,31 @@ public class Message {
     @Column(name = "sent_at", nullable = false)
     private LocalDateTime sentAt;
 
-    @Column(name = "is_read", nullable = false)
-    private boolean isRead = false;
-
     @PrePersist
     protected void onCreate() {
         this.sentAt = LocalDateTime.now();
     }
 
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        this.isNew = false;
+    }
+
     public enum MessageType {
         CHAT, SYSTEM, JOIN, LEAVE
     }
 
+    @Override
     public Long getId() {
         return id;
     }
 
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
     public void setId(Long id) {
         this.id = id;
     }
@@ -87,12 +102,4 @@ public class Message {
     public void setSentAt(LocalDateTime sentAt) {
         this.sentAt = sentAt;
     }
-
-    public boolean isRead() {
-        return isRead;
-    }
-
-    public void setRead(boolean read) {
-        isRead = read;
-    }
 }
\ No newline at end of file
@@ -1,10 +1,17 @@
 package com.ezlevup.dentalchat.entity;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.Set;
 
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -30,6 +37,14 @@ public class User {
     @Column(name = "last_seen")
     private LocalDateTime lastSeen;
 
+    // 상담원 담당 분야. 비어 있으면 모든 분야를 맡는다.
+    @ElementCollection(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user-skills")
+    @CollectionTable(name = "admin_skills", joinColumns = @JoinColumn(name = "user_id"))
+    @Enumerated(EnumType.STRING)
+    @Column(name = "consultation_type", length = 30)
+    private Set<ConsultationType> skills = EnumSet.noneOf(ConsultationType.class);
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -98,4 +113,12 @@ public class User {
     public void setLastSeen(LocalDateTime lastSeen) {
         this.lastSeen = lastSeen;
     }
-}
\ No newline at end of file
+
+    public Set<ConsultationType> getSkills() {
+        return skills;
+    }
+
+    public void setSkills(Set<ConsultationType> skills) {
+        this.skills = skills;
+    }
+}
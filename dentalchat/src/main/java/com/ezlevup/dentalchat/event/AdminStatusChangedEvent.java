@@ -0,0 +1,7 @@
+package com.ezlevup.dentalchat.event;
+
+/**
+ * 상담원이 추가되거나 상태(온라인/오프라인)가 바뀌었을 때 발행된다.
+ */
+public record AdminStatusChangedEvent(Long adminId, boolean online) {
+}
@@ -0,0 +1,7 @@
+package com.ezlevup.dentalchat.event;
+
+/**
+ * 새 채팅방이 만들어졌을 때 발행된다.
+ */
+public record ChatRoomCreatedEvent(String roomId) {
+}
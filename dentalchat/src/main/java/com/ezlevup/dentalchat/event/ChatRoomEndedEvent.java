@@ -0,0 +1,7 @@
+package com.ezlevup.dentalchat.event;
+
+/**
+ * 채팅방이 종료되었을 때 발행된다.
+ */
+public record ChatRoomEndedEvent(String roomId) {
+}
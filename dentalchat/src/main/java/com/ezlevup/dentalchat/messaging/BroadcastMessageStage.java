@@ -0,0 +1,21 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.service.MessageService;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(ChatMessageStage.BROADCAST)
+public class BroadcastMessageStage implements ChatMessageStage {
+
+    private final MessageService messageService;
+
+    public BroadcastMessageStage(MessageService messageService) {
+        this.messageService = messageService;
+    }
+
+    @Override
+    public void process(ChatMessageContext context) {
+        messageService.broadcast(context.getMessage(), context.getMessageId());
+    }
+}
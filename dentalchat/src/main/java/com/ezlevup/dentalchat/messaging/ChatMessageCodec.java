@@ -0,0 +1,126 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.ReadReceipt;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import jakarta.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * {@link ChatMessage} 전용 JSON 코덱.
+ * ObjectMapper 데이터 바인딩(리플렉션) 없이 공유 JsonFactory 의 스트리밍 파서/제너레이터로 byte[] 를 직접 읽고 쓴다.
+ * 클라이언트가 보내는 camelCase 필드와 snake_case 필드를 모두 받아들이고, 출력은 camelCase 로 한다.
+ */
+@Component
+public class ChatMessageCodec {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private static final byte[] WARM_UP_PAYLOAD =
+            "{\"content\":\"warm-up\",\"sender\":\"system\",\"senderRole\":\"ADMIN\",\"type\":\"CHAT\",\"timestamp\":\"2024-01-01T00:00:00\",\"roomId\":\"room_warmup\"}"
+                    .getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 첫 메시지가 클래스 로딩과 인터프리터 구간을 떠안지 않도록 기동 시 미리 몇 번 돌려 둔다.
+     */
+    @PostConstruct
+    void warmUp() {
+        for (int i = 0; i < 1_000; i++) {
+            encode(decode(WARM_UP_PAYLOAD));
+        }
+    }
+
+    public ChatMessage decode(byte[] payload) {
+        String content = null;
+        String sender = null;
+        UserRole senderRole = null;
+        MessageType type = null;
+        LocalDateTime timestamp = null;
+        String roomId = null;
+
+        try (JsonParser parser = JSON_FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("ChatMessage payload must be a JSON object");
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (value == JsonToken.VALUE_NULL) {
+                    continue;
+                }
+
+                switch (field) {
+                    case "content" -> content = parser.getText();
+                    case "sender" -> sender = parser.getText();
+                    case "senderRole", "sender_role" -> senderRole = UserRole.fromString(parser.getText());
+                    case "type" -> type = MessageType.valueOf(parser.getText().toUpperCase());
+                    case "timestamp" -> timestamp = parseTimestamp(parser.getText());
+                    case "roomId", "room_id" -> roomId = parser.getText();
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException("Failed to parse message", e);
+        }
+
+        return new ChatMessage(content, sender, senderRole, type, timestamp, roomId);
+    }
+
+    public byte[] encode(ChatMessage message) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(estimateSize(message));
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+            generator.writeStartObject();
+            generator.writeStringField("content", message.content());
+            generator.writeStringField("sender", message.sender());
+            generator.writeStringField("senderRole", message.senderRole() != null ? message.senderRole().name() : null);
+            generator.writeStringField("type", message.type() != null ? message.type().name() : null);
+            generator.writeStringField("timestamp", message.timestamp() != null ? TIMESTAMP_FORMAT.format(message.timestamp()) : null);
+            generator.writeStringField("roomId", message.roomId());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode message", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    /**
+     * 읽음 이벤트는 채팅 메시지와 같은 토픽으로 나가므로 type 을 READ 로 구분한다.
+     */
+    public byte[] encode(ReadReceipt receipt) {
+        ByteArrayBuilder buffer = new ByteArrayBuilder(96);
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(buffer)) {
+            generator.writeStartObject();
+            generator.writeStringField("type", "READ");
+            generator.writeStringField("roomId", receipt.roomId());
+            generator.writeStringField("reader", receipt.reader());
+            generator.writeNumberField("lastReadMessageId", receipt.lastReadMessageId());
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to encode read receipt", e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private LocalDateTime parseTimestamp(String text) {
+        return text.isEmpty() ? null : LocalDateTime.parse(text, TIMESTAMP_FORMAT);
+    }
+
+    private int estimateSize(ChatMessage message) {
+        int contentLength = message.content() != null ? message.content().length() * 3 : 0;
+        return 128 + contentLength;
+    }
+}
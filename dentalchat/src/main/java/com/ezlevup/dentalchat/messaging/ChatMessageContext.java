@@ -0,0 +1,76 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+
+import java.util.Map;
+
+public class ChatMessageContext {
+
+    private final String roomId;
+    private final MessageType messageType;
+    private final String sessionId;
+    private final Map<String, Object> sessionAttributes;
+    private final byte[] rawPayload;
+    private ChatMessage message;
+    private Long messageId;
+
+    public ChatMessageContext(String roomId, MessageType messageType, String sessionId,
+                              Map<String, Object> sessionAttributes, ChatMessage message) {
+        this(roomId, messageType, sessionId, sessionAttributes, null, message);
+    }
+
+    public ChatMessageContext(String roomId, MessageType messageType, String sessionId,
+                              Map<String, Object> sessionAttributes, byte[] rawPayload) {
+        this(roomId, messageType, sessionId, sessionAttributes, rawPayload, null);
+    }
+
+    private ChatMessageContext(String roomId, MessageType messageType, String sessionId,
+                               Map<String, Object> sessionAttributes, byte[] rawPayload, ChatMessage message) {
+        this.roomId = roomId;
+        this.messageType = messageType;
+        this.sessionId = sessionId;
+        this.sessionAttributes = sessionAttributes;
+        this.rawPayload = rawPayload;
+        this.message = message;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public MessageType getMessageType() {
+        return messageType;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Map<String, Object> getSessionAttributes() {
+        return sessionAttributes;
+    }
+
+    public byte[] getRawPayload() {
+        return rawPayload;
+    }
+
+    public ChatMessage getMessage() {
+        return message;
+    }
+
+    public void setMessage(ChatMessage message) {
+        this.message = message;
+    }
+
+    /**
+     * 저장 단계에서 발급된 메시지 id. 저장하지 않은 메시지는 null 이다.
+     */
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(Long messageId) {
+        this.messageId = messageId;
+    }
+}
@@ -0,0 +1,46 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * STOMP 프레임의 byte[] 본문을 {@link ChatMessageCodec} 으로 바로 {@link ChatMessage} 로 변환한다.
+ * 핸들러는 {@code @Payload ChatMessage} 로 받을 수 있고, 브로드캐스트도 같은 코덱으로 직렬화된다.
+ */
+public class ChatMessageConverter extends AbstractMessageConverter {
+
+    private final ChatMessageCodec codec;
+
+    public ChatMessageConverter(ChatMessageCodec codec) {
+        super(MimeTypeUtils.APPLICATION_JSON);
+        this.codec = codec;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return ChatMessage.class == clazz;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        Object payload = message.getPayload();
+        byte[] bytes = payload instanceof byte[] raw ? raw : payload.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            return codec.decode(bytes);
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException(message, "Failed to parse ChatMessage: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        byte[] bytes = codec.encode((ChatMessage) payload);
+        return byte[].class == getSerializedPayloadClass() ? bytes : new String(bytes, StandardCharsets.UTF_8);
+    }
+}
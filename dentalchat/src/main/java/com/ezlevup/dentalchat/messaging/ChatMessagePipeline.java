@@ -0,0 +1,46 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 등록된 {@link ChatMessageStage} 들을 순서대로 실행한다.
+ * 인바운드 채널 스레드는 작업을 넘기자마자 반환되고, 응답은 브로드캐스트 단계에서 SimpMessagingTemplate 으로 전송된다.
+ * 실행 위치는 {@link RoomTaskExecutor} 가 정하며, 파티션 모드에서는 같은 방의 메시지가 순서대로 처리된다.
+ */
+@Component
+public class ChatMessagePipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessagePipeline.class);
+
+    private final List<ChatMessageStage> stages;
+
+    private final RoomTaskExecutor roomTaskExecutor;
+
+    public ChatMessagePipeline(List<ChatMessageStage> stages, RoomTaskExecutor roomTaskExecutor) {
+        this.stages = List.copyOf(stages);
+        this.roomTaskExecutor = roomTaskExecutor;
+        logger.info("메시지 파이프라인 구성: {}", this.stages.stream().map(stage -> stage.getClass().getSimpleName()).toList());
+    }
+
+    public CompletableFuture<ChatMessage> submit(ChatMessageContext context) {
+        return CompletableFuture.supplyAsync(() -> process(context), task -> roomTaskExecutor.execute(context.getRoomId(), task))
+                .whenComplete((message, error) -> {
+                    if (error != null) {
+                        logger.error("Error processing message in room {}: {}", context.getRoomId(), error.getMessage(), error);
+                    }
+                });
+    }
+
+    ChatMessage process(ChatMessageContext context) {
+        for (ChatMessageStage stage : stages) {
+            stage.process(context);
+        }
+        return context.getMessage();
+    }
+}
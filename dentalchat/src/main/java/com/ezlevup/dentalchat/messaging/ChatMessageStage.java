@@ -0,0 +1,17 @@
+package com.ezlevup.dentalchat.messaging;
+
+/**
+ * STOMP 메시지 처리 파이프라인의 한 단계.
+ * 빈으로 등록하고 {@link org.springframework.core.annotation.Order} 로 위치를 지정하면 체인에 자동으로 끼워진다.
+ * 예외를 던지면 이후 단계는 실행되지 않는다.
+ */
+public interface ChatMessageStage {
+
+    int PARSE = 100;
+    int VALIDATE = 200;
+    int ENRICH = 300;
+    int PERSIST = 400;
+    int BROADCAST = 500;
+
+    void process(ChatMessageContext context);
+}
@@ -0,0 +1,64 @@
+package com.ezlevup.dentalchat.messaging;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * 프로세스 안에서 띄우는 Artemis STOMP 브로커. 브로커 릴레이를 외부 설치 없이 개발/테스트할 때 사용한다.
+ * /topic/ 은 멀티캐스트, /queue/ 는 애니캐스트 주소로 매핑되며 메시지는 메모리에만 보관한다.
+ * 릴레이 핸들러가 시작(lifecycle)되기 전에 떠 있어야 하므로 빈 초기화 시점에 시작하고, 릴레이가 멈춘 뒤 빈 소멸 시점에 종료한다.
+ */
+@Component
+@ConditionalOnProperty(name = "dental-chat.broker.relay.embedded.enabled", havingValue = "true")
+public class EmbeddedStompBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddedStompBroker.class);
+
+    private final String host;
+
+    private final int port;
+
+    private EmbeddedActiveMQ server;
+
+    public EmbeddedStompBroker(@Value("${dental-chat.broker.relay.host:localhost}") String host,
+                               @Value("${dental-chat.broker.relay.port:61613}") int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    @PostConstruct
+    void start() {
+        Configuration configuration = new ConfigurationImpl()
+                .setName("dentalchat-stomp")
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false);
+        try {
+            configuration.addAcceptorConfiguration("stomp",
+                    "tcp://" + host + ":" + port + "?protocols=STOMP;anycastPrefix=/queue/;multicastPrefix=/topic/");
+            server = new EmbeddedActiveMQ().setConfiguration(configuration);
+            server.start();
+        } catch (Exception e) {
+            throw new IllegalStateException("내장 STOMP 브로커를 시작할 수 없습니다: " + host + ":" + port, e);
+        }
+        logger.info("내장 STOMP 브로커 시작: {}:{}", host, port);
+    }
+
+    @PreDestroy
+    void stop() {
+        try {
+            server.stop();
+        } catch (Exception e) {
+            logger.warn("내장 STOMP 브로커 종료 중 오류 발생", e);
+        }
+        logger.info("내장 STOMP 브로커 종료");
+    }
+}
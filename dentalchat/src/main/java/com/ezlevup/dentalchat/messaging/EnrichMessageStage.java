@@ -0,0 +1,59 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Order(ChatMessageStage.ENRICH)
+public class EnrichMessageStage implements ChatMessageStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(EnrichMessageStage.class);
+
+    @Override
+    public void process(ChatMessageContext context) {
+        ChatMessage message = context.getMessage();
+        String roomId = context.getRoomId();
+        String content = message.content();
+
+        if (context.getMessageType() == MessageType.JOIN) {
+            content = message.sender() + " joined the room";
+
+            Map<String, Object> sessionAttributes = context.getSessionAttributes();
+            if (sessionAttributes != null) {
+                sessionAttributes.put("roomId", roomId);
+            }
+            logger.info("User {} joined room {} (session: {})", message.sender(), roomId, context.getSessionId());
+        }
+
+        ChatMessage processedMessage = new ChatMessage(
+                content,
+                message.sender(),
+                message.senderRole(),
+                context.getMessageType(),
+                message.timestamp(),
+                roomId
+        ).withTimestamp();
+
+        context.setMessage(processedMessage);
+
+        logger.info("Message processed - Room: {}, Sender: {}, Role: {}, Type: {}, Session: {}, Content: {}",
+                processedMessage.roomId(),
+                processedMessage.sender(),
+                processedMessage.senderRole(),
+                processedMessage.type(),
+                context.getSessionId(),
+                truncateContent(processedMessage.content())
+        );
+    }
+
+    private String truncateContent(String content) {
+        if (content == null) return "null";
+        return content.length() > 50 ? content.substring(0, 50) + "..." : content;
+    }
+}
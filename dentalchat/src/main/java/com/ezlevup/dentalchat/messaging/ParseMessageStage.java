@@ -0,0 +1,36 @@
+package com.ezlevup.dentalchat.messaging;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * STOMP 핸들러는 컨버터가 이미 디코딩한 메시지를 넘기므로, 원본 byte[] 만 있는 경우에만 디코딩한다.
+ */
+@Component
+@Order(ChatMessageStage.PARSE)
+public class ParseMessageStage implements ChatMessageStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseMessageStage.class);
+
+    private final ChatMessageCodec codec;
+
+    public ParseMessageStage(ChatMessageCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void process(ChatMessageContext context) {
+        if (context.getMessage() != null || context.getRawPayload() == null) {
+            return;
+        }
+
+        try {
+            context.setMessage(codec.decode(context.getRawPayload()));
+        } catch (IllegalArgumentException e) {
+            logger.error("Failed to parse ChatMessage: {}", e.getMessage());
+            throw e;
+        }
+    }
+}
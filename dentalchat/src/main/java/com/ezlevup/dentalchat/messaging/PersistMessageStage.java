@@ -0,0 +1,33 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.service.MessageService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+@Component
+@Order(ChatMessageStage.PERSIST)
+public class PersistMessageStage implements ChatMessageStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(PersistMessageStage.class);
+
+    private final MessageService messageService;
+
+    public PersistMessageStage(MessageService messageService) {
+        this.messageService = messageService;
+    }
+
+    @Override
+    public void process(ChatMessageContext context) {
+        try {
+            MessageService.EnqueuedMessage enqueued = messageService.enqueueMessage(context.getMessage());
+            context.setMessage(enqueued.message());
+            context.setMessageId(enqueued.id());
+        } catch (IllegalArgumentException e) {
+            // DB 에 없는 채팅방/사용자의 메시지는 기록 없이 중계만 한다
+            logger.warn("메시지 저장 생략: roomId={}, sender={}, reason={}",
+                    context.getRoomId(), context.getMessage().sender(), e.getMessage());
+        }
+    }
+}
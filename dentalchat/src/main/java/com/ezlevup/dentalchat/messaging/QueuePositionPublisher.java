@@ -0,0 +1,173 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.QueuePosition;
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.service.ConsultationRouter;
+import com.ezlevup.dentalchat.service.WaitTimeEstimator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 대기 고객에게 대기 순번과 예상 대기 시간을 보낸다.
+ * 고객은 roomId 헤더를 붙여 /user/queue/position 을 구독한다. 대기열이 바뀔 때마다 보내지 않고
+ * push-interval 마다 한 번 모든 구독자의 순번을 다시 계산해서 직전에 보낸 값과 달라진 세션에만 보낸다.
+ * 그 사이에 배정이 여러 번 일어나도 고객마다 한 번만 전송되므로 구독자당 전송은 주기당 최대 1 회다.
+ */
+@Component
+public class QueuePositionPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueuePositionPublisher.class);
+
+    public static final String POSITION_QUEUE = "/queue/position";
+
+    private static final String POSITION_SUBSCRIPTION = "/user" + POSITION_QUEUE;
+
+    private static final String ROOM_ID_HEADER = "roomId";
+
+    private static final long MINUTE_MILLIS = 60_000;
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final ConsultationRouter consultationRouter;
+
+    private final WaitTimeEstimator waitTimeEstimator;
+
+    private final ConcurrentHashMap<String, Subscriber> subscribers = new ConcurrentHashMap<>();
+
+    private final Counter pushes;
+
+    /**
+     * 세션 하나의 구독 상태. 마지막으로 보낸 값은 flush 스레드에서만 읽고 쓴다.
+     */
+    private static final class Subscriber {
+
+        private final String roomId;
+
+        private final String subscriptionId;
+
+        private int lastPosition = -1;
+
+        private long lastEstimatedWaitMinutes = -1;
+
+        private Subscriber(String roomId, String subscriptionId) {
+            this.roomId = roomId;
+            this.subscriptionId = subscriptionId;
+        }
+    }
+
+    public QueuePositionPublisher(SimpMessageSendingOperations messagingTemplate,
+                                  ConsultationRouter consultationRouter,
+                                  WaitTimeEstimator waitTimeEstimator,
+                                  MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.consultationRouter = consultationRouter;
+        this.waitTimeEstimator = waitTimeEstimator;
+        this.pushes = Counter.builder("dentalchat.queue.position.pushes")
+                .description("대기 고객에게 보낸 순번 알림 수")
+                .register(meterRegistry);
+        meterRegistry.gauge("dentalchat.queue.position.subscribers", subscribers, Map::size);
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String roomId = accessor.getFirstNativeHeader(ROOM_ID_HEADER);
+        if (POSITION_SUBSCRIPTION.equals(accessor.getDestination()) && roomId != null) {
+            subscribe(accessor.getSessionId(), accessor.getSubscriptionId(), roomId);
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        unsubscribe(accessor.getSessionId(), accessor.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        subscribers.remove(event.getSessionId());
+    }
+
+    /**
+     * 세션당 대기 방 하나만 추적한다. 첫 알림은 다음 flush 에서 보낸다.
+     */
+    public void subscribe(String sessionId, String subscriptionId, String roomId) {
+        subscribers.put(sessionId, new Subscriber(roomId, subscriptionId));
+        logger.debug("대기 순번 구독: sessionId={}, roomId={}", sessionId, roomId);
+    }
+
+    public void unsubscribe(String sessionId, String subscriptionId) {
+        subscribers.computeIfPresent(sessionId,
+                (id, subscriber) -> subscriber.subscriptionId.equals(subscriptionId) ? null : subscriber);
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 구독자마다 현재 순번과 예상 대기 시간을 계산해 달라진 경우에만 보낸다. 보낸 건수를 반환한다.
+     * 더 이상 대기 중이 아닌 방은 position 0 을 보내고 구독 목록에서 뺀다.
+     */
+    @Scheduled(fixedDelayString = "${dental-chat.queue-position.push-interval:1000}")
+    public int flush() {
+        int sent = 0;
+        Iterator<Map.Entry<String, Subscriber>> iterator = subscribers.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Subscriber> entry = iterator.next();
+            Subscriber subscriber = entry.getValue();
+            Optional<ConsultationType> type = consultationRouter.typeOf(subscriber.roomId);
+            OptionalInt position = consultationRouter.positionOf(subscriber.roomId);
+
+            if (type.isEmpty() || position.isEmpty()) {
+                if (subscriber.lastPosition > 0) {
+                    send(entry.getKey(), new QueuePosition(subscriber.roomId, null, 0, 0));
+                    sent++;
+                }
+                iterator.remove();
+                continue;
+            }
+
+            long estimatedWaitMinutes = toMinutes(waitTimeEstimator.estimateWaitMillis(type.get(), position.getAsInt()));
+            if (position.getAsInt() != subscriber.lastPosition
+                    || estimatedWaitMinutes != subscriber.lastEstimatedWaitMinutes) {
+                send(entry.getKey(), new QueuePosition(subscriber.roomId, type.get(), position.getAsInt(), estimatedWaitMinutes));
+                subscriber.lastPosition = position.getAsInt();
+                subscriber.lastEstimatedWaitMinutes = estimatedWaitMinutes;
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    private void send(String sessionId, QueuePosition queuePosition) {
+        // 로그인하지 않은 고객도 받을 수 있도록 세션 ID 를 사용자 이름으로 쓴다
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.convertAndSendToUser(sessionId, POSITION_QUEUE, queuePosition, accessor.getMessageHeaders());
+        pushes.increment();
+    }
+
+    private static long toMinutes(long millis) {
+        return (millis + MINUTE_MILLIS - 1) / MINUTE_MILLIS;
+    }
+}
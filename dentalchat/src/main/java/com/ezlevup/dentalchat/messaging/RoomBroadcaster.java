@@ -0,0 +1,81 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.ReadReceipt;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+/**
+ * 채팅방 브로드캐스트를 한 번만 직렬화해서 보낸다.
+ * 인코딩한 byte[] 프레임을 방 토픽과 상담원 모니터링 토픽에 그대로 넘기므로 메시지 컨버터를 다시 거치지 않고,
+ * 심플 브로커도 구독자마다 같은 페이로드 배열을 공유한다. 프레임은 인코딩 이후 절대 수정하지 않는다.
+ * 모니터링 토픽은 모든 상담 내용이 지나가므로 기본으로 꺼져 있고, 구독은 RoomMembershipInterceptor 가 ADMIN 에게만 허용한다.
+ */
+@Component
+public class RoomBroadcaster {
+
+    public static final String ROOM_TOPIC_PREFIX = "/topic/room/";
+
+    public static final String ADMIN_MONITOR_TOPIC = "/topic/admin/monitor";
+
+    private final SimpMessageSendingOperations messagingTemplate;
+
+    private final ChatMessageCodec codec;
+
+    private final boolean adminMonitorEnabled;
+
+    private final DistributionSummary encodedBytes;
+
+    private final Counter sentFrames;
+
+    public RoomBroadcaster(SimpMessageSendingOperations messagingTemplate,
+                           ChatMessageCodec codec,
+                           MeterRegistry meterRegistry,
+                           @Value("${dental-chat.broadcast.admin-monitor-enabled:false}") boolean adminMonitorEnabled) {
+        this.messagingTemplate = messagingTemplate;
+        this.codec = codec;
+        this.adminMonitorEnabled = adminMonitorEnabled;
+        this.encodedBytes = DistributionSummary.builder("dentalchat.broadcast.encoded.bytes")
+                .description("브로드캐스트 1회(fan-out)당 인코딩한 바이트 수")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.sentFrames = Counter.builder("dentalchat.broadcast.frames")
+                .description("인코딩된 프레임을 브로커로 보낸 횟수")
+                .register(meterRegistry);
+    }
+
+    public void broadcast(ChatMessage message) {
+        byte[] frame = codec.encode(message);
+        encodedBytes.record(frame.length);
+
+        send(ROOM_TOPIC_PREFIX + message.roomId(), frame);
+        if (adminMonitorEnabled) {
+            send(ADMIN_MONITOR_TOPIC, frame);
+        }
+    }
+
+    /**
+     * 읽음 이벤트는 해당 채팅방 참여자에게만 보낸다.
+     */
+    public void broadcastReadReceipt(ReadReceipt receipt) {
+        byte[] frame = codec.encode(receipt);
+        encodedBytes.record(frame.length);
+        send(ROOM_TOPIC_PREFIX + receipt.roomId(), frame);
+    }
+
+    private void send(String destination, byte[] frame) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(frame, accessor.getMessageHeaders()));
+        sentFrames.increment();
+    }
+}
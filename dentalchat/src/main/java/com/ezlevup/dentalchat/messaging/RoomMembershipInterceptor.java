@@ -0,0 +1,175 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import com.ezlevup.dentalchat.service.RoomMembershipIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 클라이언트 인바운드 채널에서 STOMP 세션을 인증하고, 채팅방 참여자만 방으로 SEND, SUBSCRIBE 할 수 있게 한다.
+ * 사용자는 HTTP 로그인 세션의 Principal 이거나, 없으면 CONNECT 프레임의 token 헤더를 {@link ChatAccessTokenService} 로
+ * 확인해서 정한다. 둘 다 없으면 연결을 거부한다. 클라이언트가 보낸 사용자명 헤더는 믿지 않는다.
+ * 방 목적지는 /app/chat.{동작}/{roomId}, /topic/room/{roomId}, roomId 헤더를 붙인 /user/queue/position 이며,
+ * 확인은 {@link RoomMembershipIndex} 로 한다. 모든 방의 메시지가 지나가는 /topic/admin/monitor 는 ADMIN 권한으로
+ * 로그인한 사용자만 구독할 수 있고, 그 밖의 브로커 목적지는 직접 SEND, SUBSCRIBE 할 수 없다.
+ * 거부하면 AccessDeniedException 을 던지고 클라이언트는 ERROR 프레임을 받는다.
+ */
+@Component
+public class RoomMembershipInterceptor implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomMembershipInterceptor.class);
+
+    public static final String TOKEN_HEADER = "token";
+
+    public static final String USERNAME_ATTRIBUTE = "username";
+
+    private static final String ADMIN_AUTHORITY = "ROLE_ADMIN";
+
+    private static final String ROOM_ID_HEADER = "roomId";
+
+    private static final String APP_ROOM_PREFIX = "/app/chat.";
+
+    private static final String USER_PREFIX = "/user/";
+
+    private static final String POSITION_SUBSCRIPTION = "/user" + QueuePositionPublisher.POSITION_QUEUE;
+
+    private final RoomMembershipIndex roomMembershipIndex;
+
+    private final ChatAccessTokenService chatAccessTokenService;
+
+    private final Counter deniedConnects;
+
+    private final Counter deniedSends;
+
+    private final Counter deniedSubscribes;
+
+    public RoomMembershipInterceptor(RoomMembershipIndex roomMembershipIndex,
+                                     ChatAccessTokenService chatAccessTokenService,
+                                     MeterRegistry meterRegistry) {
+        this.roomMembershipIndex = roomMembershipIndex;
+        this.chatAccessTokenService = chatAccessTokenService;
+        this.deniedConnects = deniedCounter(meterRegistry, StompCommand.CONNECT);
+        this.deniedSends = deniedCounter(meterRegistry, StompCommand.SEND);
+        this.deniedSubscribes = deniedCounter(meterRegistry, StompCommand.SUBSCRIBE);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+
+        switch (accessor.getCommand()) {
+            case CONNECT, STOMP -> authenticate(accessor);
+            case SEND -> checkSend(accessor);
+            case SUBSCRIBE -> checkSubscribe(accessor);
+            default -> {
+            }
+        }
+        return message;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        if (user == null) {
+            String username = chatAccessTokenService.verify(accessor.getFirstNativeHeader(TOKEN_HEADER)).orElse(null);
+            if (username == null) {
+                deny(deniedConnects, accessor, null, null, "인증되지 않은 연결입니다.");
+            }
+            // 이후 프레임에는 이 Principal 이 붙는다
+            user = UsernamePasswordAuthenticationToken.authenticated(username, null, List.of());
+            accessor.setUser(user);
+        }
+        Map<String, Object> sessionAttributes = accessor.getSessionAttributes();
+        if (sessionAttributes != null) {
+            sessionAttributes.put(USERNAME_ATTRIBUTE, user.getName());
+        }
+    }
+
+    private void checkSend(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        String username = username(accessor);
+        // 브로커 목적지에 직접 보내면 저장과 발신자 확인을 건너뛰게 되므로 참여자라도 허용하지 않는다
+        if (destination == null || !destination.startsWith(APP_ROOM_PREFIX)) {
+            deny(deniedSends, accessor, username, destination, "채팅방 참여자만 접근할 수 있습니다.");
+        }
+        String roomId = destination.substring(destination.lastIndexOf('/') + 1);
+        if (!roomMembershipIndex.isMember(roomId, username)) {
+            deny(deniedSends, accessor, username, destination, "채팅방 참여자만 접근할 수 있습니다.");
+        }
+    }
+
+    private void checkSubscribe(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        String username = username(accessor);
+        if (destination == null) {
+            deny(deniedSubscribes, accessor, username, null, "채팅방 참여자만 접근할 수 있습니다.");
+        }
+
+        String roomId;
+        if (destination.startsWith(RoomBroadcaster.ROOM_TOPIC_PREFIX)) {
+            roomId = destination.substring(RoomBroadcaster.ROOM_TOPIC_PREFIX.length());
+        } else if (POSITION_SUBSCRIPTION.equals(destination)) {
+            roomId = accessor.getFirstNativeHeader(ROOM_ID_HEADER);
+        } else if (RoomBroadcaster.ADMIN_MONITOR_TOPIC.equals(destination)) {
+            if (!isAdmin(accessor.getUser())) {
+                deny(deniedSubscribes, accessor, username, destination, "상담원만 구독할 수 있습니다.");
+            }
+            return;
+        } else if (destination.startsWith(USER_PREFIX)) {
+            // 사용자 목적지는 자기 세션의 큐로만 바뀐다 (/user/queue/history 등)
+            return;
+        } else {
+            // 다른 사람의 세션 큐(/queue/...-user{sessionId})나 알 수 없는 토픽
+            deny(deniedSubscribes, accessor, username, destination, "구독할 수 없는 목적지입니다.");
+            return;
+        }
+        if (!roomMembershipIndex.isMember(roomId, username)) {
+            deny(deniedSubscribes, accessor, username, destination, "채팅방 참여자만 접근할 수 있습니다.");
+        }
+    }
+
+    private static String username(StompHeaderAccessor accessor) {
+        Principal user = accessor.getUser();
+        return user != null ? user.getName() : null;
+    }
+
+    private static boolean isAdmin(Principal user) {
+        return user instanceof Authentication authentication
+                && authentication.isAuthenticated()
+                && authentication.getAuthorities().stream()
+                        .anyMatch(authority -> ADMIN_AUTHORITY.equals(authority.getAuthority()));
+    }
+
+    private static void deny(Counter counter, StompHeaderAccessor accessor, String username, String destination,
+                             String reason) {
+        counter.increment();
+        logger.warn("STOMP 요청 거부: command={}, sessionId={}, username={}, destination={}, reason={}",
+                accessor.getCommand(), accessor.getSessionId(), username, destination, reason);
+        throw new AccessDeniedException(reason);
+    }
+
+    private static Counter deniedCounter(MeterRegistry meterRegistry, StompCommand command) {
+        return Counter.builder("dentalchat.stomp.denied")
+                .description("인증이나 채팅방 참여자 확인에서 거부된 STOMP 프레임 수")
+                .tag("command", command.name())
+                .register(meterRegistry);
+    }
+}
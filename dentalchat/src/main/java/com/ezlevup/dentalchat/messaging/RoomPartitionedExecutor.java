@@ -0,0 +1,97 @@
+package com.ezlevup.dentalchat.messaging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * roomId 해시로 N 개의 단일 스레드 레인 중 하나를 골라 실행한다.
+ * 같은 방의 메시지는 항상 같은 레인에서 도착 순서대로 처리되고, 다른 방은 여러 레인에서 병렬로 처리된다.
+ * 레인 큐가 가득 차면 호출 스레드가 자리가 날 때까지 기다린다 (순서를 깨는 caller-runs 는 쓰지 않는다).
+ */
+public class RoomPartitionedExecutor implements RoomTaskExecutor, AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoomPartitionedExecutor.class);
+
+    private final ThreadPoolExecutor[] lanes;
+
+    public RoomPartitionedExecutor(int partitions, int laneCapacity, MeterRegistry meterRegistry) {
+        if (partitions <= 0) {
+            partitions = Runtime.getRuntime().availableProcessors();
+        }
+
+        lanes = new ThreadPoolExecutor[partitions];
+        for (int i = 0; i < partitions; i++) {
+            ThreadPoolExecutor lane = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(laneCapacity),
+                    Thread.ofPlatform().name("room-lane-" + i).factory(),
+                    RoomPartitionedExecutor::waitForSpace);
+            lanes[i] = lane;
+
+            String laneTag = String.valueOf(i);
+            Gauge.builder("dentalchat.broker.lane.queue.depth", lane, executor -> executor.getQueue().size())
+                    .description("레인별 대기 중인 메시지 수")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+            FunctionCounter.builder("dentalchat.broker.lane.completed", lane, ThreadPoolExecutor::getCompletedTaskCount)
+                    .description("레인별 처리 완료된 메시지 수")
+                    .tag("lane", laneTag)
+                    .register(meterRegistry);
+        }
+        logger.info("채팅방 파티션 실행기 시작: partitions={}, laneCapacity={}", partitions, laneCapacity);
+    }
+
+    @Override
+    public void execute(String roomId, Runnable task) {
+        lanes[laneOf(roomId)].execute(task);
+    }
+
+    public int laneOf(String roomId) {
+        int hash = roomId != null ? roomId.hashCode() : 0;
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    public int getPartitionCount() {
+        return lanes.length;
+    }
+
+    public int getQueueDepth(int lane) {
+        return lanes[lane].getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            try {
+                if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                    logger.warn("레인 종료 대기 시간 초과: 남은 작업 수={}", lane.getQueue().size());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void waitForSpace(Runnable task, ThreadPoolExecutor lane) {
+        if (lane.isShutdown()) {
+            throw new RejectedExecutionException("채팅방 레인이 종료되었습니다.");
+        }
+        try {
+            lane.getQueue().put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("레인 대기 중 인터럽트", e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.ezlevup.dentalchat.messaging;
+
+/**
+ * 채팅방 단위로 작업을 실행한다. 구현에 따라 같은 방의 작업 순서를 보장할 수 있다.
+ */
+@FunctionalInterface
+public interface RoomTaskExecutor {
+
+    void execute(String roomId, Runnable task);
+}
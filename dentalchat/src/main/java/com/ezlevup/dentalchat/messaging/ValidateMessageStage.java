@@ -0,0 +1,61 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+@Component
+@Order(ChatMessageStage.VALIDATE)
+public class ValidateMessageStage implements ChatMessageStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidateMessageStage.class);
+
+    private static final int MAX_CONTENT_LENGTH = 1000;
+
+    @Override
+    public void process(ChatMessageContext context) {
+        ChatMessage message = context.getMessage();
+        String roomId = context.getRoomId();
+
+        if (message == null) {
+            throw new IllegalArgumentException("Message cannot be null");
+        }
+
+        // JOIN 메시지의 본문은 enrich 단계에서 만들어진다
+        if (context.getMessageType() != MessageType.JOIN) {
+            if (message.content() == null || message.content().trim().isEmpty()) {
+                throw new IllegalArgumentException("Message content cannot be empty");
+            }
+
+            if (message.content().length() > MAX_CONTENT_LENGTH) {
+                throw new IllegalArgumentException("Message content too long (max 1000 characters)");
+            }
+        }
+
+        if (message.sender() == null || message.sender().trim().isEmpty()) {
+            throw new IllegalArgumentException("Sender cannot be empty");
+        }
+
+        // CONNECT 때 정해진 세션 사용자와 다른 이름으로는 보낼 수 없다
+        Map<String, Object> sessionAttributes = context.getSessionAttributes();
+        Object sessionUsername = sessionAttributes != null ? sessionAttributes.get("username") : null;
+        if (sessionUsername != null && !sessionUsername.equals(message.sender())) {
+            throw new IllegalArgumentException("Sender does not match session user");
+        }
+
+        if (message.senderRole() == null) {
+            throw new IllegalArgumentException("Sender role cannot be null");
+        }
+
+        if (roomId == null || roomId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Room ID cannot be empty");
+        }
+
+        logger.debug("Message validation successful for room: {}, sender: {}", roomId, message.sender());
+    }
+}
@@ -0,0 +1,28 @@
+package com.ezlevup.dentalchat.repository;
+
+import com.ezlevup.dentalchat.entity.ArchivedRoom;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedRoomRepository extends JpaRepository<ArchivedRoom, Long> {
+
+    @Query("SELECT a FROM ArchivedRoom a WHERE a.chatRoomId = (SELECT cr.id FROM ChatRoom cr WHERE cr.roomId = :roomId)")
+    Optional<ArchivedRoom> findByRoomId(String roomId);
+
+    /**
+     * 마지막으로 보관된 방이 archivedBefore 보다 이전인 세그먼트. 세그먼트는 통째로만 지울 수 있다.
+     */
+    @Query("SELECT a.segmentNo FROM ArchivedRoom a GROUP BY a.segmentNo HAVING MAX(a.archivedAt) < :archivedBefore")
+    List<Integer> findSegmentsArchivedBefore(LocalDateTime archivedBefore);
+
+    @Modifying
+    @Query("DELETE FROM ArchivedRoom a WHERE a.segmentNo = :segmentNo")
+    int deleteBySegmentNo(int segmentNo);
+}
@@ -0,0 +1,15 @@
+package com.ezlevup.dentalchat.repository;
+
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ChatRoomBulkOperations {
+
+    /**
+     * roomIds 중 ACTIVE 인 방을 잠그고 ENDED 로 바꾼 뒤, 실제로 바뀐 방만 반환한다.
+     */
+    List<EndedChatRoom> endActiveRooms(Collection<String> roomIds, LocalDateTime endedAt);
+}
@@ -0,0 +1,94 @@
+package com.ezlevup.dentalchat.repository;
+
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ACTIVE 인 방을 SELECT ... FOR UPDATE 로 잠가서 읽은 뒤 같은 트랜잭션에서 그 행만 UPDATE 한다.
+ * 잠근 행은 다른 트랜잭션이 먼저 종료할 수 없으므로 읽은 행이 곧 실제로 바뀐 행이다.
+ * RETURNING 이나 delta table 같은 DB 별 문법은 쓰지 않는다. 잠금이 유지되도록 트랜잭션 안에서 호출해야 한다.
+ * UPDATE 는 JPA 를 거치지 않으므로, 같은 트랜잭션에서 이미 읽어 둔 ChatRoom 엔티티는 종료 전 상태로 남고
+ * 2차 캐시와 조회 캐시도 직접 비워야 한다.
+ */
+class ChatRoomBulkOperationsImpl implements ChatRoomBulkOperations {
+
+    private static final String LOCK_ACTIVE_ROOMS_SQL =
+            "SELECT id, roomId, customer_id, admin_id FROM chat_rooms " +
+            "WHERE roomId IN (:roomIds) AND status = 'ACTIVE' FOR UPDATE";
+
+    private static final String END_ROOMS_SQL =
+            "UPDATE chat_rooms SET status = 'ENDED', ended_at = :endedAt " +
+            "WHERE id IN (:ids) AND status = 'ACTIVE'";
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<EndedChatRoom> endActiveRooms(Collection<String> roomIds, LocalDateTime endedAt) {
+        if (roomIds.isEmpty()) {
+            return List.of();
+        }
+        // 아직 반영되지 않은 변경(배정 등)이 UPDATE 조건에 보이도록 먼저 flush
+        entityManager.flush();
+
+        MapSqlParameterSource lockParams = new MapSqlParameterSource("roomIds", roomIds);
+        List<EndedChatRoom> endedRooms = jdbcTemplate.query(LOCK_ACTIVE_ROOMS_SQL, lockParams, (rs, rowNum) -> new EndedChatRoom(
+                rs.getLong("id"),
+                rs.getString("roomId"),
+                rs.getObject("customer_id", Long.class),
+                rs.getObject("admin_id", Long.class)
+        ));
+        if (endedRooms.isEmpty()) {
+            return endedRooms;
+        }
+
+        MapSqlParameterSource updateParams = new MapSqlParameterSource()
+                .addValue("ids", endedRooms.stream().map(EndedChatRoom::id).toList())
+                .addValue("endedAt", Timestamp.valueOf(endedAt));
+        jdbcTemplate.update(END_ROOMS_SQL, updateParams);
+        evictFromSecondLevelCache(endedRooms);
+        return endedRooms;
+    }
+
+    /**
+     * 커밋 전에 다른 트랜잭션이 종료 전 상태를 다시 캐시했을 수 있으므로 트랜잭션이 끝난 뒤 한 번 더 비운다.
+     */
+    private void evictFromSecondLevelCache(List<EndedChatRoom> endedRooms) {
+        if (endedRooms.isEmpty()) {
+            return;
+        }
+        Cache cache = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache();
+        Runnable eviction = () -> {
+            for (EndedChatRoom endedRoom : endedRooms) {
+                cache.evictEntityData(ChatRoom.class, endedRoom.id());
+            }
+            cache.evictDefaultQueryRegion();
+        };
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
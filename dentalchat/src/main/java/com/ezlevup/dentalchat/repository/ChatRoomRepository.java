@@ -1,18 +1,39 @@
 package com.ezlevup.dentalchat.repository;
 
+import com.ezlevup.dentalchat.dto.ActiveSessionRow;
+import com.ezlevup.dentalchat.dto.ArchiveCandidate;
+import com.ezlevup.dentalchat.dto.AdminLoadRow;
+import com.ezlevup.dentalchat.dto.RoomIdentity;
+import com.ezlevup.dentalchat.dto.RoomMemberRow;
+import com.ezlevup.dentalchat.dto.WaitingRoomRow;
 import com.ezlevup.dentalchat.entity.ChatRoom;
 import com.ezlevup.dentalchat.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
+public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long>, ChatRoomBulkOperations {
     
     Optional<ChatRoom> findByRoomId(String roomId);
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.RoomIdentity(cr.id, cr.roomId, c.id, a.id) FROM ChatRoom cr " +
+           "LEFT JOIN cr.customer c LEFT JOIN cr.admin a WHERE cr.roomId = :roomId")
+    Optional<RoomIdentity> findIdentityByRoomId(String roomId);
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.RoomMemberRow(cr.roomId, c.username, a.username) FROM ChatRoom cr " +
+           "LEFT JOIN cr.customer c LEFT JOIN cr.admin a WHERE cr.roomId = :roomId AND cr.status <> 'ENDED'")
+    Optional<RoomMemberRow> findOpenRoomMembers(String roomId);
     
     List<ChatRoom> findByStatus(ChatRoom.RoomStatus status);
     
@@ -20,12 +41,62 @@ public interface ChatRoomRepository extends JpaRepository<ChatRoom, Long> {
     
     List<ChatRoom> findByAdmin(User admin);
     
+    /**
+     * 조회 캐시 대상. chat_rooms 테이블이 바뀌면(생성, 배정, 종료) 캐시된 결과는 무효화된다.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT cr FROM ChatRoom cr WHERE cr.status = 'WAITING' ORDER BY cr.createdAt ASC")
     List<ChatRoom> findWaitingRoomsOrderByCreatedAt();
     
+    /**
+     * 대기 중인 방에만 상담원을 배정한다 (compare-and-set). 다른 상담원이 먼저 배정했으면 0 을 반환한다.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ChatRoom cr SET cr.admin = :admin, cr.status = 'ACTIVE', cr.startedAt = :startedAt " +
+           "WHERE cr.roomId = :roomId AND cr.status = 'WAITING'")
+    int assignIfWaiting(String roomId, User admin, LocalDateTime startedAt);
+    
+    @Query("SELECT cr.roomId FROM ChatRoom cr WHERE cr.status = 'ACTIVE'")
+    List<String> findActiveRoomIds();
+
+    /**
+     * 대기 중인 방을 생성 순서대로 스트리밍한다. 호출하는 쪽의 트랜잭션 안에서 닫아야 한다.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.ezlevup.dentalchat.dto.WaitingRoomRow(cr.roomId, cr.consultationType, cr.createdAt) " +
+           "FROM ChatRoom cr WHERE cr.status = 'WAITING' ORDER BY cr.createdAt ASC, cr.id ASC")
+    Stream<WaitingRoomRow> streamWaitingRooms();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new com.ezlevup.dentalchat.dto.ActiveSessionRow(cr.roomId, cr.startedAt) " +
+           "FROM ChatRoom cr WHERE cr.status = 'ACTIVE' AND cr.startedAt IS NOT NULL")
+    Stream<ActiveSessionRow> streamActiveSessions();
+    
     @Query("SELECT cr FROM ChatRoom cr WHERE cr.admin = :admin AND cr.status = 'ACTIVE'")
     List<ChatRoom> findActiveRoomsByAdmin(User admin);
     
     @Query("SELECT cr FROM ChatRoom cr WHERE (cr.customer = :user OR cr.admin = :user) AND cr.status = 'ACTIVE'")
     List<ChatRoom> findActiveRoomsByUser(User user);
-}
\ No newline at end of file
+
+    /**
+     * endedBefore 이전에 종료됐고 아직 보관하지 않은, 메시지가 남아 있는 방. 오래 전에 종료된 방부터 돌려준다.
+     */
+    @Query("SELECT new com.ezlevup.dentalchat.dto.ArchiveCandidate(cr.id, cr.roomId) FROM ChatRoom cr " +
+           "WHERE cr.status = 'ENDED' AND cr.endedAt < :endedBefore " +
+           "AND NOT EXISTS (SELECT 1 FROM ArchivedRoom a WHERE a.chatRoomId = cr.id) " +
+           "AND EXISTS (SELECT 1 FROM Message m WHERE m.chatRoom = cr) " +
+           "ORDER BY cr.endedAt ASC")
+    List<ArchiveCandidate> findArchiveCandidates(LocalDateTime endedBefore, Limit limit);
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.AdminLoadRow(u.id, COUNT(cr), u.status) FROM User u " +
+           "LEFT JOIN ChatRoom cr ON cr.admin = u AND cr.status = 'ACTIVE' " +
+           "WHERE u.userType = 'ADMIN' " +
+           "GROUP BY u.id, u.status")
+    List<AdminLoadRow> countActiveRoomsByAdmin();
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.AdminLoadRow(u.id, COUNT(cr), u.status) FROM User u " +
+           "LEFT JOIN ChatRoom cr ON cr.admin = u AND cr.status = 'ACTIVE' " +
+           "WHERE u.userType = 'ADMIN' AND u.id = :adminId " +
+           "GROUP BY u.id, u.status")
+    Optional<AdminLoadRow> countActiveRoomsByAdmin(Long adminId);
+}
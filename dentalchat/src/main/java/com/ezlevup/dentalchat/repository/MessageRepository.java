@@ -1,12 +1,16 @@
 package com.ezlevup.dentalchat.repository;
 
+import com.ezlevup.dentalchat.dto.ChatHistoryRow;
+import com.ezlevup.dentalchat.dto.UnreadCountRow;
 import com.ezlevup.dentalchat.entity.ChatRoom;
 import com.ezlevup.dentalchat.entity.Message;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MessageRepository extends JpaRepository<Message, Long> {
@@ -15,7 +19,41 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     
     @Query("SELECT m FROM Message m WHERE m.chatRoom.roomId = :roomId ORDER BY m.sentAt ASC")
     List<Message> findByRoomIdOrderBySentAtAsc(String roomId);
+
+    /**
+     * H2 는 외부 조인이 있으면 조인 순서를 바꾸지 않으므로, roomId 로 찾은 채팅방부터 읽도록 ChatRoom 을 먼저 둔다.
+     * (Message 가 앞이면 messages 전체를 훑는다)
+     */
+    @Query("SELECT new com.ezlevup.dentalchat.dto.ChatHistoryRow(m.id, m.content, s.username, s.userType, m.messageType, m.sentAt, r.roomId) " +
+           "FROM ChatRoom r JOIN r.messages m LEFT JOIN m.sender s " +
+           "WHERE r.roomId = :roomId ORDER BY m.sentAt ASC, m.id ASC")
+    List<ChatHistoryRow> findHistoryByRoomId(String roomId);
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.ChatHistoryRow(m.id, m.content, s.username, s.userType, m.messageType, m.sentAt, r.roomId) " +
+           "FROM ChatRoom r JOIN r.messages m LEFT JOIN m.sender s " +
+           "WHERE r.roomId = :roomId AND m.id < :beforeMessageId ORDER BY m.id DESC")
+    List<ChatHistoryRow> findHistoryBefore(String roomId, Long beforeMessageId, Limit limit);
     
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.chatRoom = :chatRoom AND m.isRead = false AND m.sender != :currentUser")
-    Long countUnreadMessagesByChatRoomAndNotSender(ChatRoom chatRoom, com.ezlevup.dentalchat.entity.User currentUser);
-}
\ No newline at end of file
+    @Query("SELECT MAX(m.id) FROM Message m WHERE m.chatRoom.id = :chatRoomId")
+    Optional<Long> findLastMessageId(Long chatRoomId);
+
+    /**
+     * 읽음 위치 이후에 다른 참여자(또는 시스템)가 보낸 메시지 수.
+     */
+    @Query("SELECT COUNT(m) FROM Message m WHERE m.chatRoom.id = :chatRoomId AND m.id > :lastReadMessageId " +
+           "AND (m.sender IS NULL OR m.sender.id <> :userId)")
+    long countMessagesAfter(Long chatRoomId, Long userId, long lastReadMessageId);
+
+    /**
+     * 종료되지 않은 모든 채팅방의 고객/상담원별 안 읽은 메시지 수를 한 번에 집계한다.
+     * 상태 조건은 status 인덱스를 타도록 <> 'ENDED' 대신 IN 으로 쓴다.
+     */
+    @Query("SELECT new com.ezlevup.dentalchat.dto.UnreadCountRow(r.roomId, p.id, COUNT(m)) " +
+           "FROM ChatRoom r JOIN User p ON p = r.customer OR p = r.admin " +
+           "JOIN Message m ON m.chatRoom = r " +
+           "LEFT JOIN ReadWatermark w ON w.chatRoom = r AND w.user = p " +
+           "WHERE r.status IN ('WAITING', 'ACTIVE') AND m.id > COALESCE(w.lastReadMessageId, 0) " +
+           "AND (m.sender IS NULL OR m.sender <> p) " +
+           "GROUP BY r.roomId, p.id")
+    List<UnreadCountRow> countUnreadByParticipant();
+}
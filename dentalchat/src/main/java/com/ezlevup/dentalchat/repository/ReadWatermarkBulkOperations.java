@@ -0,0 +1,10 @@
+package com.ezlevup.dentalchat.repository;
+
+public interface ReadWatermarkBulkOperations {
+
+    /**
+     * 읽음 위치 행을 새로 만든다. 같은 (방, 사용자) 행이 이미 있으면 DataIntegrityViolationException 을 던지고,
+     * 트랜잭션은 이 INSERT 직전 상태로 되돌아가 계속 쓸 수 있다.
+     */
+    int insert(Long chatRoomId, Long userId, Long messageId);
+}
@@ -0,0 +1,43 @@
+package com.ezlevup.dentalchat.repository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * 유니크 제약 위반은 JPA 를 거치면 트랜잭션 전체가 rollback-only 가 되고, DB 에 따라서는 트랜잭션이 중단된다.
+ * 트랜잭션에 묶인 커넥션에서 세이브포인트를 잡고 JDBC 로 INSERT 해서, 실패하면 INSERT 만 되돌리고 트랜잭션은 이어 간다.
+ * 세이브포인트가 필요하므로 트랜잭션 안에서 호출해야 한다.
+ */
+class ReadWatermarkBulkOperationsImpl implements ReadWatermarkBulkOperations {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO read_watermarks (chat_room_id, user_id, last_read_message_id, updated_at) " +
+            "VALUES (?, ?, ?, CURRENT_TIMESTAMP)";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insert(Long chatRoomId, Long userId, Long messageId) {
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            Savepoint savepoint = connection.setSavepoint();
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL)) {
+                statement.setLong(1, chatRoomId);
+                statement.setLong(2, userId);
+                statement.setLong(3, messageId);
+                int count = statement.executeUpdate();
+                connection.releaseSavepoint(savepoint);
+                return count;
+            } catch (SQLException e) {
+                connection.rollback(savepoint);
+                throw e;
+            }
+        });
+        return inserted == null ? 0 : inserted;
+    }
+}
@@ -0,0 +1,44 @@
+package com.ezlevup.dentalchat.repository;
+
+import com.ezlevup.dentalchat.entity.ReadWatermark;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Repository
+public interface ReadWatermarkRepository extends JpaRepository<ReadWatermark, Long>, ReadWatermarkBulkOperations {
+
+    /**
+     * 읽음 위치를 전진시킨다. 없으면 만들고, 이미 더 뒤를 가리키고 있으면 그대로 둔다.
+     * DB 별 upsert 문법 대신 조건부 UPDATE 후 행이 없을 때만 INSERT 한다. 같은 사용자가 한 방을 동시에 처음 읽음 처리하면
+     * 늦은 쪽 INSERT 가 (chat_room_id, user_id) 유니크 제약으로 실패하므로, 먼저 만들어진 행에 조건부 UPDATE 를 다시 시도한다.
+     */
+    @Transactional
+    default int advance(Long chatRoomId, Long userId, Long messageId) {
+        int updated = advanceExisting(chatRoomId, userId, messageId);
+        if (updated > 0 || existsByChatRoomIdAndUserId(chatRoomId, userId)) {
+            return updated;
+        }
+        try {
+            return insert(chatRoomId, userId, messageId);
+        } catch (DataIntegrityViolationException e) {
+            return advanceExisting(chatRoomId, userId, messageId);
+        }
+    }
+
+    @Modifying
+    @Query("UPDATE ReadWatermark w SET w.lastReadMessageId = :messageId, w.updatedAt = CURRENT_TIMESTAMP " +
+           "WHERE w.chatRoom.id = :chatRoomId AND w.user.id = :userId AND w.lastReadMessageId < :messageId")
+    int advanceExisting(Long chatRoomId, Long userId, Long messageId);
+
+    @Query("SELECT COUNT(w) > 0 FROM ReadWatermark w WHERE w.chatRoom.id = :chatRoomId AND w.user.id = :userId")
+    boolean existsByChatRoomIdAndUserId(Long chatRoomId, Long userId);
+
+    @Query("SELECT w.lastReadMessageId FROM ReadWatermark w WHERE w.chatRoom.id = :chatRoomId AND w.user.id = :userId")
+    Optional<Long> findLastReadMessageId(Long chatRoomId, Long userId);
+}
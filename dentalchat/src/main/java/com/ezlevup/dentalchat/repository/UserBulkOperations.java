@@ -0,0 +1,11 @@
+package com.ezlevup.dentalchat.repository;
+
+import java.time.LocalDateTime;
+
+public interface UserBulkOperations {
+
+    /**
+     * 엔티티를 읽지 않고 UPDATE 한 문장으로 마지막 접속 시각만 바꾼다. 바뀐 행 수를 반환한다.
+     */
+    int updateLastSeen(String username, LocalDateTime lastSeen);
+}
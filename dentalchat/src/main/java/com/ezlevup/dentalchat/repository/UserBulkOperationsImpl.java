@@ -0,0 +1,59 @@
+package com.ezlevup.dentalchat.repository;
+
+import com.ezlevup.dentalchat.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * JPQL 벌크 UPDATE 는 users 2차 캐시 영역과 조회 캐시를 통째로 비우므로 하트비트마다 캐시가 식는다.
+ * JDBC 로 바로 갱신하고 바뀐 사용자 한 명의 캐시 항목만 비워서, 조회 캐시와 다른 사용자 캐시는 그대로 둔다.
+ */
+class UserBulkOperationsImpl implements UserBulkOperations {
+
+    private static final String FIND_ID_SQL = "SELECT id FROM users WHERE username = ?";
+    private static final String UPDATE_LAST_SEEN_SQL = "UPDATE users SET last_seen = ? WHERE id = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Override
+    public int updateLastSeen(String username, LocalDateTime lastSeen) {
+        List<Long> ids = jdbcTemplate.queryForList(FIND_ID_SQL, Long.class, username);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Long id = ids.get(0);
+        int updated = jdbcTemplate.update(UPDATE_LAST_SEEN_SQL, Timestamp.valueOf(lastSeen), id);
+        evictFromSecondLevelCache(id);
+        return updated;
+    }
+
+    /**
+     * 커밋 전에 다른 트랜잭션이 이전 lastSeen 을 다시 캐시했을 수 있으므로 트랜잭션이 끝난 뒤 한 번 더 비운다.
+     */
+    private void evictFromSecondLevelCache(Long id) {
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        Runnable eviction = () -> cache.evictEntityData(User.class, id);
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.run();
+                }
+            });
+        }
+    }
+}
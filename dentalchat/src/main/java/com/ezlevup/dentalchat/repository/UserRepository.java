@@ -1,24 +1,45 @@
 package com.ezlevup.dentalchat.repository;
 
+import com.ezlevup.dentalchat.dto.AdminSkillRow;
+import com.ezlevup.dentalchat.dto.UserIdentity;
 import com.ezlevup.dentalchat.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserBulkOperations {
     
     Optional<User> findByUsername(String username);
-    
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.UserIdentity(u.id, u.username, u.userType) FROM User u " +
+           "WHERE u.username = :username")
+    Optional<UserIdentity> findIdentityByUsername(String username);
+
     List<User> findByUserType(User.UserType userType);
     
     List<User> findByStatus(User.UserStatus status);
     
+    /**
+     * 조회 캐시 대상. users 테이블이 바뀌면(고객 생성 포함) 캐시된 결과는 무효화된다.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     @Query("SELECT u FROM User u WHERE u.userType = 'ADMIN' AND u.status = 'ONLINE'")
     List<User> findAvailableAdmins();
     
     boolean existsByUsername(String username);
+    
+    @Query("SELECT new com.ezlevup.dentalchat.dto.AdminSkillRow(u.id, s) FROM User u JOIN u.skills s " +
+           "WHERE u.userType = 'ADMIN'")
+    List<AdminSkillRow> findAdminSkills();
+
+    @Query("SELECT new com.ezlevup.dentalchat.dto.AdminSkillRow(u.id, s) FROM User u JOIN u.skills s " +
+           "WHERE u.userType = 'ADMIN' AND u.id = :adminId")
+    List<AdminSkillRow> findAdminSkills(Long adminId);
 }
\ No newline at end of file
@@ -0,0 +1,251 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.AdminLoadRow;
+import com.ezlevup.dentalchat.dto.AdminSkillRow;
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.ezlevup.dentalchat.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 상담원별 진행 중인 상담 수 인덱스.
+ * 온라인 상담원을 (상담 수, id) 순으로 정렬된 TreeSet 에 두어 가장 한가한 상담원을 O(log n) 에 고른다.
+ * 오프라인 상담원도 상담 수와 담당 분야는 계속 들고 있어서 다시 온라인이 되면 그대로 정렬에 들어간다.
+ * 인덱스에 없는 상담원(다른 노드에서 만들어진 상담원 등)은 처음 보일 때 DB 에서 상담 수와 담당 분야를 읽는다.
+ * 상담 분야별로도 같은 순서의 TreeSet 을 두어, 분야를 맡을 수 있는 가장 한가한 상담원도 DB 조회 없이 고른다.
+ */
+@Component
+public class AdminLoadIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminLoadIndex.class);
+
+    private static final Comparator<AdminLoad> LEAST_LOADED_FIRST =
+            Comparator.comparingLong(AdminLoad::activeRooms).thenComparing(AdminLoad::adminId);
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<Long, AdminLoad> loads = new HashMap<>();
+
+    private final TreeSet<AdminLoad> onlineByLoad = new TreeSet<>(LEAST_LOADED_FIRST);
+
+    private final Map<ConsultationType, TreeSet<AdminLoad>> onlineBySkill = new EnumMap<>(ConsultationType.class);
+
+    {
+        for (ConsultationType type : ConsultationType.values()) {
+            onlineBySkill.put(type, new TreeSet<>(LEAST_LOADED_FIRST));
+        }
+    }
+
+    // skills 가 비어 있으면 모든 분야를 맡는다
+    private record AdminLoad(Long adminId, long activeRooms, boolean online, Set<ConsultationType> skills) {
+
+        private AdminLoad withActiveRooms(long activeRooms) {
+            return new AdminLoad(adminId, activeRooms, online, skills);
+        }
+
+        private boolean handles(ConsultationType type) {
+            return skills.isEmpty() || skills.contains(type);
+        }
+    }
+
+    public Optional<Long> findLeastLoaded() {
+        lock.lock();
+        try {
+            return onlineByLoad.isEmpty() ? Optional.empty() : Optional.of(onlineByLoad.first().adminId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 해당 분야를 맡을 수 있는 온라인 상담원 중 가장 한가한 상담원. 그 상담원도 maxActiveRooms 이상이면 비어 있다.
+     */
+    public Optional<Long> findLeastLoaded(ConsultationType type, long maxActiveRooms) {
+        lock.lock();
+        try {
+            TreeSet<AdminLoad> candidates = onlineBySkill.get(type);
+            if (candidates.isEmpty() || candidates.first().activeRooms() >= maxActiveRooms) {
+                return Optional.empty();
+            }
+            return Optional.of(candidates.first().adminId());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 해당 분야를 맡을 수 있는 온라인 상담원 수.
+     */
+    public int countOnline(ConsultationType type) {
+        lock.lock();
+        try {
+            return onlineBySkill.get(type).size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getActiveRooms(Long adminId) {
+        lock.lock();
+        try {
+            AdminLoad load = loads.get(adminId);
+            return load != null ? load.activeRooms() : 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onRoomAssigned(Long adminId) {
+        lock.lock();
+        try {
+            AdminLoad current = loads.get(adminId);
+            if (current != null) {
+                replace(current, current.withActiveRooms(current.activeRooms() + 1));
+            } else {
+                // 배정은 커밋된 뒤에 반영되므로 DB 에서 읽은 상담 수에 이 배정이 이미 들어 있다
+                replace(null, findInDatabase(adminId).orElseGet(() -> new AdminLoad(adminId, 1, true, Set.of())));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onRoomEnded(Long adminId) {
+        lock.lock();
+        try {
+            AdminLoad current = loads.get(adminId);
+            if (current != null && current.activeRooms() > 0) {
+                replace(current, current.withActiveRooms(current.activeRooms() - 1));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void updateStatus(Long adminId, boolean online) {
+        lock.lock();
+        try {
+            AdminLoad current = loads.get(adminId);
+            AdminLoad known = current != null ? current : findInDatabase(adminId).orElse(null);
+            replace(current, new AdminLoad(adminId, known != null ? known.activeRooms() : 0, online,
+                    known != null ? known.skills() : Set.of()));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void updateSkills(Long adminId, Set<ConsultationType> skills) {
+        lock.lock();
+        try {
+            AdminLoad current = loads.get(adminId);
+            AdminLoad known = current != null ? current : findInDatabase(adminId).orElse(null);
+            replace(current, new AdminLoad(adminId, known != null ? known.activeRooms() : 0,
+                    known != null && known.online(), copyOf(skills)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 모든 상담원의 상담 수, 접속 상태, 담당 분야를 집계 쿼리로 다시 읽어 인덱스를 교체한다. 기동 시와 명시적으로 요청할 때만 호출한다.
+     * 읽기부터 교체까지 잠금을 잡아, 읽은 뒤 교체하기 전에 들어온 배정/종료가 덮어써져 사라지지 않게 한다.
+     * 기동 시 자동 배정보다 먼저 실행되어야 한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        int online = 0;
+        List<AdminLoadRow> rows;
+        lock.lock();
+        try {
+            rows = chatRoomRepository.countActiveRoomsByAdmin();
+            Map<Long, Set<ConsultationType>> skills = groupSkills(userRepository.findAdminSkills());
+
+            loads.clear();
+            onlineByLoad.clear();
+            onlineBySkill.values().forEach(TreeSet::clear);
+            for (AdminLoadRow row : rows) {
+                AdminLoad load = toAdminLoad(row, skills);
+                replace(null, load);
+                if (load.online()) {
+                    online++;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        logger.info("상담원 부하 인덱스 재구성 완료: 상담원 {} 명, 온라인 {} 명", rows.size(), online);
+    }
+
+    private Optional<AdminLoad> findInDatabase(Long adminId) {
+        if (chatRoomRepository == null) {
+            // 저장소 없이 만든 인덱스 (시뮬레이션, 벤치마크)
+            return Optional.empty();
+        }
+        return chatRoomRepository.countActiveRoomsByAdmin(adminId)
+                .map(row -> toAdminLoad(row, groupSkills(userRepository.findAdminSkills(adminId))));
+    }
+
+    private static AdminLoad toAdminLoad(AdminLoadRow row, Map<Long, Set<ConsultationType>> skills) {
+        return new AdminLoad(row.adminId(), row.activeRooms(), row.status() == User.UserStatus.ONLINE,
+                copyOf(skills.getOrDefault(row.adminId(), Set.of())));
+    }
+
+    private static Map<Long, Set<ConsultationType>> groupSkills(List<AdminSkillRow> rows) {
+        Map<Long, Set<ConsultationType>> skills = new HashMap<>();
+        for (AdminSkillRow row : rows) {
+            skills.computeIfAbsent(row.adminId(), id -> EnumSet.noneOf(ConsultationType.class)).add(row.consultationType());
+        }
+        return skills;
+    }
+
+    private void replace(AdminLoad current, AdminLoad updated) {
+        if (current != null && current.online()) {
+            onlineByLoad.remove(current);
+            for (ConsultationType type : ConsultationType.values()) {
+                if (current.handles(type)) {
+                    onlineBySkill.get(type).remove(current);
+                }
+            }
+        }
+        loads.put(updated.adminId(), updated);
+        if (updated.online()) {
+            onlineByLoad.add(updated);
+            for (ConsultationType type : ConsultationType.values()) {
+                if (updated.handles(type)) {
+                    onlineBySkill.get(type).add(updated);
+                }
+            }
+        }
+    }
+
+    private static Set<ConsultationType> copyOf(Set<ConsultationType> skills) {
+        return skills.isEmpty() ? Set.of() : Collections.unmodifiableSet(EnumSet.copyOf(skills));
+    }
+}
@@ -0,0 +1,93 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.event.AdminStatusChangedEvent;
+import com.ezlevup.dentalchat.event.ChatRoomCreatedEvent;
+import com.ezlevup.dentalchat.event.ChatRoomEndedEvent;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 대기열 자동 배정기.
+ * 고객 대기 등록, 상담 종료(상담원 여유 발생), 상담원 온라인 전환 이벤트가 커밋되면
+ * 전용 스레드 하나에서 대기열 맨 앞부터 상담원을 붙인다. 배정은 이 스레드에서만 순서대로 일어나므로
+ * 대기열 순서(FIFO)가 지켜지고, 이벤트가 몰려도 실행 요청은 한 번으로 합쳐진다.
+ */
+@Component
+@ConditionalOnProperty(name = "dental-chat.dispatch.auto.enabled", havingValue = "true")
+public class AutoDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoDispatcher.class);
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("auto-dispatcher").daemon(true).factory());
+
+    private final AtomicBoolean dispatchRequested = new AtomicBoolean();
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomCreated(ChatRoomCreatedEvent event) {
+        requestDispatch();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomEnded(ChatRoomEndedEvent event) {
+        requestDispatch();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAdminStatusChanged(AdminStatusChangedEvent event) {
+        if (event.online()) {
+            requestDispatch();
+        }
+    }
+
+    /**
+     * 재시작 전에 쌓여 있던 대기 고객을 처리한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        requestDispatch();
+    }
+
+    public void requestDispatch() {
+        if (dispatchRequested.compareAndSet(false, true)) {
+            executor.execute(this::dispatch);
+        }
+    }
+
+    private void dispatch() {
+        // 실행 중에 들어온 이벤트가 다음 실행을 예약할 수 있도록 먼저 내린다
+        dispatchRequested.set(false);
+        int assigned = 0;
+        try {
+            while (chatRoomService.dispatchNextWaitingCustomer()) {
+                assigned++;
+            }
+        } catch (Exception e) {
+            logger.error("자동 배정 중 오류 발생", e);
+        }
+        if (assigned > 0) {
+            logger.info("자동 배정 완료: {} 건, 남은 대기열 크기={}", assigned, chatRoomService.getWaitingQueueSize());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
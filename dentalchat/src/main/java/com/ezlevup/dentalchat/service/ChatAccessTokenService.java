@@ -0,0 +1,93 @@
+package com.ezlevup.dentalchat.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Optional;
+
+/**
+ * 로그인 세션이 없는 사용자(고객)가 STOMP CONNECT 때 보내는 채팅 토큰을 발급하고 확인한다.
+ * 토큰은 "사용자명.만료시각(epoch 초).서명" 형식이고 서명은 서버 비밀 키로 만든 HMAC-SHA256 이라 클라이언트가 사용자명을 바꿀 수 없다.
+ * 키는 설정의 secret 으로만 정하고 없거나 32바이트보다 짧으면 기동하지 않는다. 재시작해도 토큰이 유지되고,
+ * 여러 노드가 같은 토큰을 받으려면 모든 노드에 같은 값을 설정한다.
+ */
+@Component
+public class ChatAccessTokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private static final int MIN_SECRET_BYTES = 32;
+
+    @Value("${dental-chat.security.chat-token.secret:}")
+    private String secret;
+
+    @Value("${dental-chat.security.chat-token.ttl:43200000}")
+    private long ttlMillis;
+
+    private SecretKeySpec key;
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes = secret == null ? new byte[0] : secret.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length < MIN_SECRET_BYTES) {
+            throw new IllegalStateException("dental-chat.security.chat-token.secret 은 " + MIN_SECRET_BYTES
+                    + "바이트 이상이어야 합니다.");
+        }
+        key = new SecretKeySpec(keyBytes, ALGORITHM);
+    }
+
+    public String issue(String username) {
+        String payload = ENCODER.encodeToString(username.getBytes(StandardCharsets.UTF_8)) + "."
+                + (System.currentTimeMillis() + ttlMillis) / 1000;
+        return payload + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * 서명이 맞고 만료되지 않은 토큰이면 사용자명을 돌려준다.
+     */
+    public Optional<String> verify(String token) {
+        if (token == null) {
+            return Optional.empty();
+        }
+        int signatureStart = token.lastIndexOf('.');
+        int expiryStart = token.lastIndexOf('.', signatureStart - 1);
+        if (expiryStart <= 0) {
+            return Optional.empty();
+        }
+        try {
+            String payload = token.substring(0, signatureStart);
+            byte[] signature = DECODER.decode(token.substring(signatureStart + 1));
+            if (!MessageDigest.isEqual(sign(payload), signature)) {
+                return Optional.empty();
+            }
+            long expiresAt = Long.parseLong(token.substring(expiryStart + 1, signatureStart));
+            if (expiresAt * 1000 < System.currentTimeMillis()) {
+                return Optional.empty();
+            }
+            return Optional.of(new String(DECODER.decode(token.substring(0, expiryStart)), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    private byte[] sign(String payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("채팅 토큰 서명 실패", e);
+        }
+    }
+}
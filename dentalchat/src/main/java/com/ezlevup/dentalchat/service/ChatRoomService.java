@@ -1,30 +1,53 @@
 package com.ezlevup.dentalchat.service;
 
+import com.ezlevup.dentalchat.dto.ActiveSessionRow;
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
+import com.ezlevup.dentalchat.dto.RoomIdentity;
+import com.ezlevup.dentalchat.dto.UserIdentity;
+import com.ezlevup.dentalchat.dto.WaitingRoomRow;
 import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.ConsultationType;
 import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.event.ChatRoomCreatedEvent;
+import com.ezlevup.dentalchat.event.ChatRoomEndedEvent;
 import com.ezlevup.dentalchat.repository.ChatRoomRepository;
 import com.ezlevup.dentalchat.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.OptionalInt;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class ChatRoomService {
 
     private static final Logger logger = LoggerFactory.getLogger(ChatRoomService.class);
-    private static final int SESSION_TIMEOUT_MINUTES = 30;
+    private static final String SESSION_EXPIRED_MESSAGE = "상담 시간이 만료되어 상담이 종료되었습니다.";
 
     @Autowired
     private ChatRoomRepository chatRoomRepository;
@@ -32,140 +55,314 @@ public class ChatRoomService {
     @Autowired
     private UserRepository userRepository;
 
-    private final ConcurrentLinkedQueue<String> waitingCustomers = new ConcurrentLinkedQueue<>();
-    
-    private final ConcurrentHashMap<String, LocalDateTime> sessionStartTimes = new ConcurrentHashMap<>();
-    
-    private final ReentrantLock queueLock = new ReentrantLock();
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private AdminLoadIndex adminLoadIndex;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private SessionExpiryTracker sessionExpiryTracker;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ConsultationRouter consultationRouter;
+
+    @Autowired
+    private WaitTimeEstimator waitTimeEstimator;
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Value("${dental-chat.dispatch.max-rooms-per-admin:3}")
+    private int maxRoomsPerAdmin = 3;
 
     public ChatRoom createChatRoom(User customer, String customerNotes) {
-        String roomId = generateUniqueRoomId();
+        return createChatRoom(customer, customerNotes, ConsultationType.GENERAL);
+    }
+
+    public ChatRoom createChatRoom(User customer, String customerNotes, ConsultationType consultationType) {
+        String roomId = idGenerator.nextKey("room_");
         
         ChatRoom chatRoom = new ChatRoom();
         chatRoom.setRoomId(roomId);
         chatRoom.setCustomer(customer);
         chatRoom.setStatus(ChatRoom.RoomStatus.WAITING);
         chatRoom.setCustomerNotes(customerNotes);
+        chatRoom.setConsultationType(consultationType);
         
         ChatRoom savedRoom = chatRoomRepository.save(chatRoom);
+        identityCache.evictRoom(roomId);
+        roomMembershipIndex.onRoomCreated(roomId, customer.getUsername());
         
-        addToWaitingQueue(roomId);
-        logger.info("새 채팅방 생성: roomId={}, customer={}", roomId, customer.getUsername());
+        addToWaitingQueue(roomId, consultationType);
+        // 롤백된 방이 대기열 맨 앞에 남으면 자동 배정이 그 방에서 계속 멈추므로 되돌린다
+        afterRollback(() -> {
+            removeFromWaitingQueue(roomId);
+            roomMembershipIndex.onRoomEnded(roomId);
+        });
+        eventPublisher.publishEvent(new ChatRoomCreatedEvent(roomId));
+        logger.info("새 채팅방 생성: roomId={}, customer={}, 상담분야={}", roomId, customer.getUsername(), consultationType);
         
         return savedRoom;
     }
 
-    private String generateUniqueRoomId() {
-        String roomId;
-        do {
-            roomId = "room_" + UUID.randomUUID().toString().substring(0, 8);
-        } while (chatRoomRepository.findByRoomId(roomId).isPresent());
-        
-        return roomId;
+    public void addToWaitingQueue(String roomId) {
+        addToWaitingQueue(roomId, ConsultationType.GENERAL);
     }
 
-    public void addToWaitingQueue(String roomId) {
-        queueLock.lock();
-        try {
-            if (!waitingCustomers.contains(roomId)) {
-                waitingCustomers.offer(roomId);
-                logger.info("고객 대기열에 추가: roomId={}, 대기열 크기={}", roomId, waitingCustomers.size());
-            }
-        } finally {
-            queueLock.unlock();
+    public void addToWaitingQueue(String roomId, ConsultationType consultationType) {
+        if (consultationRouter.offer(roomId, consultationType, System.currentTimeMillis())) {
+            logger.info("고객 대기열에 추가: roomId={}, 상담분야={}, 대기열 크기={}",
+                    roomId, consultationType, consultationRouter.size());
         }
     }
 
     public String getNextWaitingCustomer() {
-        queueLock.lock();
-        try {
-            String roomId = waitingCustomers.poll();
-            if (roomId != null) {
-                logger.info("대기열에서 다음 고객 선택: roomId={}, 남은 대기열 크기={}", roomId, waitingCustomers.size());
-            }
-            return roomId;
-        } finally {
-            queueLock.unlock();
+        String roomId = consultationRouter.poll(System.currentTimeMillis());
+        if (roomId != null) {
+            logger.info("대기열에서 다음 고객 선택: roomId={}, 남은 대기열 크기={}", roomId, consultationRouter.size());
         }
+        return roomId;
     }
 
     public int getWaitingQueueSize() {
-        return waitingCustomers.size();
+        return consultationRouter.size();
+    }
+
+    public int getWaitingQueueSize(ConsultationType consultationType) {
+        return consultationRouter.size(consultationType);
+    }
+
+    /**
+     * 같은 상담 분야 대기열 안에서 1 부터 시작하는 대기 순번. 대기 중이 아니면 비어 있다.
+     */
+    public OptionalInt getWaitingPosition(String roomId) {
+        return consultationRouter.positionOf(roomId);
+    }
+
+    public Optional<ConsultationType> getWaitingConsultationType(String roomId) {
+        return consultationRouter.typeOf(roomId);
     }
 
     public void removeFromWaitingQueue(String roomId) {
-        queueLock.lock();
-        try {
-            boolean removed = waitingCustomers.remove(roomId);
-            if (removed) {
-                logger.info("대기열에서 제거: roomId={}", roomId);
-            }
-        } finally {
-            queueLock.unlock();
+        if (consultationRouter.remove(roomId)) {
+            logger.info("대기열에서 제거: roomId={}", roomId);
         }
     }
 
+    /**
+     * 대기 중인 방에 상담원을 배정한다.
+     * 상태 확인과 변경을 조건부 UPDATE 한 문장으로 처리하므로, 여러 상담원이나 자동 배정이 같은 방을 동시에 잡아도
+     * 한 명만 성공하고 나머지는 IllegalStateException 을 받는다.
+     * 참여자 인덱스, 세션 타이머, 상담원 부하는 커밋된 뒤에 반영한다. 대기열에서는 같은 방을 다시 고르지 않도록 바로 빼고,
+     * 롤백되면 생성 시각 기준 원래 자리로 되돌린다.
+     */
     public ChatRoom assignAdmin(String roomId, User admin) {
+        // DB 에 저장되는 정밀도로 맞춰 두어야 아래에서 엔티티에 같은 값을 넣어도 추가 UPDATE 가 생기지 않는다
+        LocalDateTime startTime = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        int updated = chatRoomRepository.assignIfWaiting(roomId, admin, startTime);
+        identityCache.evictRoom(roomId);
+
         ChatRoom chatRoom = chatRoomRepository.findByRoomId(roomId)
                 .orElseThrow(() -> new IllegalArgumentException("채팅방을 찾을 수 없습니다."));
-        
-        if (chatRoom.getStatus() != ChatRoom.RoomStatus.WAITING) {
+
+        if (updated == 0 && chatRoom.getStatus() == ChatRoom.RoomStatus.WAITING) {
+            // 방을 만든 트랜잭션이 위 UPDATE 와 조회 사이에 커밋되었다
+            updated = chatRoomRepository.assignIfWaiting(roomId, admin, startTime);
+        }
+        if (updated == 0) {
             throw new IllegalStateException("대기 중인 채팅방만 상담원을 배정할 수 있습니다.");
         }
         
+        // 영속성 컨텍스트에 이전 상태로 남아 있을 수 있는 엔티티를 UPDATE 결과와 맞춘다
         chatRoom.setAdmin(admin);
         chatRoom.setStatus(ChatRoom.RoomStatus.ACTIVE);
-        LocalDateTime startTime = LocalDateTime.now();
         chatRoom.setStartedAt(startTime);
         
+        if (consultationRouter.contains(roomId) && chatRoom.getCreatedAt() != null) {
+            ConsultationType consultationType = chatRoom.getConsultationType();
+            long waitingSince = toEpochMillis(chatRoom.getCreatedAt());
+            afterRollback(() -> consultationRouter.offer(roomId, consultationType, waitingSince));
+        }
         removeFromWaitingQueue(roomId);
-        startSessionTimer(roomId, startTime);
-        
-        ChatRoom savedRoom = chatRoomRepository.save(chatRoom);
-        logger.info("상담원 배정 완료: roomId={}, admin={}", roomId, admin.getUsername());
+
+        String adminUsername = admin.getUsername();
+        Long adminId = admin.getId();
+        LocalDateTime createdAt = chatRoom.getCreatedAt();
+        afterCommit(() -> {
+            roomMembershipIndex.onAdminAssigned(roomId, adminUsername);
+            startSessionTimer(roomId, startTime);
+            adminLoadIndex.onRoomAssigned(adminId);
+            if (createdAt != null) {
+                Timer.builder("dentalchat.dispatch.queue.wait")
+                        .description("채팅방 생성부터 상담원 배정까지 대기 시간")
+                        .publishPercentileHistogram()
+                        .register(meterRegistry)
+                        .record(Duration.between(createdAt, startTime));
+            }
+        });
+        logger.info("상담원 배정 완료: roomId={}, adminId={}", roomId, admin.getId());
         
-        return savedRoom;
+        return chatRoom;
     }
 
     private void startSessionTimer(String roomId, LocalDateTime startTime) {
-        sessionStartTimes.put(roomId, startTime);
+        sessionExpiryTracker.start(roomId, startTime);
         logger.info("상담 세션 타이머 시작: roomId={}, startTime={}", roomId, startTime);
     }
 
+    /**
+     * 채팅방의 상담 분야를 맡을 수 있는 가장 한가한 상담원을 배정한다.
+     */
     public ChatRoom findAvailableAdminAndAssign(String roomId) {
-        List<User> availableAdmins = userRepository.findAvailableAdmins();
+        ConsultationType consultationType = consultationRouter.typeOf(roomId)
+                .orElseGet(() -> chatRoomRepository.findByRoomId(roomId)
+                        .map(ChatRoom::getConsultationType)
+                        .orElseThrow(() -> new IllegalArgumentException("채팅방을 찾을 수 없습니다.")));
+        Optional<Long> adminId = adminLoadIndex.findLeastLoaded(consultationType, Long.MAX_VALUE);
         
-        if (availableAdmins.isEmpty()) {
-            logger.warn("사용 가능한 상담원이 없습니다. roomId={}", roomId);
+        if (adminId.isEmpty()) {
+            logger.warn("사용 가능한 상담원이 없습니다. roomId={}, 상담분야={}", roomId, consultationType);
             throw new IllegalStateException("현재 사용 가능한 상담원이 없습니다.");
         }
         
-        User selectedAdmin = availableAdmins.stream()
-                .min((admin1, admin2) -> {
-                    int activeRooms1 = chatRoomRepository.findActiveRoomsByAdmin(admin1).size();
-                    int activeRooms2 = chatRoomRepository.findActiveRoomsByAdmin(admin2).size();
-                    return Integer.compare(activeRooms1, activeRooms2);
-                })
-                .orElseThrow(() -> new IllegalStateException("상담원을 선택할 수 없습니다."));
-        
-        logger.info("자동 상담원 매칭: roomId={}, selectedAdmin={}", roomId, selectedAdmin.getUsername());
-        return assignAdmin(roomId, selectedAdmin);
+        logger.info("자동 상담원 매칭: roomId={}, adminId={}", roomId, adminId.get());
+        return assignAdmin(roomId, userRepository.getReferenceById(adminId.get()));
     }
 
+    /**
+     * 분야별 대기열과 상담원 부하 인덱스만 보고 다음 배정을 정해 상담 수가 max-rooms-per-admin 미만인 상담원에게 배정한다.
+     * 더 배정할 수 없으면 false 를 반환한다. 배정하지 못한 고객은 대기열의 자기 자리에 그대로 남는다.
+     */
+    public boolean dispatchNextWaitingCustomer() {
+        Optional<ConsultationRouter.Route> route =
+                consultationRouter.nextRoute(adminLoadIndex, maxRoomsPerAdmin, System.currentTimeMillis());
+        if (route.isEmpty()) {
+            return false;
+        }
+
+        String roomId = route.get().roomId();
+        try {
+            assignAdmin(roomId, userRepository.getReferenceById(route.get().adminId()));
+        } catch (IllegalStateException e) {
+            // 다른 상담원이 먼저 배정했거나 이미 종료된 방
+            logger.debug("자동 배정 대상에서 제외: roomId={}, reason={}", roomId, e.getMessage());
+            removeFromWaitingQueue(roomId);
+        } catch (IllegalArgumentException e) {
+            // 방을 만든 트랜잭션이 아직 커밋되지 않았다. 커밋 후 ChatRoomCreatedEvent 로 다시 배정을 시도한다.
+            logger.debug("아직 보이지 않는 방은 대기열에 둔다: roomId={}", roomId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 지금 가장 먼저 배정되어야 할 고객을 배정한다. 배정에 실패하면 고객은 순서를 잃지 않고 대기열에 남는다.
+     */
     public ChatRoom processNextWaitingCustomer() {
-        String nextRoomId = getNextWaitingCustomer();
-        if (nextRoomId == null) {
+        if (consultationRouter.size() == 0) {
             logger.info("대기 중인 고객이 없습니다.");
             return null;
         }
-        
-        try {
-            return findAvailableAdminAndAssign(nextRoomId);
-        } catch (IllegalStateException e) {
-            addToWaitingQueue(nextRoomId);
-            logger.warn("상담원 배정 실패로 다시 대기열에 추가: roomId={}", nextRoomId);
-            throw e;
+
+        Optional<ConsultationRouter.Route> route =
+                consultationRouter.nextRoute(adminLoadIndex, Long.MAX_VALUE, System.currentTimeMillis());
+        if (route.isEmpty()) {
+            logger.warn("상담원 배정 실패로 대기열에서 계속 대기: 대기열 크기={}", consultationRouter.size());
+            throw new IllegalStateException("현재 사용 가능한 상담원이 없습니다.");
+        }
+
+        logger.info("자동 상담원 매칭: roomId={}, adminId={}", route.get().roomId(), route.get().adminId());
+        return assignAdmin(route.get().roomId(), userRepository.getReferenceById(route.get().adminId()));
+    }
+
+    /**
+     * 재시작 전 메모리에만 있던 대기열과 세션 만료 일정을 DB 에서 다시 만든다.
+     * 대기열은 createdAt 순서로 넣고 대기 시작 시각도 createdAt 으로 맞춰 분야 간 aging 이 이어지게 한다.
+     * 필요한 컬럼만 스트리밍으로 읽으므로 채팅방이 많아도 엔티티를 만들거나 결과 전체를 List 로 들고 있지 않는다.
+     * 자동 배정보다 먼저 실행되어야 한다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional(readOnly = true)
+    public void restoreInMemoryState() {
+        long startNanos = System.nanoTime();
+        int waiting = 0;
+        try (Stream<WaitingRoomRow> rows = chatRoomRepository.streamWaitingRooms()) {
+            for (Iterator<WaitingRoomRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                WaitingRoomRow row = iterator.next();
+                if (consultationRouter.offer(row.roomId(), row.consultationType(), toEpochMillis(row.createdAt()))) {
+                    waiting++;
+                }
+            }
+        }
+        long waitingNanos = System.nanoTime() - startNanos;
+
+        int active = 0;
+        try (Stream<ActiveSessionRow> rows = chatRoomRepository.streamActiveSessions()) {
+            for (Iterator<ActiveSessionRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                ActiveSessionRow row = iterator.next();
+                sessionExpiryTracker.restore(row.roomId(), row.startedAt());
+                active++;
+            }
+        }
+        long sessionNanos = System.nanoTime() - startNanos - waitingNanos;
+
+        recordRebuildTime("waiting-queue", waitingNanos);
+        recordRebuildTime("session-expiry", sessionNanos);
+        logger.info("메모리 상태 복원 완료: 대기 고객 {} 명 ({}ms), 진행 중 세션 {} 건 ({}ms)",
+                waiting, Duration.ofNanos(waitingNanos).toMillis(), active, Duration.ofNanos(sessionNanos).toMillis());
+    }
+
+    private void recordRebuildTime(String state, long nanos) {
+        Timer.builder("dentalchat.startup.rebuild")
+                .description("기동 시 DB 에서 메모리 상태를 다시 만드는 데 걸린 시간")
+                .tag("state", state)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(nanos));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    action.run();
+                }
+            }
+        });
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     @Transactional(readOnly = true)
@@ -173,6 +370,16 @@ public class ChatRoomService {
         return chatRoomRepository.findByRoomId(roomId);
     }
 
+    /**
+     * 대기 중이거나 상담 중인 채팅방인지 확인한다.
+     */
+    @Transactional(readOnly = true)
+    public boolean isOpen(String roomId) {
+        return chatRoomRepository.findByRoomId(roomId)
+                .filter(chatRoom -> chatRoom.getStatus() != ChatRoom.RoomStatus.ENDED)
+                .isPresent();
+    }
+
     @Transactional(readOnly = true)
     public List<ChatRoom> findWaitingRooms() {
         return chatRoomRepository.findWaitingRoomsOrderByCreatedAt();
@@ -199,66 +406,132 @@ public class ChatRoomService {
         chatRoom.setStatus(ChatRoom.RoomStatus.ENDED);
         chatRoom.setEndedAt(LocalDateTime.now());
         
-        endSessionTimer(roomId);
-        
         ChatRoom savedRoom = chatRoomRepository.save(chatRoom);
+        identityCache.evictRoom(roomId);
+        Long adminId = chatRoom.getAdmin() != null ? chatRoom.getAdmin().getId() : null;
+        // 종료 이벤트의 커밋 후 리스너(자동 배정)보다 먼저 등록해서 부하가 줄어든 뒤 배정하게 한다
+        afterCommit(() -> {
+            endSessionTimer(roomId, null);
+            roomMembershipIndex.onRoomEnded(roomId);
+            if (adminId != null) {
+                adminLoadIndex.onRoomEnded(adminId);
+            }
+        });
+        eventPublisher.publishEvent(new ChatRoomEndedEvent(roomId));
         logger.info("채팅방 종료: roomId={}", roomId);
         
         return savedRoom;
     }
 
-    private void endSessionTimer(String roomId) {
-        LocalDateTime startTime = sessionStartTimes.remove(roomId);
-        if (startTime != null) {
-            logger.info("상담 세션 타이머 종료: roomId={}, 상담시간={}분", 
-                    roomId, java.time.Duration.between(startTime, LocalDateTime.now()).toMinutes());
+    /**
+     * 여러 채팅방을 행 잠금 후 한 번의 UPDATE 로 종료하고, 실제로 종료된 방에만 종료 안내 메시지를 보낸다.
+     * 이미 종료되었거나 활성 상태가 아닌 방은 건너뛴다. 메모리 상태 정리와 안내 메시지는 커밋된 뒤에 한다.
+     */
+    public List<EndedChatRoom> endChatRooms(Collection<String> roomIds, String closingMessage) {
+        return endChatRooms(roomIds, closingMessage, Map.of());
+    }
+
+    /**
+     * @param expiredStartTimes 타이머에서 이미 빠진 만료 세션의 시작 시각. 상담 시간 기록에 쓴다.
+     */
+    private List<EndedChatRoom> endChatRooms(Collection<String> roomIds, String closingMessage,
+                                             Map<String, LocalDateTime> expiredStartTimes) {
+        if (roomIds.isEmpty()) {
+            return List.of();
         }
+
+        List<EndedChatRoom> endedRooms = chatRoomRepository.endActiveRooms(roomIds, LocalDateTime.now());
+        for (EndedChatRoom endedRoom : endedRooms) {
+            identityCache.evictRoom(endedRoom.roomId());
+        }
+
+        // 종료 이벤트의 커밋 후 리스너보다 먼저 등록한다. 최근 메시지 캐시는 안내 메시지를 넣은 뒤에 비워지고,
+        // 자동 배정은 상담원 부하가 줄어든 뒤에 돈다.
+        afterCommit(() -> {
+            for (EndedChatRoom endedRoom : endedRooms) {
+                roomMembershipIndex.onRoomEnded(endedRoom.roomId());
+                endSessionTimer(endedRoom.roomId(), expiredStartTimes.get(endedRoom.roomId()));
+                if (endedRoom.adminId() != null) {
+                    adminLoadIndex.onRoomEnded(endedRoom.adminId());
+                }
+            }
+            messageService.saveSystemMessages(endedRooms, closingMessage);
+        });
+        for (EndedChatRoom endedRoom : endedRooms) {
+            eventPublisher.publishEvent(new ChatRoomEndedEvent(endedRoom.roomId()));
+        }
+        logger.info("채팅방 일괄 종료: 요청={}, 종료={}", roomIds.size(), endedRooms.size());
+
+        return endedRooms;
     }
 
-    public boolean isSessionExpired(String roomId) {
-        LocalDateTime startTime = sessionStartTimes.get(roomId);
-        if (startTime == null) {
-            return false;
+    /**
+     * 진행 중인 모든 상담을 종료한다. 진료 종료 시각에 사용한다.
+     */
+    public List<EndedChatRoom> endAllActiveChatRooms(String closingMessage) {
+        return endChatRooms(chatRoomRepository.findActiveRoomIds(), closingMessage);
+    }
+
+    private void endSessionTimer(String roomId, LocalDateTime expiredStartTime) {
+        Optional<LocalDateTime> startTime = sessionExpiryTracker.stop(roomId);
+        if (startTime.isEmpty() && expiredStartTime != null) {
+            startTime = Optional.of(expiredStartTime);
         }
-        
-        LocalDateTime now = LocalDateTime.now();
-        long minutesElapsed = java.time.Duration.between(startTime, now).toMinutes();
-        
-        return minutesElapsed >= SESSION_TIMEOUT_MINUTES;
+        startTime.ifPresent(start -> {
+            Duration handleTime = Duration.between(start, LocalDateTime.now());
+            waitTimeEstimator.recordHandleTime(handleTime);
+            logger.info("상담 세션 타이머 종료: roomId={}, 상담시간={}분", roomId, handleTime.toMinutes());
+        });
+    }
+
+    public boolean isSessionExpired(String roomId) {
+        return sessionExpiryTracker.isOverSessionTimeout(roomId);
     }
 
-    @Scheduled(fixedRate = 60000)
+    /**
+     * 타이밍 휠을 한 tick 씩 진행해서 최대 상담 시간이나 유휴 시간을 넘긴 세션을 일괄 종료한다.
+     * 종료에 실패하면 세션을 휠에 되돌려 다음 tick 에 다시 시도한다.
+     */
+    @Scheduled(fixedRateString = "${dental-chat.chat-room.expiry-tick:1000}")
     public void checkExpiredSessions() {
-        logger.debug("만료된 상담 세션 확인 중...");
-        
-        List<String> expiredSessions = sessionStartTimes.entrySet().stream()
-                .filter(entry -> {
-                    long minutesElapsed = java.time.Duration.between(entry.getValue(), LocalDateTime.now()).toMinutes();
-                    return minutesElapsed >= SESSION_TIMEOUT_MINUTES;
-                })
-                .map(entry -> entry.getKey())
-                .toList();
-        
-        for (String roomId : expiredSessions) {
-            try {
-                Optional<ChatRoom> chatRoom = findByRoomId(roomId);
-                if (chatRoom.isPresent() && chatRoom.get().getStatus() == ChatRoom.RoomStatus.ACTIVE) {
-                    endChatRoom(roomId);
-                    logger.warn("만료된 상담 세션 자동 종료: roomId={}", roomId);
-                }
-            } catch (Exception e) {
-                logger.error("만료된 세션 종료 중 오류 발생: roomId={}", roomId, e);
-            }
+        Map<String, LocalDateTime> expiredSessions = sessionExpiryTracker.pollExpired();
+        if (expiredSessions.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<EndedChatRoom> endedRooms = endChatRooms(expiredSessions.keySet(), SESSION_EXPIRED_MESSAGE, expiredSessions);
+            logger.warn("만료된 상담 세션 자동 종료: {} 건", endedRooms.size());
+        } catch (Exception e) {
+            // 추적에서 이미 빠진 세션이라 되돌리지 않으면 다시는 만료되지 않는다
+            sessionExpiryTracker.requeue(expiredSessions);
+            logger.error("만료된 세션 종료 중 오류 발생, 다음 tick 에 다시 시도: roomIds={}", expiredSessions.keySet(), e);
         }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * 종료된 방을 포함해 채팅방의 고객이거나 배정되었던 상담원인지 확인한다. 종료 후에도 읽을 수 있는 이력 API 에서 쓴다.
+     * 식별 정보 캐시로 id 를 비교하므로 같은 방을 다시 확인할 때는 DB 를 조회하지 않는다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public boolean isParticipant(String roomId, String username) {
+        if (roomId == null || username == null) {
+            return false;
+        }
+        Optional<RoomIdentity> room = identityCache.findRoom(roomId);
+        Optional<UserIdentity> user = identityCache.findUser(username);
+        if (room.isEmpty() || user.isEmpty()) {
+            return false;
+        }
+        Long userId = user.get().id();
+        return userId.equals(room.get().customerId()) || userId.equals(room.get().adminId());
+    }
+
+    /**
+     * 종료되지 않은 채팅방의 고객이나 배정된 상담원인지 {@link RoomMembershipIndex} 로 확인한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
     public boolean isUserInRoom(String roomId, String username) {
-        Optional<ChatRoom> chatRoom = chatRoomRepository.findByRoomId(roomId);
-        
-        return chatRoom.map(room -> 
-            (room.getCustomer() != null && room.getCustomer().getUsername().equals(username)) ||
-            (room.getAdmin() != null && room.getAdmin().getUsername().equals(username))
-        ).orElse(false);
+        return roomMembershipIndex.isMember(roomId, username);
     }
 }
\ No newline at end of file
@@ -0,0 +1,205 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 상담 분야별 대기열과 배정 결정.
+ * 분야마다 {@link WaitingQueue} 를 두고, 같은 분야 안에서는 먼저 온 고객이 먼저 배정된다.
+ * 분야 사이에서는 각 대기열 맨 앞 고객의 점수(priority * aging-step + 대기 시간)가 높은 쪽이 먼저이므로,
+ * 우선순위가 낮은 분야도 aging-step 만큼 더 기다릴 때마다 한 단계 높은 분야와 같은 대우를 받아 굶지 않는다.
+ * 배정 결정은 대기열 맨 앞들과 {@link AdminLoadIndex} 만 보고 메모리에서 끝난다.
+ */
+@Component
+public class ConsultationRouter {
+
+    @Value("${dental-chat.dispatch.aging-step:180000}")
+    private long agingStepMillis = 180_000;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Map<ConsultationType, WaitingQueue> lanes = new EnumMap<>(ConsultationType.class);
+
+    private final Map<String, Waiting> waiting = new HashMap<>();
+
+    private record Waiting(ConsultationType type, long enqueuedAtMillis) {
+    }
+
+    /**
+     * 배정 결정. adminId 상담원에게 roomId 를 배정하면 된다.
+     */
+    public record Route(String roomId, ConsultationType type, Long adminId, long waitedMillis) {
+    }
+
+    public ConsultationRouter() {
+        for (ConsultationType type : ConsultationType.values()) {
+            lanes.put(type, new WaitingQueue());
+        }
+    }
+
+    public ConsultationRouter(long agingStepMillis) {
+        this();
+        this.agingStepMillis = agingStepMillis;
+    }
+
+    /**
+     * 이미 대기 중인 방이면 순서와 분야를 바꾸지 않고 false 를 반환한다.
+     */
+    public boolean offer(String roomId, ConsultationType type, long nowMillis) {
+        lock.lock();
+        try {
+            if (waiting.containsKey(roomId)) {
+                return false;
+            }
+            waiting.put(roomId, new Waiting(type, nowMillis));
+            return lanes.get(type).offer(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(String roomId) {
+        lock.lock();
+        try {
+            Waiting removed = waiting.remove(roomId);
+            return removed != null && lanes.get(removed.type()).remove(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 분야와 상관없이 지금 가장 먼저 배정되어야 할 고객을 대기열에서 꺼낸다.
+     */
+    public String poll(long nowMillis) {
+        lock.lock();
+        try {
+            String roomId = peek(nowMillis);
+            if (roomId != null) {
+                remove(roomId);
+            }
+            return roomId;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String peek(long nowMillis) {
+        lock.lock();
+        try {
+            String best = null;
+            long bestScore = Long.MIN_VALUE;
+            for (WaitingQueue lane : lanes.values()) {
+                String head = lane.peek();
+                if (head != null) {
+                    long score = score(waiting.get(head), nowMillis);
+                    if (score > bestScore) {
+                        best = head;
+                        bestScore = score;
+                    }
+                }
+            }
+            return best;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 점수가 높은 분야부터 그 분야를 맡을 수 있고 상담 수가 maxActiveRooms 미만인 가장 한가한 상담원을 찾는다.
+     * 응급 상담원이 모두 바쁘면 일반 문의 고객이 먼저 배정될 수 있다. 배정할 수 있는 조합이 없으면 비어 있다.
+     * 대기열에서 꺼내지는 않는다.
+     */
+    public Optional<Route> nextRoute(AdminLoadIndex admins, long maxActiveRooms, long nowMillis) {
+        lock.lock();
+        try {
+            boolean[] tried = new boolean[lanes.size()];
+            for (int attempt = 0; attempt < tried.length; attempt++) {
+                ConsultationType bestType = null;
+                long bestScore = Long.MIN_VALUE;
+                for (Map.Entry<ConsultationType, WaitingQueue> lane : lanes.entrySet()) {
+                    String head = lane.getValue().peek();
+                    if (head == null || tried[lane.getKey().ordinal()]) {
+                        continue;
+                    }
+                    long score = score(waiting.get(head), nowMillis);
+                    if (score > bestScore) {
+                        bestType = lane.getKey();
+                        bestScore = score;
+                    }
+                }
+                if (bestType == null) {
+                    return Optional.empty();
+                }
+
+                tried[bestType.ordinal()] = true;
+                Optional<Long> adminId = admins.findLeastLoaded(bestType, maxActiveRooms);
+                if (adminId.isPresent()) {
+                    String roomId = lanes.get(bestType).peek();
+                    return Optional.of(new Route(roomId, bestType, adminId.get(),
+                            nowMillis - waiting.get(roomId).enqueuedAtMillis()));
+                }
+            }
+            return Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(String roomId) {
+        lock.lock();
+        try {
+            return waiting.containsKey(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Optional<ConsultationType> typeOf(String roomId) {
+        lock.lock();
+        try {
+            Waiting entry = waiting.get(roomId);
+            return entry != null ? Optional.of(entry.type()) : Optional.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 같은 분야 대기열 안에서 1 부터 시작하는 순번. 대기 중이 아니면 비어 있다.
+     */
+    public OptionalInt positionOf(String roomId) {
+        lock.lock();
+        try {
+            Waiting entry = waiting.get(roomId);
+            return entry != null ? lanes.get(entry.type()).positionOf(roomId) : OptionalInt.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size(ConsultationType type) {
+        return lanes.get(type).size();
+    }
+
+    private long score(Waiting entry, long nowMillis) {
+        return entry.type().getPriority() * agingStepMillis + (nowMillis - entry.enqueuedAtMillis());
+    }
+}
@@ -0,0 +1,89 @@
+package com.ezlevup.dentalchat.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 시간순 64비트 ID 생성기 (Snowflake 방식).
+ * 상위부터 41비트 밀리초(EPOCH 기준), 10비트 노드 번호, 12비트 밀리초 내 순번으로 구성되어
+ * 노드 번호만 겹치지 않으면 DB 조회 없이 전역 유일하고, 같은 노드가 만든 ID 는 항상 증가한다.
+ * 시계가 뒤로 가거나 한 밀리초에 4096개를 넘게 만들면 마지막 시각에서 순번을 이어가며,
+ * 넘친 순번은 다음 밀리초를 미리 당겨 쓴다. 어느 경우에도 대기하거나 예외를 던지지 않는다.
+ */
+@Component
+public class IdGenerator {
+
+    // 2025-01-01T00:00:00Z, 41비트로 약 69년
+    static final long EPOCH_MILLIS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    static final int NODE_BITS = 10;
+
+    static final int SEQUENCE_BITS = 12;
+
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    // 63비트 양수를 36진수로 쓰면 최대 13자리. 같은 폭으로 맞춰 문자열 정렬이 숫자 정렬과 같게 한다.
+    private static final int KEY_WIDTH = 13;
+
+    private final long nodeId;
+
+    private final LongSupplier clock;
+
+    // (EPOCH 이후 밀리초 << SEQUENCE_BITS) | 순번. 순번이 넘치면 자연스럽게 시각 쪽으로 올림된다.
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public IdGenerator(@Value("${dental-chat.id.node-id:0}") long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public IdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long previous = lastState.get();
+            long now = clock.getAsLong() - EPOCH_MILLIS;
+            long next = now > (previous >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : previous + 1;
+            if (lastState.compareAndSet(previous, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    /**
+     * prefix 뒤에 고정 폭 36진수 ID 를 붙인 키. 예) room_0000abc123xyz
+     */
+    public String nextKey(String prefix) {
+        String encoded = Long.toString(nextId(), 36);
+        StringBuilder key = new StringBuilder(prefix.length() + KEY_WIDTH).append(prefix);
+        for (int i = encoded.length(); i < KEY_WIDTH; i++) {
+            key.append('0');
+        }
+        return key.append(encoded).toString();
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static long nodeIdOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+}
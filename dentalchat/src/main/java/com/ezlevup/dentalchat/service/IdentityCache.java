@@ -0,0 +1,97 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.RoomIdentity;
+import com.ezlevup.dentalchat.dto.UserIdentity;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.ezlevup.dentalchat.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * username, roomId 로 찾는 사용자/채팅방 식별 정보 캐시.
+ * 엔티티 대신 id 위주의 작은 record 를 들고 있어서 트랜잭션이나 지연 로딩과 무관하게 공유할 수 있고,
+ * 메시지 처리 경로는 DB 조회 없이 id 를 얻는다. 크기와 쓰기 후 경과 시간으로 제거하며,
+ * 없는 키는 캐시하지 않는다.
+ * 값을 바꾸는 쓰기 경로는 바로 무효화하고, 커밋 전에 다른 스레드가 이전 값을 다시 읽어 넣었을 수 있으므로
+ * 트랜잭션이 끝난 뒤 한 번 더 무효화한다.
+ */
+@Component
+public class IdentityCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dental-chat.identity-cache.maximum-size:10000}")
+    private long maximumSize = 10_000;
+
+    @Value("${dental-chat.identity-cache.expire-after-write:300000}")
+    private long expireAfterWriteMillis = 300_000;
+
+    private Cache<String, UserIdentity> users;
+
+    private Cache<String, RoomIdentity> rooms;
+
+    @PostConstruct
+    void init() {
+        users = newCache();
+        rooms = newCache();
+        // cache.gets{result=hit|miss}, cache.evictions, cache.size 등
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, rooms, "chatrooms");
+    }
+
+    public Optional<UserIdentity> findUser(String username) {
+        return Optional.ofNullable(users.get(username,
+                key -> userRepository.findIdentityByUsername(key).orElse(null)));
+    }
+
+    public Optional<RoomIdentity> findRoom(String roomId) {
+        return Optional.ofNullable(rooms.get(roomId,
+                key -> chatRoomRepository.findIdentityByRoomId(key).orElse(null)));
+    }
+
+    public void evictUser(String username) {
+        evict(users, username);
+    }
+
+    public void evictRoom(String roomId) {
+        evict(rooms, roomId);
+    }
+
+    private <V> Cache<String, V> newCache() {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(expireAfterWriteMillis))
+                .recordStats()
+                .build();
+    }
+
+    private static void evict(Cache<String, ?> cache, String key) {
+        cache.invalidate(key);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(key);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.ArchiveCandidate;
+import com.ezlevup.dentalchat.dto.ChatHistoryRow;
+import com.ezlevup.dentalchat.entity.ArchivedRoom;
+import com.ezlevup.dentalchat.repository.ArchivedRoomRepository;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.ezlevup.dentalchat.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 종료 후 archive-after 가 지난 채팅방의 메시지를 {@link TranscriptArchive} 세그먼트 파일로 옮기고 messages 에서 지운다.
+ * 블록을 디스크에 반영한 뒤에 같은 트랜잭션에서 archived_rooms 기록과 DELETE 를 하므로, 중간에 실패하면
+ * 세그먼트에 읽히지 않는 블록이 남을 뿐 메시지는 사라지지 않는다.
+ * 보관 기간(retention)이 지난 세그먼트는 파일과 인덱스를 함께 지운다. 세그먼트 안의 마지막 방을 기준으로 한다.
+ */
+@Service
+@ConditionalOnProperty(name = "dental-chat.archive.enabled", havingValue = "true")
+public class MessageArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageArchiver.class);
+
+    // 읽어 둔 마지막 메시지까지만 지운다
+    private static final String DELETE_ARCHIVED_SQL = "DELETE FROM messages WHERE chat_room_id = ? AND id <= ?";
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private ArchivedRoomRepository archivedRoomRepository;
+
+    @Autowired
+    private TranscriptArchive transcriptArchive;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dental-chat.archive.archive-after:86400000}")
+    private long archiveAfterMillis;
+
+    @Value("${dental-chat.archive.retention:0}")
+    private long retentionMillis;
+
+    @Value("${dental-chat.archive.batch-size:500}")
+    private int batchSize;
+
+    private Counter archivedRooms;
+
+    private Counter archivedMessages;
+
+    private Counter rawBytes;
+
+    private Counter compressedBytes;
+
+    private final AtomicLong hotMessages = new AtomicLong();
+
+    /**
+     * 한 번의 보관 결과. hotMessagesBefore/After 는 보관 전후 messages 테이블 행 수다.
+     */
+    public record ArchiveResult(int rooms, long messages, long rawBytes, long compressedBytes,
+                                long hotMessagesBefore, long hotMessagesAfter) {
+
+        public double hotTableReduction() {
+            return hotMessagesBefore == 0 ? 0 : 1.0 - (double) hotMessagesAfter / hotMessagesBefore;
+        }
+
+        public double compressionRatio() {
+            return rawBytes == 0 ? 0 : (double) compressedBytes / rawBytes;
+        }
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        archivedRooms = Counter.builder("dentalchat.archive.rooms")
+                .description("메시지를 세그먼트 파일로 옮긴 채팅방 수")
+                .register(meterRegistry);
+        archivedMessages = Counter.builder("dentalchat.archive.messages")
+                .description("messages 테이블에서 세그먼트 파일로 옮긴 메시지 수")
+                .register(meterRegistry);
+        rawBytes = Counter.builder("dentalchat.archive.bytes")
+                .description("보관한 메시지 크기")
+                .tag("encoding", "raw")
+                .register(meterRegistry);
+        compressedBytes = Counter.builder("dentalchat.archive.bytes")
+                .description("보관한 메시지 크기")
+                .tag("encoding", "compressed")
+                .register(meterRegistry);
+        Gauge.builder("dentalchat.archive.hot.messages", hotMessages, AtomicLong::get)
+                .description("마지막 보관 후 messages 테이블 행 수")
+                .register(meterRegistry);
+        Gauge.builder("dentalchat.archive.segment.bytes", transcriptArchive, TranscriptArchive::getTotalBytes)
+                .description("세그먼트 파일 전체 크기")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${dental-chat.archive.interval:600000}",
+               initialDelayString = "${dental-chat.archive.interval:600000}")
+    public void run() {
+        LocalDateTime now = LocalDateTime.now();
+        archiveEndedRooms(now.minus(archiveAfterMillis, ChronoUnit.MILLIS));
+        if (retentionMillis > 0) {
+            purgeSegments(now.minus(retentionMillis, ChronoUnit.MILLIS));
+        }
+    }
+
+    /**
+     * endedBefore 이전에 종료된 채팅방의 메시지를 batch-size 개 방씩 모두 옮긴다.
+     */
+    public ArchiveResult archiveEndedRooms(LocalDateTime endedBefore) {
+        long hotMessagesBefore = messageRepository.count();
+        int rooms = 0;
+        long messages = 0;
+        long raw = 0;
+        long compressed = 0;
+
+        List<ArchiveCandidate> candidates;
+        do {
+            candidates = chatRoomRepository.findArchiveCandidates(endedBefore, Limit.of(batchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            LocalDateTime archivedAt = LocalDateTime.now();
+            List<ArchivedRoom> archived = new ArrayList<>(candidates.size());
+            List<Object[]> deletes = new ArrayList<>(candidates.size());
+            for (ArchiveCandidate candidate : candidates) {
+                List<ChatHistoryRow> rows = messageRepository.findHistoryByRoomId(candidate.roomId());
+                TranscriptArchive.BlockLocation location = transcriptArchive.append(candidate.roomId(), rows);
+                archived.add(toArchivedRoom(candidate, location, rows.size(), archivedAt));
+                deletes.add(new Object[]{candidate.id(), rows.stream().mapToLong(ChatHistoryRow::id).max().orElse(0)});
+                messages += rows.size();
+                raw += location.rawLength();
+                compressed += location.length();
+            }
+            // 블록이 디스크에 남은 뒤에만 DB 에서 지운다
+            transcriptArchive.force();
+            transactionTemplate.executeWithoutResult(status -> {
+                archivedRoomRepository.saveAll(archived);
+                jdbcTemplate.batchUpdate(DELETE_ARCHIVED_SQL, deletes);
+            });
+            for (ArchiveCandidate candidate : candidates) {
+                recentMessageCache.evict(candidate.roomId());
+            }
+            rooms += candidates.size();
+        } while (candidates.size() == batchSize);
+
+        long hotMessagesAfter = messageRepository.count();
+        hotMessages.set(hotMessagesAfter);
+        ArchiveResult result = new ArchiveResult(rooms, messages, raw, compressed, hotMessagesBefore, hotMessagesAfter);
+        if (rooms > 0) {
+            archivedRooms.increment(rooms);
+            archivedMessages.increment(messages);
+            rawBytes.increment(raw);
+            compressedBytes.increment(compressed);
+            logger.info("메시지 보관 완료: 채팅방 {}개, 메시지 {}건, {}B -> {}B (압축률 {}%), messages 테이블 {}건 -> {}건 ({}% 감소)",
+                    rooms, messages, raw, compressed, Math.round(result.compressionRatio() * 100),
+                    hotMessagesBefore, hotMessagesAfter, Math.round(result.hotTableReduction() * 100));
+        }
+        return result;
+    }
+
+    /**
+     * 마지막으로 보관된 방이 archivedBefore 보다 이전인 세그먼트를 지운다. 그 방들의 이력은 더 이상 조회되지 않는다.
+     */
+    public int purgeSegments(LocalDateTime archivedBefore) {
+        List<Integer> segments = archivedRoomRepository.findSegmentsArchivedBefore(archivedBefore);
+        for (Integer segmentNo : segments) {
+            Integer deleted = transactionTemplate.execute(status -> archivedRoomRepository.deleteBySegmentNo(segmentNo));
+            transcriptArchive.deleteSegment(segmentNo);
+            logger.info("보관 기간이 지난 세그먼트 삭제: segment={}, 채팅방 {}개", segmentNo, deleted);
+        }
+        return segments.size();
+    }
+
+    private static ArchivedRoom toArchivedRoom(ArchiveCandidate candidate, TranscriptArchive.BlockLocation location,
+                                               int messageCount, LocalDateTime archivedAt) {
+        ArchivedRoom archivedRoom = new ArchivedRoom();
+        archivedRoom.setChatRoomId(candidate.id());
+        archivedRoom.setSegmentNo(location.segmentNo());
+        archivedRoom.setSegmentOffset(location.offset());
+        archivedRoom.setBlockLength(location.length());
+        archivedRoom.setMessageCount(messageCount);
+        archivedRoom.setArchivedAt(archivedAt);
+        return archivedRoom;
+    }
+}
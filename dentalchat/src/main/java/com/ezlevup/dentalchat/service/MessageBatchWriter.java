@@ -0,0 +1,354 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 채팅 메시지 write-behind 저장기.
+ * 메시지는 제한된 버퍼에 쌓이고, 전용 스레드가 flush-size 또는 flush-interval 단위로 JDBC 배치 INSERT 한다.
+ * 버퍼가 가득 차면 호출 스레드가 offer-timeout 만큼 대기하고, 그래도 자리가 없으면 직접 저장한다.
+ * 저장에 실패한 메시지는 retry-interval 마다 다시 저장하고, retry-attempts 번 실패하면 message_dead_letters 에 남긴다.
+ */
+@Component
+public class MessageBatchWriter implements SmartLifecycle {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageBatchWriter.class);
+
+    private static final String INSERT_SQL =
+            "INSERT INTO messages (id, chat_room_id, sender_id, content, messageType, sent_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_DEAD_LETTER_SQL =
+            "INSERT INTO message_dead_letters (id, chat_room_id, sender_id, content, messageType, sent_at, attempts, error, failed_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${dental-chat.message.write-behind.buffer-capacity:10000}")
+    private int bufferCapacity;
+
+    @Value("${dental-chat.message.write-behind.flush-size:20}")
+    private int flushSize;
+
+    @Value("${dental-chat.message.write-behind.flush-interval:200}")
+    private long flushIntervalMillis;
+
+    @Value("${dental-chat.message.write-behind.offer-timeout:1000}")
+    private long offerTimeoutMillis;
+
+    @Value("${dental-chat.message.write-behind.shutdown-timeout:10000}")
+    private long shutdownTimeoutMillis;
+
+    @Value("${dental-chat.message.write-behind.retry-interval:5000}")
+    private long retryIntervalMillis;
+
+    @Value("${dental-chat.message.write-behind.retry-attempts:5}")
+    private int retryAttempts;
+
+    private BlockingQueue<PendingMessage> buffer;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    // enqueue 는 읽기 잠금 안에서 running 확인과 offer 를 하고, stop 은 쓰기 잠금으로 running 을 내린다.
+    // 그래서 stop 이 버퍼를 비우기 시작한 뒤에는 버퍼에 들어오는 메시지가 없다.
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+
+    private final Queue<FailedMessage> retryQueue = new ConcurrentLinkedQueue<>();
+
+    private long nextRetryAt;
+
+    private final AtomicLong enqueuedCount = new AtomicLong();
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final Object flushMonitor = new Object();
+
+    public record PendingMessage(
+            Long id,
+            Long chatRoomId,
+            Long senderId,
+            String content,
+            Message.MessageType messageType,
+            LocalDateTime sentAt
+    ) {
+    }
+
+    private record FailedMessage(PendingMessage message, int attempts, Exception error) {
+    }
+
+    public void enqueue(PendingMessage message) {
+        enqueuedCount.incrementAndGet();
+        stateLock.readLock().lock();
+        try {
+            // 종료 중이거나 시작 전이면 버퍼를 거치지 않고 직접 저장한다
+            if (running) {
+                if (buffer.offer(message, offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                    return;
+                }
+                logger.warn("메시지 버퍼가 가득 차 호출 스레드에서 직접 저장합니다. 버퍼 크기={}", buffer.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            stateLock.readLock().unlock();
+        }
+
+        writeBatch(List.of(message));
+    }
+
+    /**
+     * 호출 시점까지 들어온 메시지가 모두 저장(또는 dead letter 로 기록)될 때까지 대기한다.
+     */
+    public boolean awaitFlush(long timeoutMillis) {
+        long target = enqueuedCount.get();
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        synchronized (flushMonitor) {
+            while (writtenCount.get() < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    flushMonitor.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    public int getPendingCount() {
+        return buffer != null ? buffer.size() : 0;
+    }
+
+    public int getRetryCount() {
+        return retryQueue.size();
+    }
+
+    @Override
+    public void start() {
+        buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        nextRetryAt = System.currentTimeMillis() + retryIntervalMillis;
+        running = true;
+        writerThread = Thread.ofPlatform()
+                .name("message-batch-writer")
+                .daemon(false)
+                .start(this::drainLoop);
+        logger.info("메시지 write-behind 저장기 시작: capacity={}, flushSize={}, flushInterval={}ms",
+                bufferCapacity, flushSize, flushIntervalMillis);
+    }
+
+    @Override
+    public void stop() {
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        try {
+            writerThread.join(shutdownTimeoutMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<PendingMessage> remaining = new ArrayList<>();
+        buffer.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+        // 더 기다릴 수 없으므로 재시도 중인 메시지는 한 번 더 저장해 보고 실패하면 dead letter 로 남긴다
+        retryFailed();
+        logger.info("메시지 write-behind 저장기 종료: 저장된 메시지 수={}", writtenCount.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 웹 서버와 메시지 브로커가 먼저 멈춘 뒤 마지막으로 남은 메시지를 비우도록 낮은 phase 를 사용한다.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void drainLoop() {
+        List<PendingMessage> batch = new ArrayList<>(flushSize);
+
+        while (running || !buffer.isEmpty()) {
+            try {
+                if (!retryQueue.isEmpty() && System.currentTimeMillis() >= nextRetryAt) {
+                    retryFailed();
+                }
+
+                PendingMessage first = buffer.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < flushSize) {
+                    buffer.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0 || !running) {
+                        break;
+                    }
+                    PendingMessage next = buffer.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                logger.warn("메시지 저장 스레드가 인터럽트 되었습니다. 남은 메시지는 종료 시 저장됩니다.");
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.error("메시지 배치 저장 중 오류 발생: batchSize={}", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void markWritten(int count) {
+        writtenCount.addAndGet(count);
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    /**
+     * 배치를 저장한다. 저장하지 못한 메시지는 재시도 대기열로 보내므로 이 메서드에서 메시지가 사라지지 않는다.
+     */
+    private void writeBatch(List<PendingMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> insert(batch));
+            markWritten(batch.size());
+            logger.debug("메시지 배치 저장 완료: {} 건", batch.size());
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                onFailure(new FailedMessage(batch.get(0), 1, e));
+                return;
+            }
+            // 문제가 되는 메시지만 걸러내기 위해 한 건씩 다시 저장
+            logger.warn("메시지 배치 저장 실패, 개별 저장으로 재시도: batchSize={}", batch.size(), e);
+            for (PendingMessage message : batch) {
+                writeBatch(List.of(message));
+            }
+        }
+    }
+
+    /**
+     * 재시도 대기열의 메시지를 한 건씩 다시 저장한다. 저장 스레드와 종료 시에만 호출된다.
+     */
+    private void retryFailed() {
+        List<FailedMessage> failed = new ArrayList<>(retryQueue.size());
+        FailedMessage next;
+        while ((next = retryQueue.poll()) != null) {
+            failed.add(next);
+        }
+        nextRetryAt = System.currentTimeMillis() + retryIntervalMillis;
+
+        for (FailedMessage message : failed) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(List.of(message.message())));
+                markWritten(1);
+                logger.info("메시지 재시도 저장 성공: messageId={}, 시도 횟수={}", message.message().id(), message.attempts() + 1);
+            } catch (Exception e) {
+                onFailure(new FailedMessage(message.message(), message.attempts() + 1, e));
+            }
+        }
+    }
+
+    private void onFailure(FailedMessage failed) {
+        if (running && failed.attempts() < retryAttempts) {
+            logger.warn("메시지 저장 실패, {}ms 후 다시 저장합니다: messageId={}, chatRoomId={}, 시도 횟수={}",
+                    retryIntervalMillis, failed.message().id(), failed.message().chatRoomId(), failed.attempts(), failed.error());
+            retryQueue.add(failed);
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertDeadLetter(failed));
+            markWritten(1);
+            logger.error("메시지를 저장하지 못해 dead letter 로 남깁니다: messageId={}, chatRoomId={}, 시도 횟수={}",
+                    failed.message().id(), failed.message().chatRoomId(), failed.attempts(), failed.error());
+        } catch (Exception e) {
+            if (running) {
+                // DB 자체에 문제가 있으면 dead letter 도 실패하므로 다음 재시도 때 다시 시도한다
+                logger.error("dead letter 기록 실패, 재시도 대기열에 남깁니다: messageId={}", failed.message().id(), e);
+                retryQueue.add(failed);
+                return;
+            }
+            PendingMessage message = failed.message();
+            logger.error("종료 중 메시지를 저장하지 못했습니다: id={}, chatRoomId={}, senderId={}, messageType={}, sentAt={}, content={}",
+                    message.id(), message.chatRoomId(), message.senderId(), message.messageType(), message.sentAt(),
+                    message.content(), e);
+            markWritten(1);
+        }
+    }
+
+    private void insert(List<PendingMessage> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, message) -> {
+            ps.setLong(1, message.id());
+            ps.setLong(2, message.chatRoomId());
+            if (message.senderId() != null) {
+                ps.setLong(3, message.senderId());
+            } else {
+                ps.setNull(3, java.sql.Types.BIGINT);
+            }
+            ps.setString(4, message.content());
+            ps.setString(5, message.messageType().name());
+            ps.setTimestamp(6, Timestamp.valueOf(message.sentAt()));
+        });
+    }
+
+    private void insertDeadLetter(FailedMessage failed) {
+        PendingMessage message = failed.message();
+        String error = String.valueOf(failed.error());
+        jdbcTemplate.update(INSERT_DEAD_LETTER_SQL, message.id(), message.chatRoomId(), message.senderId(),
+                message.content(), message.messageType().name(), Timestamp.valueOf(message.sentAt()), failed.attempts(),
+                error.length() > MAX_ERROR_LENGTH ? error.substring(0, MAX_ERROR_LENGTH) : error,
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+}
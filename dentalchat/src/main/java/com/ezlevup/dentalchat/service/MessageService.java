@@ -1,21 +1,38 @@
 package com.ezlevup.dentalchat.service;
 
+import com.ezlevup.dentalchat.dto.CachedMessage;
+import com.ezlevup.dentalchat.dto.ChatHistoryPage;
+import com.ezlevup.dentalchat.dto.ChatHistoryRow;
 import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
 import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.ReadReceipt;
+import com.ezlevup.dentalchat.dto.RoomIdentity;
+import com.ezlevup.dentalchat.dto.UserIdentity;
 import com.ezlevup.dentalchat.dto.UserRole;
-import com.ezlevup.dentalchat.entity.ChatRoom;
 import com.ezlevup.dentalchat.entity.Message;
 import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.messaging.RoomBroadcaster;
 import com.ezlevup.dentalchat.repository.ChatRoomRepository;
 import com.ezlevup.dentalchat.repository.MessageRepository;
+import com.ezlevup.dentalchat.repository.ReadWatermarkRepository;
 import com.ezlevup.dentalchat.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.messaging.simp.SimpMessageSendingOperations;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Transactional
@@ -31,60 +48,156 @@ public class MessageService {
     private UserRepository userRepository;
 
     @Autowired
-    private SimpMessageSendingOperations messagingTemplate;
+    private ReadWatermarkRepository readWatermarkRepository;
+
+    @Autowired
+    private RoomBroadcaster roomBroadcaster;
+
+    @Autowired
+    private MessageBatchWriter messageBatchWriter;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private SessionExpiryTracker sessionExpiryTracker;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private TranscriptArchive transcriptArchive;
+
+    @Value("${dental-chat.chat-room.history.default-page-size:50}")
+    private int defaultHistoryPageSize;
+
+    @Value("${dental-chat.chat-room.history.max-page-size:100}")
+    private int maxHistoryPageSize;
 
     private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
     public Message saveMessage(ChatMessage messageDto) {
-        ChatRoom chatRoom = chatRoomRepository.findByRoomId(messageDto.roomId())
-                .orElseThrow(() -> new IllegalArgumentException("채팅방을 찾을 수 없습니다."));
-
-        User sender = userRepository.findByUsername(messageDto.sender())
+        RoomIdentity chatRoom = findRoom(messageDto.roomId());
+        UserIdentity sender = identityCache.findUser(messageDto.sender())
                 .orElseThrow(() -> new IllegalArgumentException("발신자를 찾을 수 없습니다."));
 
         Message message = new Message();
-        message.setChatRoom(chatRoom);
-        message.setSender(sender);
+        message.setId(idGenerator.nextId());
+        message.setChatRoom(chatRoomRepository.getReferenceById(chatRoom.id()));
+        message.setSender(userRepository.getReferenceById(sender.id()));
         message.setContent(messageDto.content());
         
-        // MessageType 변환 - record의 MessageType을 entity의 MessageType으로
-        Message.MessageType entityMessageType;
-        switch (messageDto.type()) {
-            case CHAT -> entityMessageType = Message.MessageType.CHAT;
-            case JOIN -> entityMessageType = Message.MessageType.JOIN;
-            case LEAVE -> entityMessageType = Message.MessageType.LEAVE;
-            default -> entityMessageType = Message.MessageType.CHAT;
-        }
-        message.setMessageType(entityMessageType);
+        message.setMessageType(toEntityMessageType(messageDto.type()));
 
         Message savedMessage = messageRepository.save(message);
+        afterCommit(unreadIncrement(chatRoom, sender.id()));
+        sessionExpiryTracker.touch(chatRoom.roomId());
 
         // WebSocket으로 메시지 전송
-        UserRole responseRole = sender.getUserType() == User.UserType.ADMIN ? UserRole.ADMIN : UserRole.CUSTOMER;
+        UserRole responseRole = sender.userType() == User.UserType.ADMIN ? UserRole.ADMIN : UserRole.CUSTOMER;
         ChatMessage responseDto = new ChatMessage(
                 messageDto.content(),
-                sender.getUsername(),
+                sender.username(),
                 responseRole,
                 messageDto.type(),
                 savedMessage.getSentAt(),
                 messageDto.roomId()
         );
 
-        messagingTemplate.convertAndSend("/topic/room/" + messageDto.roomId(), responseDto);
+        broadcast(responseDto, savedMessage.getId());
 
         return savedMessage;
     }
 
+    /**
+     * write-behind 경로: 메시지를 저장 버퍼에 넣고 즉시 브로드캐스트한다.
+     * 실제 INSERT 는 {@link MessageBatchWriter} 가 배치로 수행한다.
+     */
+    @Transactional(readOnly = true)
+    public ChatMessage submitMessage(ChatMessage messageDto) {
+        EnqueuedMessage enqueued = enqueue(messageDto);
+        broadcast(enqueued.message(), enqueued.id());
+        return enqueued.message();
+    }
+
+    /**
+     * 메시지를 저장 버퍼에 넣고, 미리 발급한 메시지 id 와 발신자 정보가 반영된 브로드캐스트용 메시지를 반환한다.
+     */
+    @Transactional(readOnly = true)
+    public EnqueuedMessage enqueueMessage(ChatMessage messageDto) {
+        return enqueue(messageDto);
+    }
+
+    public record EnqueuedMessage(Long id, ChatMessage message) {
+    }
+
+    private EnqueuedMessage enqueue(ChatMessage messageDto) {
+        RoomIdentity chatRoom = findRoom(messageDto.roomId());
+        UserIdentity sender = identityCache.findUser(messageDto.sender())
+                .orElseThrow(() -> new IllegalArgumentException("발신자를 찾을 수 없습니다."));
+
+        Long messageId = idGenerator.nextId();
+        LocalDateTime sentAt = LocalDateTime.now();
+        messageBatchWriter.enqueue(new MessageBatchWriter.PendingMessage(
+                messageId,
+                chatRoom.id(),
+                sender.id(),
+                messageDto.content(),
+                toEntityMessageType(messageDto.type()),
+                sentAt
+        ));
+        // 저장 버퍼에 넣은 뒤에 올려야 카운터 대조가 아직 저장되지 않은 메시지를 불일치로 보지 않는다
+        unreadIncrement(chatRoom, sender.id()).run();
+        sessionExpiryTracker.touch(chatRoom.roomId());
+
+        UserRole responseRole = sender.userType() == User.UserType.ADMIN ? UserRole.ADMIN : UserRole.CUSTOMER;
+        return new EnqueuedMessage(messageId, new ChatMessage(
+                messageDto.content(),
+                sender.username(),
+                responseRole,
+                messageDto.type(),
+                sentAt,
+                messageDto.roomId()
+        ));
+    }
+
+    /**
+     * 메시지를 채팅방에 브로드캐스트한다. 저장되지 않는 메시지(messageId 가 null)는 최근 메시지 캐시에 넣지 않는다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void broadcast(ChatMessage message, Long messageId) {
+        if (messageId != null) {
+            recentMessageCache.append(message.roomId(), messageId, message);
+        }
+        roomBroadcaster.broadcast(message);
+    }
+
+    private Message.MessageType toEntityMessageType(MessageType type) {
+        // MessageType 변환 - record의 MessageType을 entity의 MessageType으로
+        return switch (type) {
+            case CHAT -> Message.MessageType.CHAT;
+            case JOIN -> Message.MessageType.JOIN;
+            case LEAVE -> Message.MessageType.LEAVE;
+        };
+    }
+
     public Message saveSystemMessage(String roomId, String content) {
-        ChatRoom chatRoom = chatRoomRepository.findByRoomId(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("채팅방을 찾을 수 없습니다."));
+        RoomIdentity chatRoom = findRoom(roomId);
 
         Message message = new Message();
-        message.setChatRoom(chatRoom);
+        message.setId(idGenerator.nextId());
+        message.setChatRoom(chatRoomRepository.getReferenceById(chatRoom.id()));
         message.setContent(content);
         message.setMessageType(Message.MessageType.SYSTEM);
 
         Message savedMessage = messageRepository.save(message);
+        afterCommit(unreadIncrement(chatRoom, null));
 
         // WebSocket으로 시스템 메시지 전송
         ChatMessage responseDto = new ChatMessage(
@@ -96,11 +209,25 @@ public class MessageService {
                 roomId
         );
 
-        messagingTemplate.convertAndSend("/topic/room/" + roomId, responseDto);
+        broadcast(responseDto, savedMessage.getId());
 
         return savedMessage;
     }
 
+    /**
+     * 여러 채팅방에 같은 시스템 메시지를 남긴다. 저장은 write-behind 버퍼를 거쳐 배치 INSERT 된다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void saveSystemMessages(List<EndedChatRoom> chatRooms, String content) {
+        LocalDateTime sentAt = LocalDateTime.now();
+        for (EndedChatRoom chatRoom : chatRooms) {
+            Long messageId = idGenerator.nextId();
+            messageBatchWriter.enqueue(new MessageBatchWriter.PendingMessage(
+                    messageId, chatRoom.id(), null, content, Message.MessageType.SYSTEM, sentAt));
+            broadcast(new ChatMessage(content, "system", UserRole.ADMIN, MessageType.CHAT, sentAt, chatRoom.roomId()), messageId);
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<Message> findMessagesByRoomId(String roomId) {
         return messageRepository.findByRoomIdOrderBySentAtAsc(roomId);
@@ -108,52 +235,137 @@ public class MessageService {
 
     @Transactional(readOnly = true)
     public List<ChatMessage> getChatHistory(String roomId) {
-        List<Message> messages = messageRepository.findByRoomIdOrderBySentAtAsc(roomId);
-        
-        return messages.stream()
-                .map(message -> {
-                    String sender = message.getSender() != null ? message.getSender().getUsername() : "system";
-                    UserRole senderRole;
-                    if (message.getSender() == null) {
-                        senderRole = UserRole.ADMIN; // 시스템 메시지
-                    } else {
-                        senderRole = message.getSender().getUserType() == User.UserType.ADMIN ? UserRole.ADMIN : UserRole.CUSTOMER;
-                    }
-                    
-                    // Entity MessageType을 DTO MessageType으로 변환
-                    MessageType dtoMessageType;
-                    switch (message.getMessageType()) {
-                        case CHAT, SYSTEM -> dtoMessageType = MessageType.CHAT;
-                        case JOIN -> dtoMessageType = MessageType.JOIN;
-                        case LEAVE -> dtoMessageType = MessageType.LEAVE;
-                        default -> dtoMessageType = MessageType.CHAT;
-                    }
-                    
-                    return new ChatMessage(
-                            message.getContent(),
-                            sender,
-                            senderRole,
-                            dtoMessageType,
-                            message.getSentAt(),
-                            roomId
-                    );
-                })
+        Optional<RecentMessageCache.RecentMessages> cached = recentMessageCache.latest(roomId, Integer.MAX_VALUE);
+        if (cached.isPresent()) {
+            return cached.get().messages().stream()
+                    .map(CachedMessage::message)
+                    .toList();
+        }
+
+        List<ChatHistoryRow> rows = messageRepository.findHistoryByRoomId(roomId);
+        if (rows.isEmpty()) {
+            // 메시지를 세그먼트 파일로 옮긴 종료된 상담
+            rows = transcriptArchive.findHistory(roomId);
+        }
+        return rows.stream()
+                .map(ChatHistoryRow::toChatMessage)
                 .toList();
     }
 
-    public void markMessagesAsRead(String roomId, String username) {
-        ChatRoom chatRoom = chatRoomRepository.findByRoomId(roomId)
+    /**
+     * beforeMessageId 보다 이전 메시지를 최신 순으로 limit 건 읽어 오래된 순으로 돌려준다 (keyset 페이지네이션).
+     * beforeMessageId 가 없으면 가장 최근 페이지, limit 은 max-page-size 로 제한된다.
+     */
+    @Transactional(readOnly = true)
+    public ChatHistoryPage getChatHistory(String roomId, Long beforeMessageId, Integer limit) {
+        int pageSize = limit == null || limit <= 0 ? defaultHistoryPageSize : Math.min(limit, maxHistoryPageSize);
+        if (beforeMessageId == null) {
+            // 최신 페이지는 최근 메시지 캐시로 답할 수 있으면 DB 를 조회하지 않는다
+            Optional<RecentMessageCache.RecentMessages> cached = recentMessageCache.latest(roomId, pageSize);
+            if (cached.isPresent()) {
+                List<CachedMessage> recent = cached.get().messages();
+                List<ChatMessage> messages = recent.stream().map(CachedMessage::message).toList();
+                Long nextBeforeMessageId = recent.isEmpty() ? null : recent.get(0).id();
+                return new ChatHistoryPage(roomId, messages, nextBeforeMessageId, cached.get().hasMore());
+            }
+        }
+        long before = beforeMessageId != null ? beforeMessageId : Long.MAX_VALUE;
+
+        // 한 건 더 읽어서 다음 페이지 존재 여부를 판단
+        List<ChatHistoryRow> rows = messageRepository.findHistoryBefore(roomId, before, Limit.of(pageSize + 1));
+        if (rows.isEmpty()) {
+            rows = transcriptArchive.findHistoryBefore(roomId, before, pageSize + 1);
+        }
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows = rows.subList(0, pageSize);
+        }
+
+        List<ChatMessage> messages = new ArrayList<>(rows.size());
+        for (ChatHistoryRow row : rows) {
+            messages.add(row.toChatMessage());
+        }
+        Collections.reverse(messages);
+
+        if (beforeMessageId == null) {
+            List<CachedMessage> recent = new ArrayList<>(rows.size());
+            for (int i = rows.size() - 1; i >= 0; i--) {
+                recent.add(new CachedMessage(rows.get(i).id(), messages.get(rows.size() - 1 - i)));
+            }
+            recentMessageCache.prime(roomId, recent, !hasMore);
+        }
+
+        Long nextBeforeMessageId = rows.isEmpty() ? null : rows.get(rows.size() - 1).id();
+        return new ChatHistoryPage(roomId, messages, nextBeforeMessageId, hasMore);
+    }
+
+    /**
+     * 채팅방의 마지막 메시지까지 읽음 위치를 옮기고 커밋 후 읽음 이벤트를 브로드캐스트한다.
+     * 아직 저장 버퍼에 있는 메시지는 포함되지 않으며, 읽을 메시지가 없으면 null 을 반환한다.
+     */
+    public ReadReceipt markMessagesAsRead(String roomId, String username) {
+        RoomIdentity chatRoom = findRoom(roomId);
+        UserIdentity currentUser = findUser(username);
+        if (!currentUser.id().equals(chatRoom.customerId()) && !currentUser.id().equals(chatRoom.adminId())) {
+            throw new IllegalArgumentException("채팅방 참여자가 아닙니다.");
+        }
+
+        Long lastMessageId = messageRepository.findLastMessageId(chatRoom.id()).orElse(null);
+        if (lastMessageId == null) {
+            return null;
+        }
+
+        readWatermarkRepository.advance(chatRoom.id(), currentUser.id(), lastMessageId);
+
+        // 롤백된 읽음 처리가 상대방에게 보이지 않도록 카운터 초기화와 함께 커밋 후에 보낸다
+        ReadReceipt receipt = new ReadReceipt(roomId, username, lastMessageId);
+        afterCommit(() -> {
+            unreadCounterService.reset(roomId, currentUser.id());
+            roomBroadcaster.broadcastReadReceipt(receipt);
+        });
+        return receipt;
+    }
+
+    /**
+     * 안 읽은 메시지 수. DB 를 조회하지 않고 {@link UnreadCounterService} 의 카운터를 읽는다.
+     */
+    @Transactional(readOnly = true)
+    public long getUnreadCount(String roomId, String username) {
+        return unreadCounterService.getUnreadCount(roomId, findUser(username).id());
+    }
+
+    @Transactional(readOnly = true)
+    public Map<String, Long> getUnreadCounts(String username, List<String> roomIds) {
+        return unreadCounterService.getUnreadCounts(findUser(username).id(), roomIds);
+    }
+
+    private RoomIdentity findRoom(String roomId) {
+        return identityCache.findRoom(roomId)
                 .orElseThrow(() -> new IllegalArgumentException("채팅방을 찾을 수 없습니다."));
+    }
 
-        User currentUser = userRepository.findByUsername(username)
+    private UserIdentity findUser(String username) {
+        return identityCache.findUser(username)
                 .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다."));
+    }
 
-        List<Message> messages = messageRepository.findByChatRoomOrderBySentAtAsc(chatRoom);
-        messages.stream()
-                .filter(message -> !message.isRead() && !message.getSender().equals(currentUser))
-                .forEach(message -> {
-                    message.setRead(true);
-                    messageRepository.save(message);
-                });
+    /**
+     * 카운터 증가는 호출 측이 원하는 시점에 실행한다.
+     */
+    private Runnable unreadIncrement(RoomIdentity chatRoom, Long senderId) {
+        return () -> unreadCounterService.onMessage(chatRoom.roomId(), senderId, chatRoom.customerId(), chatRoom.adminId());
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
-}
\ No newline at end of file
+}
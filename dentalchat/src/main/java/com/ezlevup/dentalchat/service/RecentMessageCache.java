@@ -0,0 +1,394 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.CachedMessage;
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.event.ChatRoomCreatedEvent;
+import com.ezlevup.dentalchat.event.ChatRoomEndedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 채팅방별 최근 메시지 링 버퍼.
+ * 브로드캐스트 경로에서 채워지고, 최신 이력 요청이 버퍼 안에서 끝나면 DB 를 조회하지 않는다.
+ * 채팅방 종료, 유휴 시간 초과, 전체 메모리 예산 초과(LRU) 시 방 단위로 제거된다.
+ */
+@Component
+public class RecentMessageCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentMessageCache.class);
+
+    /**
+     * 메시지 1건의 대략적인 고정 크기 (레코드, 문자열 헤더, 타임스탬프 등). 본문은 UTF-16 기준으로 더한다.
+     */
+    private static final int MESSAGE_OVERHEAD_BYTES = 200;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dental-chat.chat-room.recent-cache.messages-per-room:50}")
+    private int messagesPerRoom;
+
+    @Value("${dental-chat.chat-room.recent-cache.max-bytes:67108864}")
+    private long maxBytes;
+
+    @Value("${dental-chat.chat-room.recent-cache.idle-timeout:600000}")
+    private long idleTimeoutMillis;
+
+    /**
+     * 방마다 자기 버퍼의 잠금만 잡으므로 서로 다른 방의 append/latest 는 경쟁하지 않는다.
+     */
+    private final ConcurrentHashMap<String, RoomBuffer> rooms = new ConcurrentHashMap<>();
+
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /**
+     * 예산 초과 정리는 한 스레드만 한다.
+     */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter endedEvictions;
+    private Counter idleEvictions;
+    private Counter budgetEvictions;
+
+    public record RecentMessages(List<CachedMessage> messages, boolean hasMore) {
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        hits = Counter.builder("dentalchat.recent.cache.requests").tag("result", "hit")
+                .description("최근 메시지 캐시 조회 수").register(meterRegistry);
+        misses = Counter.builder("dentalchat.recent.cache.requests").tag("result", "miss")
+                .description("최근 메시지 캐시 조회 수").register(meterRegistry);
+        Gauge.builder("dentalchat.recent.cache.hit.ratio", this, RecentMessageCache::hitRatio)
+                .description("최근 메시지 캐시 적중률").register(meterRegistry);
+        Gauge.builder("dentalchat.recent.cache.miss.ratio", this, cache -> 1.0 - cache.hitRatio())
+                .description("최근 메시지 캐시 실패율").register(meterRegistry);
+        Gauge.builder("dentalchat.recent.cache.bytes", this, RecentMessageCache::getTotalBytes)
+                .baseUnit("bytes").description("캐시된 메시지의 추정 메모리 사용량").register(meterRegistry);
+        Gauge.builder("dentalchat.recent.cache.rooms", this, RecentMessageCache::getRoomCount)
+                .description("캐시된 채팅방 수").register(meterRegistry);
+        endedEvictions = evictionCounter("ended");
+        idleEvictions = evictionCounter("idle");
+        budgetEvictions = evictionCounter("budget");
+    }
+
+    /**
+     * 새 채팅방은 메시지가 없으므로 빈 버퍼가 곧 전체 이력이다.
+     */
+    @EventListener
+    public void onRoomCreated(ChatRoomCreatedEvent event) {
+        rooms.putIfAbsent(event.roomId(), new RoomBuffer(messagesPerRoom, true));
+    }
+
+    /**
+     * 종료가 커밋된 뒤에 비운다. 종료 안내 메시지는 그보다 먼저 등록된 커밋 후 작업에서 들어온다.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoomEnded(ChatRoomEndedEvent event) {
+        if (evict(event.roomId())) {
+            endedEvictions.increment();
+        }
+    }
+
+    /**
+     * 브로드캐스트된 메시지를 추가한다. 버퍼가 없던 방은 이전 이력을 모르는 상태(incomplete)로 시작한다.
+     */
+    public void append(String roomId, Long messageId, ChatMessage message) {
+        CachedMessage entry = new CachedMessage(messageId, message);
+        while (true) {
+            RoomBuffer buffer = rooms.computeIfAbsent(roomId, key -> new RoomBuffer(messagesPerRoom, false));
+            buffer.lock.lock();
+            try {
+                // 그 사이 제거되거나 교체된 버퍼면 새 버퍼로 다시 시도한다
+                if (!buffer.removed) {
+                    totalBytes.addAndGet(buffer.add(entry));
+                    break;
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+        evictOverBudget(roomId);
+    }
+
+    /**
+     * 가장 최근 limit 건을 반환한다. 버퍼만으로 답할 수 없으면 비어 있는 Optional 을 반환한다.
+     */
+    public Optional<RecentMessages> latest(String roomId, int limit) {
+        RoomBuffer buffer = rooms.get(roomId);
+        RecentMessages recent = null;
+        if (buffer != null) {
+            buffer.lock.lock();
+            try {
+                recent = buffer.latest(limit);
+                if (recent != null) {
+                    buffer.touch();
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        }
+        if (recent == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(recent);
+    }
+
+    /**
+     * DB 에서 읽은 최근 메시지(오래된 순)로 버퍼를 채운다. 그 사이 브로드캐스트로 버퍼가 생겼으면
+     * DB 에서 읽은 마지막 메시지 이후의 항목만 이어 붙인 새 버퍼로 교체한다.
+     */
+    public void prime(String roomId, List<CachedMessage> messages, boolean complete) {
+        RoomBuffer primed = new RoomBuffer(messagesPerRoom, complete);
+        for (CachedMessage message : messages) {
+            primed.add(message);
+        }
+        while (true) {
+            RoomBuffer existing = rooms.get(roomId);
+            if (existing == null) {
+                if (rooms.putIfAbsent(roomId, primed) == null) {
+                    totalBytes.addAndGet(primed.bytes);
+                    break;
+                }
+                continue;
+            }
+            existing.lock.lock();
+            try {
+                if (!existing.removed) {
+                    primed.addNewerThanLast(existing);
+                    if (rooms.replace(roomId, existing, primed)) {
+                        existing.removed = true;
+                        totalBytes.addAndGet(primed.bytes - existing.bytes);
+                        break;
+                    }
+                }
+            } finally {
+                existing.lock.unlock();
+            }
+        }
+        evictOverBudget(roomId);
+    }
+
+    public boolean evict(String roomId) {
+        RoomBuffer removed = rooms.remove(roomId);
+        if (removed == null) {
+            return false;
+        }
+        release(removed);
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${dental-chat.chat-room.recent-cache.idle-check-interval:60000}")
+    public void evictIdleRooms() {
+        long idleSince = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        int evicted = 0;
+
+        for (Map.Entry<String, RoomBuffer> entry : rooms.entrySet()) {
+            RoomBuffer buffer = entry.getValue();
+            if (buffer.lastAccessNanos - idleSince <= 0 && rooms.remove(entry.getKey(), buffer)) {
+                release(buffer);
+                evicted++;
+            }
+        }
+
+        if (evicted > 0) {
+            idleEvictions.increment(evicted);
+            logger.debug("유휴 채팅방 최근 메시지 캐시 제거: {} 개", evicted);
+        }
+    }
+
+    public long getTotalBytes() {
+        return totalBytes.get();
+    }
+
+    public int getRoomCount() {
+        return rooms.size();
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    /**
+     * 맵에서 뺀 버퍼를 닫고 사용량에서 뺀다. 닫힌 버퍼에 append 하던 스레드는 새 버퍼로 다시 시도한다.
+     */
+    private void release(RoomBuffer buffer) {
+        buffer.lock.lock();
+        try {
+            buffer.removed = true;
+            totalBytes.addAndGet(-buffer.bytes);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * 예산을 넘으면 가장 오래 사용되지 않은 방부터 제거한다. 방금 사용한 방은 남긴다.
+     * 예산을 넘었을 때만 전체 방을 훑으므로 평소 append 비용에는 영향이 없다.
+     */
+    private void evictOverBudget(String currentRoomId) {
+        if (totalBytes.get() <= maxBytes || !evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            while (totalBytes.get() > maxBytes) {
+                Map.Entry<String, RoomBuffer> oldest = null;
+                for (Map.Entry<String, RoomBuffer> entry : rooms.entrySet()) {
+                    if (!entry.getKey().equals(currentRoomId)
+                            && (oldest == null || entry.getValue().lastAccessNanos - oldest.getValue().lastAccessNanos < 0)) {
+                        oldest = entry;
+                    }
+                }
+                if (oldest == null) {
+                    return;
+                }
+                if (rooms.remove(oldest.getKey(), oldest.getValue())) {
+                    release(oldest.getValue());
+                    budgetEvictions.increment();
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private Counter evictionCounter(String cause) {
+        return Counter.builder("dentalchat.recent.cache.evictions").tag("cause", cause)
+                .description("최근 메시지 캐시에서 제거된 채팅방 수").register(meterRegistry);
+    }
+
+    private static long estimateBytes(CachedMessage entry) {
+        String content = entry.message().content();
+        return MESSAGE_OVERHEAD_BYTES + (content != null ? content.length() * 2L : 0);
+    }
+
+    /**
+     * 고정 크기 링 버퍼. 메시지 id 오름차순으로 쌓이며, 읽고 쓸 때는 {@link #lock} 을 잡는다.
+     */
+    private static final class RoomBuffer {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final CachedMessage[] ring;
+
+        private int head;
+
+        private int size;
+
+        /**
+         * true 면 버퍼가 한 번도 넘치지 않았고 채팅방의 모든 메시지를 담고 있다.
+         */
+        private boolean complete;
+
+        /**
+         * 맵에서 빠진 버퍼. 더 이상 쓰지 않는다.
+         */
+        private boolean removed;
+
+        private long bytes;
+
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        private RoomBuffer(int capacity, boolean complete) {
+            this.ring = new CachedMessage[capacity];
+            this.complete = complete;
+        }
+
+        /**
+         * @return 추정 메모리 사용량 변화량
+         */
+        private long add(CachedMessage entry) {
+            touch();
+            CachedMessage last = last();
+            if (last != null && entry.id() <= last.id()) {
+                // 이미 담긴 메시지이거나 순서가 어긋난 메시지. 끼워 넣지 않고 비워서 다음 조회 때 DB 로 다시 채운다.
+                long delta = -bytes;
+                Arrays.fill(ring, null);
+                head = 0;
+                size = 0;
+                complete = false;
+                bytes = 0;
+                return delta;
+            }
+
+            long delta = estimateBytes(entry);
+            int tail = (head + size) % ring.length;
+            if (size == ring.length) {
+                delta -= estimateBytes(ring[head]);
+                ring[head] = entry;
+                head = (head + 1) % ring.length;
+                complete = false;
+            } else {
+                ring[tail] = entry;
+                size++;
+            }
+            bytes += delta;
+            return delta;
+        }
+
+        /**
+         * other 버퍼에서 이 버퍼의 마지막 메시지보다 새로운 항목만 이어 붙인다.
+         */
+        private void addNewerThanLast(RoomBuffer other) {
+            CachedMessage last = last();
+            for (int i = 0; i < other.size; i++) {
+                CachedMessage entry = other.ring[(other.head + i) % other.ring.length];
+                if (last == null || entry.id() > last.id()) {
+                    add(entry);
+                }
+            }
+        }
+
+        private CachedMessage last() {
+            return size == 0 ? null : ring[(head + size - 1) % ring.length];
+        }
+
+        private RecentMessages latest(int limit) {
+            if (complete && size <= limit) {
+                return new RecentMessages(copy(0, size), false);
+            }
+            if (size >= limit) {
+                // 버퍼 밖에 더 이전 메시지가 있을 수 있다
+                return new RecentMessages(copy(size - limit, limit), true);
+            }
+            return null;
+        }
+
+        private List<CachedMessage> copy(int offset, int count) {
+            List<CachedMessage> result = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                result.add(ring[(head + offset + i) % ring.length]);
+            }
+            return result;
+        }
+
+        private void touch() {
+            lastAccessNanos = System.nanoTime();
+        }
+    }
+}
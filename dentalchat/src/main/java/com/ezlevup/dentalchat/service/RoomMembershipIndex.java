@@ -0,0 +1,116 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.RoomMemberRow;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 종료되지 않은 채팅방별 참여자(고객, 상담원) 인덱스.
+ * 채팅방 생성, 상담원 배정, 종료 시 갱신되며 STOMP 프레임마다 하는 참여자 확인을 DB 조회 없이 O(1) 에 처리한다.
+ * 이 노드가 모르는 방이거나 아직 상담원이 없는 방에 참여자가 아닌 사용자가 접근하면, 재시작 직후이거나
+ * 다른 노드에서 만들어지고 배정되었을 수 있으므로 그때만 DB 에서 다시 읽는다.
+ * 거부 경로가 DB 부하가 되지 않도록 같은 방은 recheck-interval 에 한 번만 읽고(없는 방도 기억한다),
+ * 노드 전체의 조회도 초당 max-loads-per-second 번으로 제한해서 넘으면 조회 없이 거부한다.
+ * 그래서 다른 노드에서 방금 만들어지거나 배정된 방은 최대 recheck-interval 만큼 늦게 허용될 수 있다.
+ */
+@Component
+public class RoomMembershipIndex {
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Value("${dental-chat.chat-room.membership.recheck-interval:5000}")
+    private long recheckIntervalMillis = 5000;
+
+    @Value("${dental-chat.chat-room.membership.max-loads-per-second:50}")
+    private int maxLoadsPerSecond = 50;
+
+    private final ConcurrentHashMap<String, RoomMembers> rooms = new ConcurrentHashMap<>();
+
+    // roomId 별 마지막 DB 조회 시각. 지어낸 roomId 로 커지지 않도록 크기를 제한한다
+    private final Cache<String, Long> lastLoads = Caffeine.newBuilder()
+            .maximumSize(100_000)
+            .build();
+
+    private long loadWindowStart;
+
+    private int loadsInWindow;
+
+    private record RoomMembers(String customer, String admin) {
+
+        private boolean contains(String username) {
+            return username.equals(customer) || username.equals(admin);
+        }
+    }
+
+    public void onRoomCreated(String roomId, String customerUsername) {
+        rooms.put(roomId, new RoomMembers(customerUsername, null));
+    }
+
+    /**
+     * 인덱스에 없는 방이면 다음 확인 때 DB 에서 고객까지 함께 읽으므로 그대로 둔다.
+     */
+    public void onAdminAssigned(String roomId, String adminUsername) {
+        rooms.computeIfPresent(roomId, (id, members) -> new RoomMembers(members.customer(), adminUsername));
+    }
+
+    public void onRoomEnded(String roomId) {
+        rooms.remove(roomId);
+    }
+
+    public boolean isMember(String roomId, String username) {
+        if (roomId == null || username == null) {
+            return false;
+        }
+        RoomMembers members = rooms.get(roomId);
+        if (members != null && (members.contains(username) || members.admin() != null)) {
+            return members.contains(username);
+        }
+        if (!tryAcquireLoad(roomId)) {
+            return false;
+        }
+        members = load(roomId);
+        return members != null && members.contains(username);
+    }
+
+    public int size() {
+        return rooms.size();
+    }
+
+    private boolean tryAcquireLoad(String roomId) {
+        long now = System.currentTimeMillis();
+        Long lastLoad = lastLoads.getIfPresent(roomId);
+        if (lastLoad != null && now - lastLoad < recheckIntervalMillis) {
+            return false;
+        }
+        synchronized (this) {
+            if (now - loadWindowStart >= 1000) {
+                loadWindowStart = now;
+                loadsInWindow = 0;
+            }
+            if (loadsInWindow >= maxLoadsPerSecond) {
+                return false;
+            }
+            loadsInWindow++;
+        }
+        lastLoads.put(roomId, now);
+        return true;
+    }
+
+    private RoomMembers load(String roomId) {
+        RoomMemberRow row = chatRoomRepository.findOpenRoomMembers(roomId).orElse(null);
+        if (row == null) {
+            rooms.remove(roomId);
+            return null;
+        }
+        RoomMembers members = new RoomMembers(row.customerUsername(), row.adminUsername());
+        rooms.put(roomId, members);
+        return members;
+    }
+}
@@ -0,0 +1,122 @@
+package com.ezlevup.dentalchat.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 상담 세션 만료 시각 관리.
+ * 세션마다 최대 상담 시간(시작 + session-timeout)과 유휴 만료(마지막 메시지 + idle-timeout) 중 이른 시각을
+ * {@link TimingWheel} 에 등록하고, 메시지가 오갈 때마다 유휴 만료를 뒤로 민다.
+ */
+@Component
+public class SessionExpiryTracker {
+
+    @Value("${dental-chat.chat-room.session-timeout:1800000}")
+    private long sessionTimeoutMillis = 1_800_000;
+
+    @Value("${dental-chat.chat-room.auto-close-idle-time:1800000}")
+    private long idleTimeoutMillis = 1_800_000;
+
+    @Value("${dental-chat.chat-room.expiry-tick:1000}")
+    private long tickMillis = 1_000;
+
+    private final ConcurrentHashMap<String, LocalDateTime> sessionStartTimes = new ConcurrentHashMap<>();
+
+    private TimingWheel<String> wheel;
+
+    @PostConstruct
+    void init() {
+        // 1초 tick 기준 64칸 x 4레벨이면 약 194일까지 한 바퀴 안에 들어간다
+        wheel = new TimingWheel<>(tickMillis, 64, 4, System.currentTimeMillis());
+    }
+
+    public void start(String roomId, LocalDateTime startTime) {
+        sessionStartTimes.put(roomId, startTime);
+        wheel.schedule(roomId, deadline(startTime, toEpochMillis(startTime)));
+    }
+
+    /**
+     * 재시작 전에 시작된 세션을 다시 등록한다. 마지막 메시지 시각은 알 수 없으므로 유휴 만료는 지금부터 센다.
+     * 최대 상담 시간이 이미 지난 세션은 다음 {@link #pollExpired()} 에서 만료된다.
+     */
+    public void restore(String roomId, LocalDateTime startTime) {
+        sessionStartTimes.put(roomId, startTime);
+        wheel.schedule(roomId, deadline(startTime, System.currentTimeMillis()));
+    }
+
+    /**
+     * 메시지가 오간 세션의 유휴 만료를 지금부터 다시 센다.
+     */
+    public void touch(String roomId) {
+        LocalDateTime startTime = sessionStartTimes.get(roomId);
+        if (startTime != null) {
+            wheel.schedule(roomId, deadline(startTime, System.currentTimeMillis()));
+        }
+    }
+
+    public Optional<LocalDateTime> stop(String roomId) {
+        wheel.cancel(roomId);
+        return Optional.ofNullable(sessionStartTimes.remove(roomId));
+    }
+
+    public Optional<LocalDateTime> getStartTime(String roomId) {
+        return Optional.ofNullable(sessionStartTimes.get(roomId));
+    }
+
+    public boolean isOverSessionTimeout(String roomId) {
+        LocalDateTime startTime = sessionStartTimes.get(roomId);
+        return startTime != null
+                && Duration.between(startTime, LocalDateTime.now()).toMillis() >= sessionTimeoutMillis;
+    }
+
+    /**
+     * 지금까지 만료된 세션의 roomId 와 시작 시각. 반환된 세션은 더 이상 추적하지 않으므로
+     * 상담 시간은 호출한 쪽이 이 시작 시각으로 기록한다. 시작 시각을 모르는 세션은 값이 null 이다.
+     */
+    public Map<String, LocalDateTime> pollExpired() {
+        List<String> roomIds = wheel.advance(System.currentTimeMillis());
+        Map<String, LocalDateTime> expired = new LinkedHashMap<>(roomIds.size() * 2);
+        for (String roomId : roomIds) {
+            expired.put(roomId, sessionStartTimes.remove(roomId));
+        }
+        return expired;
+    }
+
+    /**
+     * {@link #pollExpired()} 로 받았지만 종료하지 못한 세션을 다음 tick 에 다시 만료되도록 되돌린다.
+     * 그 사이 다시 시작된 세션은 건드리지 않는다.
+     */
+    public void requeue(Map<String, LocalDateTime> expired) {
+        long nextTick = System.currentTimeMillis() + tickMillis;
+        expired.forEach((roomId, startTime) -> {
+            boolean restarted = startTime != null
+                    ? sessionStartTimes.putIfAbsent(roomId, startTime) != null
+                    : sessionStartTimes.containsKey(roomId);
+            if (!restarted) {
+                wheel.schedule(roomId, nextTick);
+            }
+        });
+    }
+
+    public int getTrackedCount() {
+        return wheel.size();
+    }
+
+    private long deadline(LocalDateTime startTime, long lastActivityMillis) {
+        return Math.min(toEpochMillis(startTime) + sessionTimeoutMillis, lastActivityMillis + idleTimeoutMillis);
+    }
+
+    private long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
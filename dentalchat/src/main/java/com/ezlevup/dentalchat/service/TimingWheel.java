@@ -0,0 +1,238 @@
+package com.ezlevup.dentalchat.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 계층형 타이밍 휠.
+ * 레벨마다 slotsPerLevel 개의 버킷이 있고, 위 레벨의 한 칸은 아래 레벨 한 바퀴에 해당한다.
+ * 타이머는 현재 시각과 처음 자릿수가 달라지는 레벨의 버킷에 들어가고, 시계가 그 칸에 도달하면 아래 레벨로 내려온다.
+ * 등록, 취소, 재등록은 키로 찾은 노드를 버킷의 이중 연결 리스트에서 떼고 붙이기만 하므로 O(1) 이다.
+ * 만료는 deadline 이 속한 tick 이 지나는 {@link #advance(long)} 호출에서 최대 한 tick 늦게 보고된다.
+ */
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+
+    private final int bitsPerLevel;
+
+    private final int mask;
+
+    private final Bucket<K>[][] levels;
+
+    private final Map<K, Timer<K>> timers = new HashMap<>();
+
+    private final List<K> dueNow = new ArrayList<>();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long currentTick;
+
+    private static final class Timer<K> {
+        private final K key;
+        private final long expiryTick;
+        private Bucket<K> bucket;
+        private Timer<K> prev;
+        private Timer<K> next;
+
+        private Timer(K key, long expiryTick) {
+            this.key = key;
+            this.expiryTick = expiryTick;
+        }
+    }
+
+    private static final class Bucket<K> {
+        private Timer<K> head;
+
+        private void add(Timer<K> timer) {
+            timer.bucket = this;
+            timer.prev = null;
+            timer.next = head;
+            if (head != null) {
+                head.prev = timer;
+            }
+            head = timer;
+        }
+
+        private void remove(Timer<K> timer) {
+            if (timer.prev != null) {
+                timer.prev.next = timer.next;
+            } else {
+                head = timer.next;
+            }
+            if (timer.next != null) {
+                timer.next.prev = timer.prev;
+            }
+            timer.bucket = null;
+            timer.prev = null;
+            timer.next = null;
+        }
+
+        private Timer<K> drain() {
+            Timer<K> drained = head;
+            head = null;
+            return drained;
+        }
+    }
+
+    /**
+     * @param tickMillis    한 칸의 길이 (만료 정밀도)
+     * @param slotsPerLevel 레벨당 칸 수 (2의 거듭제곱)
+     * @param levelCount    레벨 수. tickMillis * slotsPerLevel^levelCount 를 넘는 deadline 은 맨 위 레벨을 여러 번 돈다.
+     * @param startMillis   휠의 시작 시각
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int slotsPerLevel, int levelCount, long startMillis) {
+        if (tickMillis <= 0 || levelCount <= 0 || slotsPerLevel < 2 || Integer.bitCount(slotsPerLevel) != 1) {
+            throw new IllegalArgumentException("tickMillis and levelCount must be positive, slotsPerLevel a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.bitsPerLevel = Integer.numberOfTrailingZeros(slotsPerLevel);
+        this.mask = slotsPerLevel - 1;
+        this.levels = new Bucket[levelCount][slotsPerLevel];
+        for (Bucket<K>[] level : levels) {
+            for (int i = 0; i < slotsPerLevel; i++) {
+                level[i] = new Bucket<>();
+            }
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 키의 만료 시각을 등록한다. 이미 등록된 키면 기존 타이머를 취소하고 새 deadline 으로 바꾼다.
+     */
+    public void schedule(K key, long deadlineMillis) {
+        lock.lock();
+        try {
+            removeTimer(timers.remove(key));
+            Timer<K> timer = new Timer<>(key, Math.ceilDiv(deadlineMillis, tickMillis));
+            timers.put(key, timer);
+            place(timer);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean cancel(K key) {
+        lock.lock();
+        try {
+            Timer<K> timer = timers.remove(key);
+            removeTimer(timer);
+            return timer != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(K key) {
+        lock.lock();
+        try {
+            return timers.containsKey(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return timers.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 시계를 nowMillis 까지 진행하고 그 사이 만료된 키를 반환한다. 반환된 키는 휠에서 빠진다.
+     */
+    public List<K> advance(long nowMillis) {
+        lock.lock();
+        try {
+            List<K> expired = new ArrayList<>();
+            long targetTick = nowMillis / tickMillis;
+            while (currentTick < targetTick) {
+                currentTick++;
+                cascade();
+                Timer<K> timer = levels[0][(int) (currentTick & mask)].drain();
+                while (timer != null) {
+                    Timer<K> next = timer.next;
+                    timer.bucket = null;
+                    if (timer.expiryTick <= currentTick) {
+                        expired.add(timer.key);
+                    } else {
+                        // 레벨이 하나뿐인 휠에서 범위를 넘는 타이머
+                        place(timer);
+                    }
+                    timer = next;
+                }
+            }
+
+            // 등록 시점에 이미 지났거나, 위 레벨에서 내려오며 바로 만료된 타이머
+            expired.addAll(dueNow);
+            dueNow.clear();
+            for (K key : expired) {
+                timers.remove(key);
+            }
+            return expired;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 시계가 위 레벨의 칸 경계를 넘었으면 그 칸의 타이머를 다시 배치해 아래 레벨로 내린다. 위 레벨부터 처리한다.
+     */
+    private void cascade() {
+        for (int level = levels.length - 1; level > 0; level--) {
+            int shift = level * bitsPerLevel;
+            if ((currentTick & ((1L << shift) - 1)) != 0) {
+                continue;
+            }
+            Timer<K> timer = levels[level][(int) ((currentTick >>> shift) & mask)].drain();
+            while (timer != null) {
+                Timer<K> next = timer.next;
+                timer.bucket = null;
+                place(timer);
+                timer = next;
+            }
+        }
+    }
+
+    private void place(Timer<K> timer) {
+        if (timer.expiryTick <= currentTick) {
+            dueNow.add(timer.key);
+            return;
+        }
+
+        // 현재 tick 과 자릿수가 처음 달라지는 레벨에 넣는다
+        int top = levels.length - 1;
+        int level = 0;
+        while (level < top && (timer.expiryTick >>> ((level + 1) * bitsPerLevel)) != (currentTick >>> ((level + 1) * bitsPerLevel))) {
+            level++;
+        }
+
+        int shift = level * bitsPerLevel;
+        long slot;
+        if (level == top && (timer.expiryTick >>> shift) - (currentTick >>> shift) > mask) {
+            // 휠 범위를 넘는 타이머는 맨 위 레벨 한 바퀴 뒤의 칸에 두었다가 다시 배치한다
+            slot = ((currentTick >>> shift) - 1) & mask;
+        } else {
+            slot = (timer.expiryTick >>> shift) & mask;
+        }
+        levels[level][(int) slot].add(timer);
+    }
+
+    private void removeTimer(Timer<K> timer) {
+        if (timer == null) {
+            return;
+        }
+        if (timer.bucket != null) {
+            timer.bucket.remove(timer);
+        } else {
+            dueNow.remove(timer.key);
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.ChatHistoryRow;
+import com.ezlevup.dentalchat.entity.ArchivedRoom;
+import com.ezlevup.dentalchat.entity.Message;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.ArchivedRoomRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 종료된 상담의 메시지를 보관하는 append-only 세그먼트 파일 저장소.
+ * 채팅방 하나의 메시지가 Deflate 로 압축된 블록 하나가 되고, 블록 위치는 archived_rooms 에 남는다(채팅방별 offset 인덱스).
+ * 세그먼트가 segment-max-bytes 를 넘으면 다음 번호의 파일로 넘어가며, 한 번 쓴 블록은 바뀌지 않는다.
+ * 읽을 때는 세그먼트를 읽기 전용으로 메모리 매핑해서 블록만 잘라 푼다.
+ *
+ * <pre>블록: magic(4) | 원본 길이(4) | 압축 길이(4) | CRC32(4) | 압축 데이터</pre>
+ */
+@Component
+public class TranscriptArchive {
+
+    private static final Logger logger = LoggerFactory.getLogger(TranscriptArchive.class);
+
+    private static final int BLOCK_MAGIC = 0x44434152;
+
+    private static final int HEADER_BYTES = 16;
+
+    private static final Pattern SEGMENT_FILE = Pattern.compile("segment-(\\d{8})\\.dat");
+
+    @Autowired
+    private ArchivedRoomRepository archivedRoomRepository;
+
+    @Value("${dental-chat.archive.directory:./data/archive}")
+    private String archiveDirectory;
+
+    @Value("${dental-chat.archive.segment-max-bytes:67108864}")
+    private long segmentMaxBytes;
+
+    /** 세그먼트 번호별 매핑. 쓰는 중인 세그먼트는 매핑보다 뒤에 있는 블록을 읽을 때 다시 매핑한다. */
+    private final ConcurrentHashMap<Integer, MappedByteBuffer> mappedSegments = new ConcurrentHashMap<>();
+
+    private Path directory;
+
+    private FileChannel activeChannel;
+
+    private int activeSegmentNo;
+
+    public record BlockLocation(int segmentNo, long offset, int length, int rawLength) {
+    }
+
+    @PostConstruct
+    void init() {
+        directory = Path.of(archiveDirectory);
+    }
+
+    /**
+     * 채팅방의 메시지를 쓰는 중인 세그먼트 끝에 블록 하나로 붙인다. 디스크 반영은 {@link #force()} 로 한다.
+     */
+    public synchronized BlockLocation append(String roomId, List<ChatHistoryRow> rows) {
+        try {
+            byte[] raw = encode(roomId, rows);
+            byte[] compressed = compress(raw);
+            CRC32 crc = new CRC32();
+            crc.update(compressed);
+
+            ByteBuffer block = ByteBuffer.allocate(HEADER_BYTES + compressed.length)
+                    .putInt(BLOCK_MAGIC)
+                    .putInt(raw.length)
+                    .putInt(compressed.length)
+                    .putInt((int) crc.getValue())
+                    .put(compressed)
+                    .flip();
+
+            FileChannel channel = channelFor(block.remaining());
+            long offset = channel.size();
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+            return new BlockLocation(activeSegmentNo, offset, HEADER_BYTES + compressed.length, raw.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("메시지 보관 블록을 쓰지 못했습니다: " + roomId, e);
+        }
+    }
+
+    public synchronized void force() {
+        if (activeChannel == null) {
+            return;
+        }
+        try {
+            activeChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("세그먼트 파일을 디스크에 반영하지 못했습니다.", e);
+        }
+    }
+
+    /**
+     * 보관된 채팅방의 메시지를 보낸 순서대로 돌려준다. 보관되지 않은 방이면 빈 목록이다.
+     */
+    public List<ChatHistoryRow> findHistory(String roomId) {
+        return archivedRoomRepository.findByRoomId(roomId)
+                .map(archivedRoom -> read(roomId, archivedRoom))
+                .orElse(List.of());
+    }
+
+    /**
+     * {@code MessageRepository.findHistoryBefore} 와 같은 결과(beforeMessageId 이전 메시지를 최신 순으로 limit 건)를 보관 블록에서 만든다.
+     */
+    public List<ChatHistoryRow> findHistoryBefore(String roomId, long beforeMessageId, int limit) {
+        return findHistory(roomId).stream()
+                .filter(row -> row.id() < beforeMessageId)
+                .sorted(Comparator.comparing(ChatHistoryRow::id).reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * 세그먼트 파일을 지운다. 쓰는 중인 세그먼트면 다음 세그먼트로 넘어간 뒤 지운다.
+     * 매핑은 GC 될 때 풀리므로 이미 읽고 있던 블록은 끝까지 읽힌다 (Linux 기준).
+     */
+    public synchronized void deleteSegment(int segmentNo) {
+        try {
+            if (activeChannel != null && segmentNo == activeSegmentNo) {
+                activeChannel.close();
+                activeChannel = null;
+                activeSegmentNo++;
+            }
+            mappedSegments.remove(segmentNo);
+            Files.deleteIfExists(segmentPath(segmentNo));
+        } catch (IOException e) {
+            throw new UncheckedIOException("세그먼트 파일을 지우지 못했습니다: " + segmentNo, e);
+        }
+    }
+
+    /**
+     * 디스크에 있는 세그먼트 파일 크기의 합.
+     */
+    public long getTotalBytes() {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> SEGMENT_FILE.matcher(path.getFileName().toString()).matches())
+                    .mapToLong(path -> path.toFile().length())
+                    .sum();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            activeChannel.close();
+            activeChannel = null;
+        }
+        mappedSegments.clear();
+    }
+
+    private List<ChatHistoryRow> read(String roomId, ArchivedRoom archivedRoom) {
+        try {
+            ByteBuffer block = block(archivedRoom.getSegmentNo(), archivedRoom.getSegmentOffset(), archivedRoom.getBlockLength());
+            if (block.getInt(0) != BLOCK_MAGIC) {
+                throw new IOException("블록 시작이 아닙니다");
+            }
+            int rawLength = block.getInt(4);
+            int compressedLength = block.getInt(8);
+            ByteBuffer compressed = block.slice(HEADER_BYTES, compressedLength);
+            CRC32 crc = new CRC32();
+            crc.update(compressed.duplicate());
+            if ((int) crc.getValue() != block.getInt(12)) {
+                throw new IOException("CRC 가 맞지 않습니다");
+            }
+            return decode(roomId, decompress(compressed, rawLength));
+        } catch (IOException | DataFormatException e) {
+            throw new IllegalStateException("보관된 메시지를 읽지 못했습니다: roomId=" + roomId
+                    + ", segment=" + archivedRoom.getSegmentNo() + ", offset=" + archivedRoom.getSegmentOffset(), e);
+        }
+    }
+
+    private ByteBuffer block(int segmentNo, long offset, int length) throws IOException {
+        MappedByteBuffer mapped = mappedSegments.get(segmentNo);
+        if (mapped == null || mapped.capacity() < offset + length) {
+            try (FileChannel channel = FileChannel.open(segmentPath(segmentNo), StandardOpenOption.READ)) {
+                mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            mappedSegments.put(segmentNo, mapped);
+        }
+        return mapped.slice((int) offset, length);
+    }
+
+    /**
+     * 쓰는 중인 세그먼트를 연다. 처음이면 디렉터리에서 가장 큰 번호의 세그먼트를 이어서 쓰고,
+     * 블록을 붙이면 segment-max-bytes 를 넘는 경우 다음 세그먼트로 넘어간다.
+     */
+    private FileChannel channelFor(int blockLength) throws IOException {
+        if (activeChannel == null) {
+            if (activeSegmentNo == 0) {
+                Files.createDirectories(directory);
+                activeSegmentNo = Math.max(lastSegmentNo(), 1);
+            }
+            activeChannel = open(activeSegmentNo);
+        }
+        if (activeChannel.size() > 0 && activeChannel.size() + blockLength > segmentMaxBytes) {
+            activeChannel.close();
+            activeSegmentNo++;
+            activeChannel = open(activeSegmentNo);
+            logger.info("새 메시지 보관 세그먼트 시작: {}", segmentPath(activeSegmentNo));
+        }
+        return activeChannel;
+    }
+
+    private FileChannel open(int segmentNo) throws IOException {
+        return FileChannel.open(segmentPath(segmentNo), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private int lastSegmentNo() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_FILE.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .mapToInt(matcher -> Integer.parseInt(matcher.group(1)))
+                    .max()
+                    .orElse(0);
+        }
+    }
+
+    private Path segmentPath(int segmentNo) {
+        return directory.resolve(String.format("segment-%08d.dat", segmentNo));
+    }
+
+    private static byte[] encode(String roomId, List<ChatHistoryRow> rows) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(rows.size() * 64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeUTF(roomId);
+        out.writeInt(rows.size());
+        for (ChatHistoryRow row : rows) {
+            out.writeLong(row.id());
+            out.writeUTF(row.messageType().name());
+            out.writeBoolean(row.senderUsername() != null);
+            if (row.senderUsername() != null) {
+                out.writeUTF(row.senderUsername());
+                out.writeUTF(row.senderType().name());
+            }
+            out.writeLong(row.sentAt().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(row.sentAt().getNano());
+            byte[] content = row.content().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(content.length);
+            out.write(content);
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private static List<ChatHistoryRow> decode(String roomId, byte[] raw) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+        String blockRoomId = in.readUTF();
+        if (!blockRoomId.equals(roomId)) {
+            throw new IOException("다른 채팅방의 블록입니다: " + blockRoomId);
+        }
+        int count = in.readInt();
+        List<ChatHistoryRow> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = in.readLong();
+            Message.MessageType messageType = Message.MessageType.valueOf(in.readUTF());
+            String senderUsername = null;
+            User.UserType senderType = null;
+            if (in.readBoolean()) {
+                senderUsername = in.readUTF();
+                senderType = User.UserType.valueOf(in.readUTF());
+            }
+            LocalDateTime sentAt = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+            String content = new String(in.readNBytes(in.readInt()), StandardCharsets.UTF_8);
+            rows.add(new ChatHistoryRow(id, content, senderUsername, senderType, messageType, sentAt, roomId));
+        }
+        return rows;
+    }
+
+    private static byte[] compress(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] decompress(ByteBuffer compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int read = 0;
+            while (read < rawLength && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, rawLength - read);
+                if (n == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("압축 데이터가 잘렸습니다");
+                }
+                read += n;
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+}
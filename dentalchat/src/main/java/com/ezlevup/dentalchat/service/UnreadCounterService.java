@@ -0,0 +1,173 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.UnreadCountRow;
+import com.ezlevup.dentalchat.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅방/참여자별 안 읽은 메시지 수를 메모리에서 관리한다.
+ * 메시지가 들어오면 발신자를 제외한 참여자의 카운터를 올리고, 읽음 처리 시 0 으로 되돌린다.
+ * 기동 시 DB 에서 다시 만들고, 주기적으로 DB 집계와 비교해 어긋난 카운터를 바로잡는다.
+ */
+@Service
+public class UnreadCounterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UnreadCounterService.class);
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageBatchWriter messageBatchWriter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${dental-chat.unread.reconcile-flush-timeout:5000}")
+    private long reconcileFlushTimeoutMillis;
+
+    private final ConcurrentHashMap<Participant, UnreadCount> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 카운터를 바꿀 때마다 증가한다. 대조 도중 바뀐 카운터를 DB 값으로 덮어쓰지 않기 위해 사용한다.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    private Counter corrections;
+
+    private record Participant(String roomId, Long userId) {
+    }
+
+    private record UnreadCount(long count, long version) {
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        corrections = Counter.builder("dentalchat.unread.reconcile.corrections")
+                .description("대조 작업에서 DB 값으로 바로잡은 카운터 수")
+                .register(meterRegistry);
+        meterRegistry.gauge("dentalchat.unread.counters", counters, Map::size);
+    }
+
+    /**
+     * 발신자를 제외한 참여자의 카운터를 1 올린다. senderId 가 null 이면 시스템 메시지로 모든 참여자에게 센다.
+     */
+    public void onMessage(String roomId, Long senderId, Long customerId, Long adminId) {
+        if (customerId != null && !customerId.equals(senderId)) {
+            increment(new Participant(roomId, customerId));
+        }
+        if (adminId != null && !adminId.equals(senderId)) {
+            increment(new Participant(roomId, adminId));
+        }
+    }
+
+    public void reset(String roomId, Long userId) {
+        counters.put(new Participant(roomId, userId), new UnreadCount(0, version.incrementAndGet()));
+    }
+
+    public long getUnreadCount(String roomId, Long userId) {
+        UnreadCount unread = counters.get(new Participant(roomId, userId));
+        return unread != null ? unread.count() : 0;
+    }
+
+    /**
+     * 여러 채팅방의 안 읽은 메시지 수를 한 번에 조회한다. 카운터가 없는 방은 0 이다.
+     */
+    public Map<String, Long> getUnreadCounts(Long userId, Collection<String> roomIds) {
+        Map<String, Long> result = new HashMap<>(roomIds.size() * 2);
+        for (String roomId : roomIds) {
+            result.put(roomId, getUnreadCount(roomId, userId));
+        }
+        return result;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<UnreadCountRow> rows = messageRepository.countUnreadByParticipant();
+        long rebuiltVersion = version.incrementAndGet();
+
+        counters.clear();
+        for (UnreadCountRow row : rows) {
+            counters.put(new Participant(row.roomId(), row.userId()), new UnreadCount(row.unreadCount(), rebuiltVersion));
+        }
+        logger.info("안 읽은 메시지 카운터 재구성 완료: {} 건", counters.size());
+    }
+
+    /**
+     * DB 집계와 메모리 카운터를 비교해서 어긋난 값을 바로잡는다.
+     * 저장 버퍼를 먼저 비운 뒤 집계하고, 집계 이후 변경된 카운터는 다음 대조로 미룬다.
+     */
+    @Scheduled(fixedDelayString = "${dental-chat.unread.reconcile-interval:300000}",
+               initialDelayString = "${dental-chat.unread.reconcile-interval:300000}")
+    public int reconcile() {
+        long snapshotVersion = version.get();
+        if (!messageBatchWriter.awaitFlush(reconcileFlushTimeoutMillis)) {
+            logger.warn("저장 버퍼가 비워지지 않아 안 읽은 메시지 카운터 대조를 건너뜁니다.");
+            return 0;
+        }
+
+        Map<Participant, Long> expected = new HashMap<>();
+        for (UnreadCountRow row : messageRepository.countUnreadByParticipant()) {
+            expected.put(new Participant(row.roomId(), row.userId()), row.unreadCount());
+        }
+
+        int corrected = 0;
+        for (Map.Entry<Participant, Long> entry : expected.entrySet()) {
+            if (correct(entry.getKey(), entry.getValue(), snapshotVersion)) {
+                corrected++;
+            }
+        }
+        // DB 에 없는 카운터(종료된 방, 모두 읽은 방)는 0 이어야 한다
+        for (Participant participant : counters.keySet()) {
+            if (!expected.containsKey(participant) && correct(participant, 0L, snapshotVersion)) {
+                corrected++;
+            }
+        }
+
+        if (corrected > 0) {
+            corrections.increment(corrected);
+            logger.warn("안 읽은 메시지 카운터 대조: {} 건 보정", corrected);
+        } else {
+            logger.debug("안 읽은 메시지 카운터 대조: 불일치 없음");
+        }
+        return corrected;
+    }
+
+    private boolean correct(Participant participant, long expectedCount, long snapshotVersion) {
+        boolean[] changed = new boolean[1];
+        counters.compute(participant, (key, current) -> {
+            if (current != null && current.version() > snapshotVersion) {
+                return current;
+            }
+            long currentCount = current != null ? current.count() : 0;
+            if (currentCount == expectedCount) {
+                return expectedCount == 0 ? null : current;
+            }
+            changed[0] = true;
+            return expectedCount == 0 ? null : new UnreadCount(expectedCount, version.incrementAndGet());
+        });
+        return changed[0];
+    }
+
+    private void increment(Participant participant) {
+        counters.merge(participant, new UnreadCount(1, version.incrementAndGet()),
+                (current, one) -> new UnreadCount(current.count() + 1, one.version()));
+    }
+}
@@ -1,15 +1,21 @@
 package com.ezlevup.dentalchat.service;
 
+import com.ezlevup.dentalchat.entity.ConsultationType;
 import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.event.AdminStatusChangedEvent;
 import com.ezlevup.dentalchat.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
+import java.util.Set;
 
 @Service
 @Transactional
@@ -18,8 +24,20 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AdminLoadIndex adminLoadIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private IdentityCache identityCache;
+
     public User createCustomer(String nickname) {
-        String username = "customer_" + UUID.randomUUID().toString().substring(0, 8);
+        String username = idGenerator.nextKey("customer_");
         
         User customer = new User();
         customer.setUsername(username);
@@ -27,10 +45,19 @@ public class UserService {
         customer.setUserType(User.UserType.CUSTOMER);
         customer.setStatus(User.UserStatus.ONLINE);
         
-        return userRepository.save(customer);
+        User savedCustomer = userRepository.save(customer);
+        identityCache.evictUser(username);
+        return savedCustomer;
     }
 
     public User createAdmin(String username, String nickname) {
+        return createAdmin(username, nickname, Set.of());
+    }
+
+    /**
+     * 담당 분야가 비어 있으면 모든 분야를 맡는 상담원이 된다.
+     */
+    public User createAdmin(String username, String nickname, Set<ConsultationType> skills) {
         if (userRepository.existsByUsername(username)) {
             throw new IllegalArgumentException("이미 존재하는 사용자명입니다.");
         }
@@ -40,8 +67,17 @@ public class UserService {
         admin.setNickname(nickname);
         admin.setUserType(User.UserType.ADMIN);
         admin.setStatus(User.UserStatus.ONLINE);
+        admin.setSkills(skills.isEmpty() ? EnumSet.noneOf(ConsultationType.class) : EnumSet.copyOf(skills));
         
-        return userRepository.save(admin);
+        User savedAdmin = userRepository.save(admin);
+        identityCache.evictUser(username);
+        Long adminId = savedAdmin.getId();
+        afterCommit(() -> {
+            adminLoadIndex.updateSkills(adminId, skills);
+            adminLoadIndex.updateStatus(adminId, true);
+        });
+        eventPublisher.publishEvent(new AdminStatusChangedEvent(savedAdmin.getId(), true));
+        return savedAdmin;
     }
 
     @Transactional(readOnly = true)
@@ -61,7 +97,31 @@ public class UserService {
         user.setStatus(status);
         user.setLastSeen(LocalDateTime.now());
         
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        if (savedUser.getUserType() == User.UserType.ADMIN) {
+            Long adminId = savedUser.getId();
+            afterCommit(() -> adminLoadIndex.updateStatus(adminId, status == User.UserStatus.ONLINE));
+            eventPublisher.publishEvent(new AdminStatusChangedEvent(savedUser.getId(), status == User.UserStatus.ONLINE));
+        }
+        return savedUser;
+    }
+
+    public User updateAdminSkills(String username, Set<ConsultationType> skills) {
+        User admin = userRepository.findByUsername(username)
+                .filter(user -> user.getUserType() == User.UserType.ADMIN)
+                .orElseThrow(() -> new IllegalArgumentException("상담원을 찾을 수 없습니다."));
+
+        admin.getSkills().clear();
+        admin.getSkills().addAll(skills);
+        identityCache.evictUser(username);
+        Long adminId = admin.getId();
+        Set<ConsultationType> updatedSkills = Set.copyOf(skills);
+        afterCommit(() -> adminLoadIndex.updateSkills(adminId, updatedSkills));
+        if (admin.getStatus() == User.UserStatus.ONLINE) {
+            // 새로 맡게 된 분야의 대기 고객이 바로 배정되도록 한다
+            eventPublisher.publishEvent(new AdminStatusChangedEvent(admin.getId(), true));
+        }
+        return admin;
     }
 
     @Transactional(readOnly = true)
@@ -72,11 +132,29 @@ public class UserService {
                 .toList();
     }
 
+    /**
+     * 엔티티를 읽지 않고 JDBC UPDATE 로 마지막 접속 시각만 바꾼다. 2차 캐시에서는 이 사용자 항목만 비운다.
+     */
     public void updateLastSeen(String username) {
-        User user = userRepository.findByUsername(username)
-                .orElseThrow(() -> new IllegalArgumentException("사용자를 찾을 수 없습니다."));
-        
-        user.setLastSeen(LocalDateTime.now());
-        userRepository.save(user);
+        if (userRepository.updateLastSeen(username, LocalDateTime.now()) == 0) {
+            throw new IllegalArgumentException("사용자를 찾을 수 없습니다.");
+        }
+    }
+
+    /**
+     * 상담원 부하 인덱스는 커밋된 뒤에 바꾼다. 상담원 상태 이벤트의 커밋 후 리스너(자동 배정)보다 먼저 등록해서
+     * 자동 배정이 바뀐 인덱스를 보게 한다.
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 예상 대기 시간 계산.
+ * 상담이 끝날 때마다 상담 시간의 지수 이동 평균(EWMA)을 O(1) 로 갱신해 두고,
+ * 순번이 N 인 고객은 평균 상담 시간 * N / (분야를 맡는 온라인 상담원 수 * 상담원당 최대 상담 수) 만큼 기다린다고 본다.
+ */
+@Component
+public class WaitTimeEstimator {
+
+    private final AdminLoadIndex adminLoadIndex;
+
+    private final int maxRoomsPerAdmin;
+
+    private final double alpha;
+
+    private volatile double averageHandleMillis;
+
+    @Autowired
+    public WaitTimeEstimator(AdminLoadIndex adminLoadIndex,
+                             @Value("${dental-chat.dispatch.max-rooms-per-admin:3}") int maxRoomsPerAdmin,
+                             @Value("${dental-chat.queue-position.handle-time-alpha:0.2}") double alpha,
+                             @Value("${dental-chat.queue-position.initial-handle-time:300000}") long initialHandleMillis) {
+        if (alpha <= 0 || alpha > 1) {
+            throw new IllegalArgumentException("alpha must be in (0, 1]");
+        }
+        this.adminLoadIndex = adminLoadIndex;
+        this.maxRoomsPerAdmin = maxRoomsPerAdmin;
+        this.alpha = alpha;
+        this.averageHandleMillis = initialHandleMillis;
+    }
+
+    public synchronized void recordHandleTime(Duration handleTime) {
+        averageHandleMillis += alpha * (handleTime.toMillis() - averageHandleMillis);
+    }
+
+    public long getAverageHandleMillis() {
+        return Math.round(averageHandleMillis);
+    }
+
+    /**
+     * 분야 대기열에서 position 번째(1 부터) 고객의 예상 대기 시간. 맡을 상담원이 없어도 한 명은 있는 것으로 계산한다.
+     */
+    public long estimateWaitMillis(ConsultationType type, int position) {
+        long slots = Math.max(1, (long) adminLoadIndex.countOnline(type) * maxRoomsPerAdmin);
+        return Math.round(averageHandleMillis * position / slots);
+    }
+}
@@ -0,0 +1,175 @@
+package com.ezlevup.dentalchat.service;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 상담 대기열.
+ * roomId 별 슬롯 번호를 LinkedHashMap 에 들고 있어 추가, 맨 앞 꺼내기, 중간 취소, 포함 여부가 모두 O(1) 이고,
+ * 슬롯마다 대기 중이면 1 을 두는 Fenwick 트리로 "앞에 몇 명 있는지" 를 O(log n) 에 계산한다.
+ * 슬롯 번호가 끝에 닿으면 남아 있는 대기자에게 번호를 다시 매긴다.
+ */
+public class WaitingQueue {
+
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final LinkedHashMap<String, Integer> slots = new LinkedHashMap<>();
+
+    private int[] tree;
+
+    private int nextSlot;
+
+    public WaitingQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public WaitingQueue(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive");
+        }
+        tree = new int[initialCapacity + 1];
+    }
+
+    /**
+     * 이미 대기 중인 방이면 순서를 바꾸지 않고 false 를 반환한다.
+     */
+    public boolean offer(String roomId) {
+        lock.lock();
+        try {
+            if (slots.containsKey(roomId)) {
+                return false;
+            }
+            if (nextSlot == capacity()) {
+                renumber();
+            }
+            int slot = nextSlot++;
+            slots.put(roomId, slot);
+            update(slot, 1);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String poll() {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<String, Integer>> iterator = slots.entrySet().iterator();
+            if (!iterator.hasNext()) {
+                return null;
+            }
+            Map.Entry<String, Integer> head = iterator.next();
+            iterator.remove();
+            update(head.getValue(), -1);
+            return head.getKey();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public String peek() {
+        lock.lock();
+        try {
+            Iterator<String> iterator = slots.keySet().iterator();
+            return iterator.hasNext() ? iterator.next() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(String roomId) {
+        lock.lock();
+        try {
+            Integer slot = slots.remove(roomId);
+            if (slot == null) {
+                return false;
+            }
+            update(slot, -1);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(String roomId) {
+        lock.lock();
+        try {
+            return slots.containsKey(roomId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 1 부터 시작하는 대기 순번. 대기 중이 아니면 비어 있다.
+     */
+    public OptionalInt positionOf(String roomId) {
+        lock.lock();
+        try {
+            Integer slot = slots.get(roomId);
+            return slot != null ? OptionalInt.of(prefixSum(slot)) : OptionalInt.empty();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int capacity() {
+        return tree.length - 1;
+    }
+
+    /**
+     * 남은 대기자를 0 번 슬롯부터 순서대로 다시 배치한다. 절반 이상 차 있으면 용량을 두 배로 늘린다.
+     */
+    private void renumber() {
+        int size = slots.size();
+        int capacity = capacity();
+        if (size * 2 >= capacity) {
+            capacity *= 2;
+        }
+
+        int[] rebuilt = new int[capacity + 1];
+        int slot = 0;
+        for (Map.Entry<String, Integer> entry : slots.entrySet()) {
+            entry.setValue(slot);
+            rebuilt[slot + 1] = 1;
+            slot++;
+        }
+        // O(n) 으로 Fenwick 트리 구성
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                rebuilt[parent] += rebuilt[i];
+            }
+        }
+        tree = rebuilt;
+        nextSlot = size;
+    }
+
+    private void update(int slot, int delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    private int prefixSum(int slot) {
+        int sum = 0;
+        for (int i = slot + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,75 @@
+-- 기준 스키마: ddl-auto 로 만들던 테이블을 그대로 옮긴 것 (H2)
+-- 엔티티 매핑이 바뀌면 새 버전 파일을 추가한다. 적용된 파일은 수정하지 않는다.
+
+CREATE TABLE users (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    username    VARCHAR(50)  NOT NULL,
+    nickname    VARCHAR(100) NOT NULL,
+    userType    ENUM ('ADMIN', 'CUSTOMER') NOT NULL,
+    status      ENUM ('BUSY', 'OFFLINE', 'ONLINE') NOT NULL,
+    created_at  TIMESTAMP(6) NOT NULL,
+    last_seen   TIMESTAMP(6),
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    CONSTRAINT uk_users_username UNIQUE (username)
+);
+
+CREATE TABLE admin_skills (
+    user_id           BIGINT NOT NULL,
+    consultation_type ENUM ('EMERGENCY', 'GENERAL', 'IMPLANT', 'ORTHODONTICS'),
+    CONSTRAINT fk_admin_skills_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE chat_rooms (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    roomId           VARCHAR(100) NOT NULL,
+    customer_id      BIGINT,
+    admin_id         BIGINT,
+    status           ENUM ('ACTIVE', 'ENDED', 'WAITING') NOT NULL,
+    consultationType ENUM ('EMERGENCY', 'GENERAL', 'IMPLANT', 'ORTHODONTICS') NOT NULL,
+    customerNotes    VARCHAR(500),
+    created_at       TIMESTAMP(6) NOT NULL,
+    started_at       TIMESTAMP(6),
+    ended_at         TIMESTAMP(6),
+    CONSTRAINT pk_chat_rooms PRIMARY KEY (id),
+    CONSTRAINT uk_chat_rooms_room_id UNIQUE (roomId),
+    CONSTRAINT fk_chat_rooms_customer FOREIGN KEY (customer_id) REFERENCES users (id),
+    CONSTRAINT fk_chat_rooms_admin FOREIGN KEY (admin_id) REFERENCES users (id)
+);
+
+CREATE INDEX idx_chat_rooms_status_created_at ON chat_rooms (status, created_at);
+
+-- id 는 IdGenerator 가 발급한다 (IDENTITY 아님)
+CREATE TABLE messages (
+    id           BIGINT NOT NULL,
+    chat_room_id BIGINT NOT NULL,
+    sender_id    BIGINT,
+    content      TEXT NOT NULL,
+    messageType  ENUM ('CHAT', 'JOIN', 'LEAVE', 'SYSTEM') NOT NULL,
+    sent_at      TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_messages PRIMARY KEY (id),
+    CONSTRAINT fk_messages_chat_room FOREIGN KEY (chat_room_id) REFERENCES chat_rooms (id),
+    CONSTRAINT fk_messages_sender FOREIGN KEY (sender_id) REFERENCES users (id)
+);
+
+CREATE TABLE read_watermarks (
+    id                   BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    chat_room_id         BIGINT NOT NULL,
+    user_id              BIGINT NOT NULL,
+    last_read_message_id BIGINT NOT NULL,
+    updated_at           TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_read_watermarks PRIMARY KEY (id),
+    CONSTRAINT uk_read_watermarks_room_user UNIQUE (chat_room_id, user_id),
+    CONSTRAINT fk_read_watermarks_chat_room FOREIGN KEY (chat_room_id) REFERENCES chat_rooms (id),
+    CONSTRAINT fk_read_watermarks_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+CREATE TABLE chat_sessions (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    sessionId        VARCHAR(100) NOT NULL,
+    patientName      VARCHAR(100) NOT NULL,
+    consultationType ENUM ('EMERGENCY', 'GENERAL', 'IMPLANT', 'ORTHODONTICS') NOT NULL,
+    start_time       TIMESTAMP(6) NOT NULL,
+    end_time         TIMESTAMP(6),
+    CONSTRAINT pk_chat_sessions PRIMARY KEY (id),
+    CONSTRAINT uk_chat_sessions_session_id UNIQUE (sessionId)
+);
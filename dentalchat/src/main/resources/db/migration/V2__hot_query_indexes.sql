@@ -0,0 +1,16 @@
+-- ChatRoomRepository, MessageRepository 조회에 맞춘 복합 인덱스
+
+-- 메시지 이력 (findHistoryByRoomId, findByRoomIdOrderBySentAtAsc): 방별 sent_at, id 순서로 정렬 없이 읽는다
+CREATE INDEX idx_messages_chat_room_id_sent_at ON messages (chat_room_id, sent_at, id);
+
+-- 이전 페이지 (findHistoryBefore), 마지막 메시지 (findLastMessageId), 안 읽은 수 (countMessagesAfter,
+-- countUnreadByParticipant): 방별 id 범위 조회
+CREATE INDEX idx_messages_chat_room_id_id ON messages (chat_room_id, id);
+
+-- 상담원의 진행 중 상담 (findActiveRoomsByAdmin, countActiveRoomsByOnlineAdmin)
+-- 대기, 진행 중 방 조회 (findWaitingRoomsOrderByCreatedAt, streamWaitingRooms, findActiveRoomsByUser 등)는
+-- V1 의 idx_chat_rooms_status_created_at 을 쓴다
+CREATE INDEX idx_chat_rooms_admin_id_status ON chat_rooms (admin_id, status);
+
+-- 온라인 상담원 (findAvailableAdmins, countActiveRoomsByOnlineAdmin)
+CREATE INDEX idx_users_user_type_status ON users (userType, status);
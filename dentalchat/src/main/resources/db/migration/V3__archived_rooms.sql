@@ -0,0 +1,18 @@
+-- 종료된 상담 메시지 보관 (MessageArchiver): 채팅방별 압축 블록이 있는 세그먼트 파일 위치
+
+CREATE TABLE archived_rooms (
+    chat_room_id   BIGINT NOT NULL,
+    segment_no     INTEGER NOT NULL,
+    segment_offset BIGINT NOT NULL,
+    block_length   INTEGER NOT NULL,
+    message_count  INTEGER NOT NULL,
+    archived_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_archived_rooms PRIMARY KEY (chat_room_id),
+    CONSTRAINT fk_archived_rooms_chat_room FOREIGN KEY (chat_room_id) REFERENCES chat_rooms (id)
+);
+
+-- 보관 기간이 지난 세그먼트 찾기 (findSegmentsArchivedBefore)
+CREATE INDEX idx_archived_rooms_segment_no_archived_at ON archived_rooms (segment_no, archived_at);
+
+-- 보관 대상 찾기 (findArchiveCandidates): 오래 전에 종료된 방부터
+CREATE INDEX idx_chat_rooms_status_ended_at ON chat_rooms (status, ended_at);
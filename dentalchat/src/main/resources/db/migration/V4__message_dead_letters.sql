@@ -0,0 +1,14 @@
+-- 재시도해도 저장하지 못한 채팅 메시지 (MessageBatchWriter). 원인을 고친 뒤 messages 로 옮길 수 있도록 제약 조건 없이 그대로 둔다
+
+CREATE TABLE message_dead_letters (
+    id           BIGINT NOT NULL,
+    chat_room_id BIGINT NOT NULL,
+    sender_id    BIGINT,
+    content      TEXT NOT NULL,
+    messageType  VARCHAR(20) NOT NULL,
+    sent_at      TIMESTAMP(6) NOT NULL,
+    attempts     INTEGER NOT NULL,
+    error        VARCHAR(1000),
+    failed_at    TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_message_dead_letters PRIMARY KEY (id)
+);
@@ -3,6 +3,7 @@ let currentUsername = '';
 let currentUserRole = '';
 let currentRoomId = '';
 let isConnected = false;
+let readTimer = null;
 
 const statusDot = document.getElementById('statusDot');
 const statusText = document.getElementById('statusText');
@@ -21,15 +22,27 @@ function connect() {
     const socket = new SockJS('/chat');
     stompClient = Stomp.over(socket);
     
-    stompClient.connect({}, function (frame) {
+    // 사용자는 로그인 세션으로 정해지고, 로그인하지 않은 고객은 상담을 시작할 때 받은 채팅 토큰을 보낸다
+    const connectHeaders = isGuestCustomer() && window.customerChat ? {token: window.customerChat.token} : {};
+    stompClient.connect(connectHeaders, function (frame) {
         console.log('Connected: ' + frame);
         isConnected = true;
         updateConnectionStatus('연결됨', true);
         
         stompClient.subscribe('/topic/room/' + currentRoomId, function (messageOutput) {
-            showMessage(JSON.parse(messageOutput.body));
+            const message = JSON.parse(messageOutput.body);
+            if (message.type === 'READ') {
+                return;
+            }
+            showMessage(message);
+            if (message.sender !== currentUsername) {
+                markAsRead();
+            }
         });
         
+        if (currentUserRole === 'CUSTOMER') {
+            subscribeQueuePosition();
+        }
         joinRoom();
     }, function (error) {
         console.log('Connection error: ' + error);
@@ -47,6 +60,19 @@ function disconnect() {
     }
 }
 
+function subscribeQueuePosition() {
+    // 상담원이 배정될 때까지 대기 순번과 예상 대기 시간을 받는다 (배정되면 position 0)
+    const subscription = stompClient.subscribe('/user/queue/position', function (messageOutput) {
+        const queuePosition = JSON.parse(messageOutput.body);
+        if (queuePosition.position === 0) {
+            subscription.unsubscribe();
+            updateConnectionStatus('연결됨', true);
+            return;
+        }
+        roomInfo.textContent = `상담방: ${currentRoomId} · 대기 ${queuePosition.position}번째, 약 ${queuePosition.estimatedWaitMinutes}분`;
+    }, {roomId: currentRoomId});
+}
+
 function joinRoom() {
     if (stompClient && isConnected) {
         const joinMessage = {
@@ -61,6 +87,16 @@ function joinRoom() {
     }
 }
 
+function markAsRead() {
+    // 메시지가 저장된 뒤 한 번에 읽음 처리되도록 잠시 모아서 보낸다
+    clearTimeout(readTimer);
+    readTimer = setTimeout(function () {
+        if (stompClient && isConnected) {
+            stompClient.send('/app/chat.read/' + currentRoomId, {}, '');
+        }
+    }, 1000);
+}
+
 function sendMessage() {
     const messageContent = messageInput.value.trim();
     if (messageContent === '') return;
@@ -157,13 +193,33 @@ function validateInput() {
     return true;
 }
 
-joinButton.addEventListener('click', function() {
-    if (!validateInput()) return;
-    
-    currentUsername = usernameInput.value.trim();
-    currentUserRole = userRoleSelect.value;
-    currentRoomId = roomIdInput.value.trim();
-    
+function isGuestCustomer() {
+    return !(window.authenticatedUser && window.authenticatedUser.username) && userRoleSelect.value === 'CUSTOMER';
+}
+
+function openCustomerChat(nickname) {
+    // 이 세션에서 시작한 상담이 있으면 그 상담으로 다시 연결한다
+    if (window.customerChat) {
+        return Promise.resolve(window.customerChat);
+    }
+    const csrfHeader = document.querySelector('meta[name="_csrf_header"]').content;
+    const csrfToken = document.querySelector('meta[name="_csrf"]').content;
+    return fetch('/chat/api/rooms', {
+        method: 'POST',
+        headers: {[csrfHeader]: csrfToken},
+        body: new URLSearchParams({nickname: nickname})
+    }).then(function (response) {
+        if (!response.ok) {
+            throw new Error('상담을 시작할 수 없습니다.');
+        }
+        return response.json();
+    }).then(function (data) {
+        window.customerChat = {roomId: data.room_id, username: data.username, token: data.token};
+        return window.customerChat;
+    });
+}
+
+function startChat() {
     joinButton.disabled = true;
     joinButton.textContent = '연결 중...';
     
@@ -171,6 +227,33 @@ joinButton.addEventListener('click', function() {
     chatInput.style.display = 'flex';
     
     connect();
+}
+
+joinButton.addEventListener('click', function() {
+    currentUserRole = userRoleSelect.value;
+    
+    if (isGuestCustomer()) {
+        // 로그인하지 않은 고객의 상담방과 사용자명은 서버가 정한다
+        const nickname = usernameInput.value.trim();
+        if (!window.customerChat && nickname.length < 2) {
+            alert('이름은 최소 2글자 이상 입력해주세요.');
+            return;
+        }
+        openCustomerChat(nickname).then(function (customerChat) {
+            currentUsername = customerChat.username;
+            currentRoomId = customerChat.roomId;
+            startChat();
+        }).catch(function (error) {
+            alert(error.message);
+        });
+        return;
+    }
+    
+    if (!validateInput()) return;
+    
+    currentUsername = usernameInput.value.trim();
+    currentRoomId = roomIdInput.value.trim();
+    startChat();
 });
 
 sendButton.addEventListener('click', sendMessage);
@@ -203,5 +286,7 @@ document.addEventListener('DOMContentLoaded', function() {
         userRoleSelect.disabled = true;
         
         joinButton.textContent = '상담방 입장';
+    } else if (window.customerChat) {
+        joinButton.textContent = '상담 이어하기';
     }
 });
\ No newline at end of file
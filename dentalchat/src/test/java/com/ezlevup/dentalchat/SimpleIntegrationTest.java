@@ -4,6 +4,7 @@ import com.ezlevup.dentalchat.entity.ChatRoom;
 import com.ezlevup.dentalchat.entity.User;
 import com.ezlevup.dentalchat.repository.ChatRoomRepository;
 import com.ezlevup.dentalchat.repository.UserRepository;
+import com.ezlevup.dentalchat.service.AdminLoadIndex;
 import com.ezlevup.dentalchat.service.ChatRoomService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -33,6 +34,9 @@ public class SimpleIntegrationTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private AdminLoadIndex adminLoadIndex;
+
     private User customer;
     private User admin;
 
@@ -51,6 +55,8 @@ public class SimpleIntegrationTest {
         admin.setUserType(User.UserType.ADMIN);
         admin.setStatus(User.UserStatus.ONLINE);
         admin = userRepository.save(admin);
+        // 서비스를 거치지 않고 저장한 상담원은 부하 인덱스를 다시 만들어야 배정 대상이 된다
+        adminLoadIndex.rebuild();
     }
 
     @Test
@@ -0,0 +1,57 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.messaging.ChatMessageCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * STOMP 페이로드 디코딩 비교.
+ * 기존 경로는 프레임 byte[] 를 String 으로 바꾼 뒤 메시지마다 새 ObjectMapper 로 읽었다.
+ * 할당률은 benchmark 프로파일 기본값인 {@code -prof gc} 의 gc.alloc.rate.norm 으로 확인한다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=ChatMessageDecodingBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatMessageDecodingBenchmark {
+
+    private final byte[] frame = ("{\"sender\":\"customer_3f2a9c1d\",\"senderRole\":\"CUSTOMER\","
+            + "\"content\":\"어제 신경치료 받은 어금니가 계속 욱신거리는데 진통제를 더 먹어도 될까요?\","
+            + "\"type\":\"CHAT\",\"roomId\":\"room_8d1e4b7a\"}").getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper sharedObjectMapper = new ObjectMapper();
+
+    private final ChatMessageCodec codec = new ChatMessageCodec();
+
+    @Benchmark
+    public ChatMessage objectMapperPerMessage() throws Exception {
+        String payload = new String(frame, StandardCharsets.UTF_8);
+        return new ObjectMapper().readValue(payload, ChatMessage.class);
+    }
+
+    @Benchmark
+    public ChatMessage sharedObjectMapper() throws Exception {
+        return sharedObjectMapper.readValue(frame, ChatMessage.class);
+    }
+
+    @Benchmark
+    public ChatMessage streamingCodec() {
+        return codec.decode(frame);
+    }
+}
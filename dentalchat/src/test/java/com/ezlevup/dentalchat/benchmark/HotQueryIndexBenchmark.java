@@ -0,0 +1,189 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.DentalchatApplication;
+import com.ezlevup.dentalchat.dto.AdminLoadRow;
+import com.ezlevup.dentalchat.dto.ChatHistoryRow;
+import com.ezlevup.dentalchat.dto.UnreadCountRow;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.ezlevup.dentalchat.repository.MessageRepository;
+import com.ezlevup.dentalchat.repository.UserRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 조회 지연 시간: 기준 스키마(V1) vs 복합 인덱스를 추가한 스키마(V2).
+ * 채팅방 10만 개(대기 1%, 진행 중 5%, 나머지 종료), 메시지 100만 개를 SQL 로 한 번에 넣고
+ * 리포지토리 조회를 그대로 호출한다. DB 조회만 재도록 2차 캐시와 조회 캐시는 끈다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=HotQueryIndexBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class HotQueryIndexBenchmark {
+
+    private static final int ADMINS = 50;
+
+    private static final int ROOMS = 100_000;
+
+    private static final int MESSAGES = 1_000_000;
+
+    private static final int SAMPLE_ROOMS = 1000;
+
+    /** 적용할 마지막 마이그레이션 버전. 1 은 인덱스 추가 전 기준 스키마 */
+    @Param({"1", "2"})
+    private String schemaVersion;
+
+    private ConfigurableApplicationContext context;
+    private ChatRoomRepository chatRoomRepository;
+    private MessageRepository messageRepository;
+    private UserRepository userRepository;
+
+    private List<String> roomIds;
+    private List<Long> roomKeys;
+    private List<Long> customerIds;
+    private List<Long> adminIds;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DentalchatApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--logging.level.com.ezlevup.dentalchat=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:hot_query_index;DB_CLOSE_DELAY=-1",
+                        "--spring.flyway.target=" + schemaVersion,
+                        "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                        "--spring.jpa.properties.hibernate.cache.use_query_cache=false");
+
+        chatRoomRepository = context.getBean(ChatRoomRepository.class);
+        messageRepository = context.getBean(MessageRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        seed(context.getBean(JdbcTemplate.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ChatHistoryRow> history() {
+        return messageRepository.findHistoryByRoomId(roomIds.get(sample()));
+    }
+
+    @Benchmark
+    public List<ChatHistoryRow> historyBefore() {
+        return messageRepository.findHistoryBefore(roomIds.get(sample()), Long.MAX_VALUE, Limit.of(50));
+    }
+
+    @Benchmark
+    public Optional<Long> lastMessageId() {
+        return messageRepository.findLastMessageId(roomKeys.get(sample()));
+    }
+
+    @Benchmark
+    public long countMessagesAfter() {
+        int i = sample();
+        return messageRepository.countMessagesAfter(roomKeys.get(i), customerIds.get(i), 0L);
+    }
+
+    @Benchmark
+    public List<ChatRoom> waitingRooms() {
+        return chatRoomRepository.findWaitingRoomsOrderByCreatedAt();
+    }
+
+    @Benchmark
+    public List<ChatRoom> activeRoomsByAdmin() {
+        Long adminId = adminIds.get(ThreadLocalRandom.current().nextInt(adminIds.size()));
+        return chatRoomRepository.findActiveRoomsByAdmin(userRepository.getReferenceById(adminId));
+    }
+
+    @Benchmark
+    public List<ChatRoom> activeRoomsByUser() {
+        return chatRoomRepository.findActiveRoomsByUser(userRepository.getReferenceById(customerIds.get(sample())));
+    }
+
+    @Benchmark
+    public List<AdminLoadRow> activeRoomCountByAdmin() {
+        return chatRoomRepository.countActiveRoomsByAdmin();
+    }
+
+    @Benchmark
+    public List<UnreadCountRow> unreadByParticipant() {
+        return messageRepository.countUnreadByParticipant();
+    }
+
+    private int sample() {
+        return ThreadLocalRandom.current().nextInt(SAMPLE_ROOMS);
+    }
+
+    /**
+     * 고객 한 명당 채팅방 하나. 100 번째마다 대기, 20 번째마다 진행 중이고 나머지는 종료된 방이다.
+     * 메시지는 방마다 10 개씩, id 는 보낸 순서이고 고객과 상담원이 번갈아 보낸다.
+     */
+    private void seed(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("INSERT INTO users (username, nickname, userType, status, created_at) " +
+                "SELECT 'bench_admin_' || x, '상담원 ' || x, 'ADMIN', 'ONLINE', CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(1, ?)", ADMINS);
+        jdbcTemplate.update("INSERT INTO users (username, nickname, userType, status, created_at) " +
+                "SELECT 'bench_customer_' || x, '고객 ' || x, 'CUSTOMER', 'OFFLINE', CURRENT_TIMESTAMP " +
+                "FROM SYSTEM_RANGE(1, ?)", ROOMS);
+        long adminBase = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) - 1 FROM users WHERE username LIKE 'bench_admin_%'", Long.class);
+        long customerBase = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) - 1 FROM users WHERE username LIKE 'bench_customer_%'", Long.class);
+
+        jdbcTemplate.update("INSERT INTO chat_rooms (roomId, customer_id, admin_id, status, consultationType, " +
+                "created_at, started_at, ended_at) " +
+                "SELECT 'bench_room_' || x, ? + x, CASE WHEN MOD(x, 100) = 0 THEN NULL ELSE ? + MOD(x, ?) + 1 END, " +
+                "CASE WHEN MOD(x, 100) = 0 THEN 'WAITING' WHEN MOD(x, 20) = 1 THEN 'ACTIVE' ELSE 'ENDED' END, " +
+                "'GENERAL', DATEADD(SECOND, x, TIMESTAMP '2025-01-01 00:00:00'), " +
+                "CASE WHEN MOD(x, 100) = 0 THEN NULL ELSE DATEADD(SECOND, x + 60, TIMESTAMP '2025-01-01 00:00:00') END, " +
+                "CASE WHEN MOD(x, 100) <> 0 AND MOD(x, 20) <> 1 THEN DATEADD(SECOND, x + 900, TIMESTAMP '2025-01-01 00:00:00') END " +
+                "FROM SYSTEM_RANGE(1, ?)", customerBase, adminBase, ADMINS, ROOMS);
+        long roomBase = jdbcTemplate.queryForObject(
+                "SELECT MIN(id) - 1 FROM chat_rooms WHERE roomId LIKE 'bench_room_%'", Long.class);
+
+        // 방 번호 r = MOD(x, ROOMS) + 1 이므로 같은 방의 메시지는 id 가 ROOMS 간격으로 흩어진다
+        jdbcTemplate.update("INSERT INTO messages (id, chat_room_id, sender_id, content, messageType, sent_at) " +
+                "SELECT x, ? + MOD(x, ?) + 1, " +
+                "CASE WHEN MOD(x / ?, 2) = 0 THEN ? + MOD(x, ?) + 1 ELSE ? + MOD(MOD(x, ?) + 1, ?) + 1 END, " +
+                "'메시지 ' || x, 'CHAT', DATEADD(MILLISECOND, x, TIMESTAMP '2025-01-01 00:00:00') " +
+                "FROM SYSTEM_RANGE(1, ?)",
+                roomBase, ROOMS, ROOMS, customerBase, ROOMS, adminBase, ROOMS, ADMINS, MESSAGES);
+        jdbcTemplate.execute("ANALYZE");
+
+        // 조회 대상은 진행 중인 방에서 고른다
+        List<Object[]> rows = jdbcTemplate.query("SELECT id, roomId, customer_id FROM chat_rooms " +
+                "WHERE status = 'ACTIVE' ORDER BY id LIMIT ?",
+                (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getLong(3)}, SAMPLE_ROOMS);
+        roomKeys = rows.stream().map(row -> (Long) row[0]).toList();
+        roomIds = rows.stream().map(row -> (String) row[1]).toList();
+        customerIds = rows.stream().map(row -> (Long) row[2]).toList();
+        adminIds = userRepository.findByUserType(User.UserType.ADMIN).stream().map(User::getId).toList();
+    }
+}
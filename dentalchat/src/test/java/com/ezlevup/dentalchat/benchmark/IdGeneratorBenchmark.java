@@ -0,0 +1,55 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.service.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ID 발급 비용 비교: 기존 UUID 앞 8자리 방식 vs {@link IdGenerator}.
+ * 기존 방식은 여기에 후보마다 findByRoomId 조회가 더해졌다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=IdGeneratorBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private IdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = new IdGenerator(1);
+    }
+
+    @Benchmark
+    public String legacyUuidRoomId() {
+        return "room_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    @Benchmark
+    public long nextId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    public String nextRoomKey() {
+        return idGenerator.nextKey("room_");
+    }
+}
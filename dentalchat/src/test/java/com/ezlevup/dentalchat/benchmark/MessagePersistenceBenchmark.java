@@ -0,0 +1,93 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.DentalchatApplication;
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.service.ChatRoomService;
+import com.ezlevup.dentalchat.service.MessageBatchWriter;
+import com.ezlevup.dentalchat.service.MessageService;
+import com.ezlevup.dentalchat.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 메시지 저장 처리량 비교: 메시지마다 INSERT 하는 기존 경로 vs write-behind 배치 경로.
+ * 배치 경로는 버퍼가 모두 비워질 때까지 기다린 시간까지 포함해서 측정한다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=MessagePersistenceBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MessagePersistenceBenchmark {
+
+    private static final int MESSAGES_PER_INVOCATION = 1000;
+
+    private ConfigurableApplicationContext context;
+    private MessageService messageService;
+    private MessageBatchWriter messageBatchWriter;
+    private ChatMessage message;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DentalchatApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--logging.level.com.ezlevup.dentalchat=WARN");
+
+        messageService = context.getBean(MessageService.class);
+        messageBatchWriter = context.getBean(MessageBatchWriter.class);
+
+        UserService userService = context.getBean(UserService.class);
+        ChatRoomService chatRoomService = context.getBean(ChatRoomService.class);
+        User customer = userService.createCustomer("벤치마크 고객");
+        User admin = userService.createAdmin("bench_admin", "벤치마크 상담원");
+        ChatRoom room = chatRoomService.createChatRoom(customer, "벤치마크");
+        chatRoomService.assignAdmin(room.getRoomId(), admin);
+
+        message = ChatMessage.of("스케일링 예약 가능한 시간이 있을까요?", customer.getUsername(),
+                UserRole.CUSTOMER, MessageType.CHAT, room.getRoomId());
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void perMessageInsert() {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            messageService.saveMessage(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES_PER_INVOCATION)
+    public void writeBehindBatch() {
+        for (int i = 0; i < MESSAGES_PER_INVOCATION; i++) {
+            messageService.submitMessage(message);
+        }
+        messageBatchWriter.awaitFlush(TimeUnit.MINUTES.toMillis(1));
+    }
+}
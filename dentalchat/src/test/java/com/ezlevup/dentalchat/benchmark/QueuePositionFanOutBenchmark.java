@@ -0,0 +1,97 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.messaging.QueuePositionPublisher;
+import com.ezlevup.dentalchat.service.AdminLoadIndex;
+import com.ezlevup.dentalchat.service.ConsultationRouter;
+import com.ezlevup.dentalchat.service.WaitTimeEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 대기 고객 순번 알림 fan-out 비용.
+ * 맨 앞 고객이 배정되면 모든 대기 고객의 순번이 바뀌므로 알림 한 번에 구독자 수만큼 전송한다.
+ * 대기열이 바뀔 때마다 보내는 방식(perDequeue)과 여러 번 바뀐 뒤 한 번에 보내는 방식(coalesced)을 비교한다.
+ * 전송은 JSON 변환까지 하고 브로커 채널에서 버린다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=QueuePositionFanOutBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueuePositionFanOutBenchmark {
+
+    @Param({"5000"})
+    private int waitingCustomers;
+
+    @Param({"1", "10"})
+    private int dequeuesPerFlush;
+
+    private ConsultationRouter router;
+
+    private QueuePositionPublisher publisher;
+
+    @Setup
+    public void setUp() {
+        SimpMessagingTemplate messagingTemplate = new SimpMessagingTemplate((message, timeout) -> true);
+        messagingTemplate.setMessageConverter(new MappingJackson2MessageConverter());
+
+        AdminLoadIndex admins = new AdminLoadIndex();
+        for (long adminId = 1; adminId <= 20; adminId++) {
+            admins.updateStatus(adminId, true);
+        }
+        router = new ConsultationRouter();
+        publisher = new QueuePositionPublisher(messagingTemplate, router,
+                new WaitTimeEstimator(admins, 3, 0.2, 300_000), new SimpleMeterRegistry());
+        for (int i = 0; i < waitingCustomers; i++) {
+            String roomId = "room_" + i;
+            router.offer(roomId, ConsultationType.GENERAL, i);
+            publisher.subscribe("session_" + i, "sub-0", roomId);
+        }
+        publisher.flush();
+    }
+
+    @Benchmark
+    public int perDequeue() {
+        int sent = 0;
+        for (int i = 0; i < dequeuesPerFlush; i++) {
+            rotate();
+            sent += publisher.flush();
+        }
+        return sent;
+    }
+
+    @Benchmark
+    public int coalesced() {
+        for (int i = 0; i < dequeuesPerFlush; i++) {
+            rotate();
+        }
+        return publisher.flush();
+    }
+
+    /**
+     * 맨 앞 고객을 빼고 같은 방을 맨 뒤에 다시 세워 대기 인원을 유지한다. 모든 고객의 순번이 하나씩 당겨진다.
+     */
+    private void rotate() {
+        String head = router.peek(Long.MAX_VALUE);
+        router.remove(head);
+        router.offer(head, ConsultationType.GENERAL, System.currentTimeMillis());
+    }
+}
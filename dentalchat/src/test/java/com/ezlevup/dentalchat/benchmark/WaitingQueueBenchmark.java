@@ -0,0 +1,118 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.service.WaitingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 대기열 경합 비교: 기존 ConcurrentLinkedQueue + 락 (contains/remove 선형 탐색) vs {@link WaitingQueue}.
+ * 여러 스레드가 대기 중인 방을 취소했다가 다시 줄 서고, 순번을 조회하는 상황을 흉내 낸다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=WaitingQueueBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class WaitingQueueBenchmark {
+
+    @Param({"100", "1000"})
+    private int waitingCustomers;
+
+    private String[] roomIds;
+
+    private LegacyWaitingQueue legacyQueue;
+
+    private WaitingQueue indexedQueue;
+
+    @Setup
+    public void setUp() {
+        roomIds = new String[waitingCustomers];
+        legacyQueue = new LegacyWaitingQueue();
+        indexedQueue = new WaitingQueue();
+        for (int i = 0; i < waitingCustomers; i++) {
+            roomIds[i] = "room_" + i;
+            legacyQueue.offer(roomIds[i]);
+            indexedQueue.offer(roomIds[i]);
+        }
+    }
+
+    @Benchmark
+    public int legacyCancelAndRejoin() {
+        String roomId = randomRoomId();
+        legacyQueue.remove(roomId);
+        legacyQueue.offer(roomId);
+        return legacyQueue.positionOf(roomId);
+    }
+
+    @Benchmark
+    public int indexedCancelAndRejoin() {
+        String roomId = randomRoomId();
+        indexedQueue.remove(roomId);
+        indexedQueue.offer(roomId);
+        return indexedQueue.positionOf(roomId).orElse(-1);
+    }
+
+    private String randomRoomId() {
+        return roomIds[ThreadLocalRandom.current().nextInt(roomIds.length)];
+    }
+
+    /**
+     * 변경 전 ChatRoomService 의 대기열 구현. 순번 조회는 앞에서부터 세는 방법밖에 없다.
+     */
+    private static class LegacyWaitingQueue {
+
+        private final ConcurrentLinkedQueue<String> waitingCustomers = new ConcurrentLinkedQueue<>();
+
+        private final ReentrantLock queueLock = new ReentrantLock();
+
+        void offer(String roomId) {
+            queueLock.lock();
+            try {
+                if (!waitingCustomers.contains(roomId)) {
+                    waitingCustomers.offer(roomId);
+                }
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        void remove(String roomId) {
+            queueLock.lock();
+            try {
+                waitingCustomers.remove(roomId);
+            } finally {
+                queueLock.unlock();
+            }
+        }
+
+        int positionOf(String roomId) {
+            int position = 1;
+            for (String waiting : waitingCustomers) {
+                if (waiting.equals(roomId)) {
+                    return position;
+                }
+                position++;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.ezlevup.dentalchat.benchmark;
+
+import com.ezlevup.dentalchat.DentalchatApplication;
+import com.ezlevup.dentalchat.service.ChatRoomService;
+import com.ezlevup.dentalchat.service.SessionExpiryTracker;
+import com.ezlevup.dentalchat.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅방 100만 건에서 재시작 후 대기열과 세션 만료 일정 복원 시간.
+ * 10% 는 대기 중, 10% 는 상담 중(그중 절반은 최대 상담 시간 초과), 나머지는 종료된 방이다.
+ * 복원은 재시작 직후 한 번만 일어나므로 fork 마다 빈 메모리 상태에서 한 번씩만 잰다.
+ * 만료 스케줄러가 복원 도중 세션을 가져가지 않도록 tick 을 1시간으로 둔다.
+ *
+ * <pre>mvn -Pbenchmark test-compile exec:exec -Djmh.includes=WarmStartRebuildBenchmark</pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(value = 3, jvmArgs = "-Xmx2g")
+public class WarmStartRebuildBenchmark {
+
+    private static final int ROOMS = 1_000_000;
+
+    private ConfigurableApplicationContext context;
+    private ChatRoomService chatRoomService;
+    private SessionExpiryTracker sessionExpiryTracker;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(DentalchatApplication.class)
+                .profiles("test")
+                .run("--server.port=0", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                        "--logging.level.com.ezlevup.dentalchat=WARN",
+                        "--spring.datasource.url=jdbc:h2:mem:warm_start;DB_CLOSE_DELAY=-1",
+                        "--dental-chat.chat-room.expiry-tick=3600000");
+
+        chatRoomService = context.getBean(ChatRoomService.class);
+        sessionExpiryTracker = context.getBean(SessionExpiryTracker.class);
+        Long customerId = context.getBean(UserService.class).createCustomer("복원 고객").getId();
+        seed(context.getBean(JdbcTemplate.class), customerId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public long restore() {
+        chatRoomService.restoreInMemoryState();
+        return chatRoomService.getWaitingQueueSize() + sessionExpiryTracker.getTrackedCount();
+    }
+
+    /**
+     * x % 10 == 0 은 대기, 1 은 상담 중, 나머지는 종료. createdAt 은 x 가 클수록 이르다.
+     * 상담 중인 방은 하나 건너 하나씩 2시간 전(만료), 1분 전에 시작했다.
+     */
+    private void seed(JdbcTemplate jdbcTemplate, Long customerId) {
+        jdbcTemplate.update("INSERT INTO chat_rooms (roomId, customer_id, status, consultationType, " +
+                "created_at, started_at, ended_at) " +
+                "SELECT 'warm_' || x, ?, " +
+                "CASE MOD(x, 10) WHEN 0 THEN 'WAITING' WHEN 1 THEN 'ACTIVE' ELSE 'ENDED' END, " +
+                "CASE MOD(x / 10, 4) WHEN 0 THEN 'EMERGENCY' WHEN 1 THEN 'IMPLANT' WHEN 2 THEN 'ORTHODONTICS' ELSE 'GENERAL' END, " +
+                "DATEADD(SECOND, -x, CURRENT_TIMESTAMP), " +
+                "CASE WHEN MOD(x, 10) = 0 THEN NULL WHEN MOD(x / 10, 2) = 0 THEN DATEADD(HOUR, -2, CURRENT_TIMESTAMP) " +
+                "ELSE DATEADD(MINUTE, -1, CURRENT_TIMESTAMP) END, " +
+                "CASE WHEN MOD(x, 10) > 1 THEN CURRENT_TIMESTAMP END " +
+                "FROM SYSTEM_RANGE(0, ?)", customerId, ROOMS - 1);
+        jdbcTemplate.execute("ANALYZE");
+    }
+}
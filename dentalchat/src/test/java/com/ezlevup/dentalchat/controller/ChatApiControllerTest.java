@@ -0,0 +1,129 @@
+package com.ezlevup.dentalchat.controller;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.CustomerChat;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import com.ezlevup.dentalchat.service.ChatRoomService;
+import com.ezlevup.dentalchat.service.MessageService;
+import com.ezlevup.dentalchat.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ChatApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ChatAccessTokenService chatAccessTokenService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private MessageService messageService;
+
+    private User customer;
+    private User admin;
+    private ChatRoom chatRoom;
+
+    @BeforeEach
+    void setUp() {
+        customer = userService.createCustomer("API 테스트 고객");
+        admin = userService.createAdmin("api_admin_" + System.nanoTime(), "API 테스트 상담원");
+        chatRoom = chatRoomService.createChatRoom(customer, "API 테스트");
+        chatRoomService.assignAdmin(chatRoom.getRoomId(), admin);
+        messageService.saveMessage(ChatMessage.of("진료 예약 문의", customer.getUsername(), UserRole.CUSTOMER,
+                MessageType.CHAT, chatRoom.getRoomId()));
+    }
+
+    @Test
+    void testHistoryNeedsAuthenticatedParticipant() throws Exception {
+        String messages = "/chat/api/rooms/" + chatRoom.getRoomId() + "/messages";
+
+        mockMvc.perform(get(messages)).andExpect(status().isUnauthorized());
+        mockMvc.perform(get(messages).header(HttpHeaders.AUTHORIZATION, "Bearer forged.0.token"))
+                .andExpect(status().isUnauthorized());
+
+        User stranger = userService.createCustomer("다른 고객");
+        mockMvc.perform(asUser(get(messages), stranger.getUsername())).andExpect(status().isForbidden());
+
+        mockMvc.perform(asUser(get(messages), customer.getUsername()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages[0].content").value("진료 예약 문의"));
+        mockMvc.perform(asUser(get(messages), admin.getUsername())).andExpect(status().isOk());
+
+        // 종료된 상담도 참여자는 이력을 볼 수 있다
+        chatRoomService.endChatRoom(chatRoom.getRoomId());
+        mockMvc.perform(asUser(get(messages), customer.getUsername())).andExpect(status().isOk());
+    }
+
+    @Test
+    void testReadAndUnreadCountUseAuthenticatedUser() throws Exception {
+        String read = "/chat/api/rooms/" + chatRoom.getRoomId() + "/read";
+        String unreadCount = "/chat/api/rooms/" + chatRoom.getRoomId() + "/unread-count";
+
+        mockMvc.perform(get(unreadCount)).andExpect(status().isUnauthorized());
+        mockMvc.perform(asUser(get(unreadCount), admin.getUsername()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.unreadCount").value(1));
+
+        // username 파라미터를 보내도 읽은 사용자는 인증된 사용자다
+        mockMvc.perform(asUser(post(read).param("username", customer.getUsername()), admin.getUsername()))
+                .andExpect(status().isOk());
+        mockMvc.perform(asUser(get(unreadCount), admin.getUsername()))
+                .andExpect(jsonPath("$.unreadCount").value(0));
+        mockMvc.perform(asUser(get("/chat/api/unread-counts").param("roomIds", chatRoom.getRoomId()), admin.getUsername()))
+                .andExpect(jsonPath("$.unreadCounts." + chatRoom.getRoomId()).value(0));
+
+        User stranger = userService.createCustomer("다른 고객");
+        mockMvc.perform(asUser(post(read), stranger.getUsername())).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testCustomerSessionFromOpenedChatReachesChatApi() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(CustomerChat.SESSION_ATTRIBUTE, new CustomerChat(chatRoom.getRoomId(), customer.getUsername(),
+                chatAccessTokenService.issue(customer.getUsername())));
+
+        mockMvc.perform(get("/chat/api/rooms/" + chatRoom.getRoomId() + "/messages").session(session))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.messages[0].content").value("진료 예약 문의"));
+        mockMvc.perform(get("/chat/api/rooms/" + chatRoom.getRoomId() + "/unread-count").session(session))
+                .andExpect(status().isOk());
+
+        // 세션 토큰은 채팅 API 에만 쓰므로 채팅 페이지는 로그인하지 않은 상태로 보인다
+        mockMvc.perform(get("/chat").session(session))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeDoesNotExist("username"))
+                .andExpect(model().attributeExists("customerChat"));
+    }
+
+    private MockHttpServletRequestBuilder asUser(MockHttpServletRequestBuilder request, String username) {
+        return request.header(HttpHeaders.AUTHORIZATION, "Bearer " + chatAccessTokenService.issue(username));
+    }
+}
@@ -0,0 +1,143 @@
+package com.ezlevup.dentalchat.controller;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.messaging.ChatMessageCodec;
+import com.ezlevup.dentalchat.messaging.ChatMessageConverter;
+import com.ezlevup.dentalchat.messaging.RoomBroadcaster;
+import com.ezlevup.dentalchat.messaging.RoomMembershipInterceptor;
+import com.ezlevup.dentalchat.service.MessageBatchWriter;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.lang.reflect.Type;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 로그인하지 않은 고객이 브라우저와 같은 순서로 채팅 페이지를 열고, 상담을 시작해서 받은 토큰으로 STOMP 에 연결해 메시지를 보낸다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class CustomerChatIntegrationTest {
+
+    private static final Pattern META = Pattern.compile("<meta name=\"(_csrf(?:_header)?)\" content=\"([^\"]+)\"");
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MessageBatchWriter messageBatchWriter;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+
+    @Test
+    void testAnonymousCustomerOpensChatConnectsAndSends() throws Exception {
+        String page = get("/chat").body();
+        String csrfHeader = meta(page, "_csrf_header");
+        String csrfToken = meta(page, "_csrf");
+
+        HttpResponse<String> opened = httpClient.send(HttpRequest.newBuilder(uri("/chat/api/rooms"))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .header(csrfHeader, csrfToken)
+                .POST(HttpRequest.BodyPublishers.ofString("nickname=%EA%B9%80%EA%B3%A0%EA%B0%9D"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(opened.statusCode()).isEqualTo(200);
+        JsonNode customerChat = objectMapper.readTree(opened.body());
+        String roomId = customerChat.get("room_id").asText();
+        String username = customerChat.get("username").asText();
+        String token = customerChat.get("token").asText();
+
+        // 새로고침해도 같은 상담과 토큰이 페이지에 들어 있다
+        assertThat(get("/chat").body()).contains(roomId, token);
+
+        WebSocketStompClient stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new ChatMessageConverter(new ChatMessageCodec()));
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add(RoomMembershipInterceptor.TOKEN_HEADER, token);
+        StompSession session = stompClient
+                .connectAsync("ws://localhost:" + port + "/chat/websocket", new WebSocketHttpHeaders(), connectHeaders,
+                        new StompSessionHandlerAdapter() {
+                        })
+                .get(10, TimeUnit.SECONDS);
+        BlockingQueue<ChatMessage> received = new LinkedBlockingQueue<>();
+        try {
+            session.subscribe(RoomBroadcaster.ROOM_TOPIC_PREFIX + roomId, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return ChatMessage.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    received.add((ChatMessage) payload);
+                }
+            });
+
+            // 구독이 브로커에 등록될 때까지 다시 보낸다
+            ChatMessage message = null;
+            for (int attempt = 0; attempt < 50 && message == null; attempt++) {
+                session.send("/app/chat.sendMessage/" + roomId,
+                        ChatMessage.of("스케일링 예약 문의", username, UserRole.CUSTOMER, MessageType.CHAT, roomId));
+                message = received.poll(200, TimeUnit.MILLISECONDS);
+            }
+            assertThat(message).isNotNull();
+            assertThat(message.sender()).isEqualTo(username);
+            assertThat(message.content()).isEqualTo("스케일링 예약 문의");
+        } finally {
+            session.disconnect();
+        }
+
+        // 같은 토큰으로 채팅 API 도 부를 수 있다
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+        HttpResponse<String> history = httpClient.send(HttpRequest.newBuilder(uri("/chat/api/rooms/" + roomId + "/messages"))
+                .header("Authorization", "Bearer " + token)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertThat(history.statusCode()).isEqualTo(200);
+        assertThat(history.body()).contains("스케일링 예약 문의");
+    }
+
+    private HttpResponse<String> get(String path) throws Exception {
+        return httpClient.send(HttpRequest.newBuilder(uri(path)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static String meta(String page, String name) {
+        Matcher matcher = META.matcher(page);
+        while (matcher.find()) {
+            if (matcher.group(1).equals(name)) {
+                return matcher.group(2);
+            }
+        }
+        throw new AssertionError(name + " meta 태그가 없습니다.");
+    }
+}
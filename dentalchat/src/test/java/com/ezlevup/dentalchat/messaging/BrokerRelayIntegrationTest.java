@@ -0,0 +1,329 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.DentalchatApplication;
+import com.ezlevup.dentalchat.dto.ChatHistoryPage;
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import com.ezlevup.dentalchat.service.ChatRoomService;
+import com.ezlevup.dentalchat.service.MessageBatchWriter;
+import com.ezlevup.dentalchat.service.MessageService;
+import com.ezlevup.dentalchat.service.UserService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * relay 프로파일로 두 노드를 띄우고 한 노드에 접속한 고객과 다른 노드에 접속한 상담원이
+ * 같은 채팅방 토픽을 주고받는지 확인한다. 노드 A 가 내장 Artemis 브로커를 띄우고 두 노드는 같은 DB 를 공유한다.
+ */
+class BrokerRelayIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BrokerRelayIntegrationTest.class);
+
+    private static final int WARM_UP_ROUNDS = 50;
+
+    private static final int MEASURED_ROUNDS = 200;
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+    private static ChatParticipants participants;
+
+    private final WebSocketStompClient stompClient = createStompClient();
+
+    @BeforeAll
+    static void startNodes() throws IOException {
+        int brokerPort = findFreePort();
+        String database = "jdbc:h2:mem:relay_nodes;DB_CLOSE_DELAY=-1";
+
+        nodeA = startNode(true,
+                "--spring.datasource.url=" + database,
+                "--dental-chat.broker.relay.port=" + brokerPort,
+                "--dental-chat.broker.relay.embedded.enabled=true");
+        nodeB = startNode(true,
+                "--spring.datasource.url=" + database,
+                "--dental-chat.broker.relay.port=" + brokerPort,
+                "--dental-chat.broker.relay.embedded.enabled=false");
+
+        participants = ChatParticipants.create(nodeA);
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) {
+            nodeB.close();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+    }
+
+    @Test
+    void testMessagesAreDeliveredAcrossNodes() throws Exception {
+        RoomConnection customer = connect(nodeA, participants.roomId(), participants.customer());
+        RoomConnection admin = connect(nodeB, participants.roomId(), participants.admin());
+        try {
+            awaitSubscription(customer, admin, participants);
+
+            customer.send(participants.customerMessage("노드 A 에서 보낸 질문입니다."));
+            assertThat(admin.awaitContent("노드 A 에서 보낸 질문입니다.")).isNotNull()
+                    .extracting(ChatMessage::senderRole).isEqualTo(UserRole.CUSTOMER);
+
+            admin.send(participants.adminMessage("노드 B 에서 보낸 답변입니다."));
+            assertThat(customer.awaitContent("노드 B 에서 보낸 답변입니다.")).isNotNull()
+                    .extracting(ChatMessage::senderRole).isEqualTo(UserRole.ADMIN);
+        } finally {
+            customer.disconnect();
+            admin.disconnect();
+        }
+    }
+
+    /**
+     * 링 버퍼가 한 번 넘친 방도 STOMP 로 들어온 메시지에 id 가 붙어 있으므로 최신 페이지를 캐시에서 답한다.
+     */
+    @Test
+    void testLatestPageIsServedFromCacheAfterBufferOverflows() throws Exception {
+        int messagesPerRoom = nodeA.getEnvironment()
+                .getProperty("dental-chat.chat-room.recent-cache.messages-per-room", Integer.class, 50);
+        ChatParticipants room = ChatParticipants.create(nodeA);
+        RoomConnection customer = connect(nodeA, room.roomId(), room.customer());
+        RoomConnection admin = connect(nodeB, room.roomId(), room.admin());
+        try {
+            awaitSubscription(customer, admin, room);
+            for (int i = 0; i < messagesPerRoom + 10; i++) {
+                customer.send(room.customerMessage("overflow-" + i));
+            }
+            assertThat(admin.awaitContent("overflow-" + (messagesPerRoom + 9))).isNotNull();
+        } finally {
+            customer.disconnect();
+            admin.disconnect();
+        }
+        assertThat(nodeA.getBean(MessageBatchWriter.class).awaitFlush(10_000)).isTrue();
+
+        Counter hits = nodeA.getBean(MeterRegistry.class)
+                .get("dentalchat.recent.cache.requests").tag("result", "hit").counter();
+        double hitsBefore = hits.count();
+        ChatHistoryPage page = nodeA.getBean(MessageService.class).getChatHistory(room.roomId(), null, 20);
+
+        assertThat(hits.count()).isEqualTo(hitsBefore + 1);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(page.messages()).last().extracting(ChatMessage::content).isEqualTo("overflow-" + (messagesPerRoom + 9));
+        // 캐시가 준 커서로 DB 에서 이어지는 이전 페이지를 읽을 수 있다
+        ChatHistoryPage previous = nodeA.getBean(MessageService.class)
+                .getChatHistory(room.roomId(), page.nextBeforeMessageId(), 20);
+        assertThat(previous.messages()).last().extracting(ChatMessage::content).isEqualTo("overflow-" + (messagesPerRoom - 11));
+    }
+
+    @Test
+    void testRelayLatencyComparedToSimpleBroker() throws Exception {
+        List<Long> relayLatencies;
+        RoomConnection customer = connect(nodeA, participants.roomId(), participants.customer());
+        RoomConnection admin = connect(nodeB, participants.roomId(), participants.admin());
+        try {
+            awaitSubscription(customer, admin, participants);
+            relayLatencies = measure(customer, admin, participants);
+        } finally {
+            customer.disconnect();
+            admin.disconnect();
+        }
+
+        List<Long> simpleLatencies;
+        try (ConfigurableApplicationContext simpleNode = startNode(false,
+                "--spring.datasource.url=jdbc:h2:mem:simple_node;DB_CLOSE_DELAY=-1")) {
+            ChatParticipants local = ChatParticipants.create(simpleNode);
+            RoomConnection localCustomer = connect(simpleNode, local.roomId(), local.customer());
+            RoomConnection localAdmin = connect(simpleNode, local.roomId(), local.admin());
+            try {
+                awaitSubscription(localCustomer, localAdmin, local);
+                simpleLatencies = measure(localCustomer, localAdmin, local);
+            } finally {
+                localCustomer.disconnect();
+                localAdmin.disconnect();
+            }
+        }
+
+        logger.info("브로커별 전달 지연 (us): simple [{}], relay [{}], 증가분 p50={}us p99={}us",
+                summarize(simpleLatencies), summarize(relayLatencies),
+                percentile(relayLatencies, 50) - percentile(simpleLatencies, 50),
+                percentile(relayLatencies, 99) - percentile(simpleLatencies, 99));
+
+        assertThat(relayLatencies).hasSize(MEASURED_ROUNDS);
+        assertThat(simpleLatencies).hasSize(MEASURED_ROUNDS);
+    }
+
+    /**
+     * 한 번에 한 메시지만 보내고 받은 뒤 다음 메시지를 보내서 큐잉 없이 순수 전달 지연만 잰다.
+     */
+    private List<Long> measure(RoomConnection sender, RoomConnection receiver, ChatParticipants participants)
+            throws InterruptedException {
+        List<Long> latencies = new ArrayList<>(MEASURED_ROUNDS);
+        for (int i = 0; i < WARM_UP_ROUNDS + MEASURED_ROUNDS; i++) {
+            String content = "latency-" + i;
+            long startedAt = System.nanoTime();
+            sender.send(participants.customerMessage(content));
+            assertThat(receiver.awaitContent(content)).isNotNull();
+            if (i >= WARM_UP_ROUNDS) {
+                latencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt));
+            }
+        }
+        return latencies;
+    }
+
+    /**
+     * 구독이 브로커까지 전달됐는지 알 수 있는 방법이 브로커마다 달라서, 상대 쪽에서 메시지가 보일 때까지 재전송한다.
+     */
+    private void awaitSubscription(RoomConnection sender, RoomConnection receiver, ChatParticipants participants)
+            throws InterruptedException {
+        for (int attempt = 0; attempt < 50; attempt++) {
+            sender.send(participants.customerMessage("ping"));
+            if (receiver.messages.poll(200, TimeUnit.MILLISECONDS) != null) {
+                Thread.sleep(200);
+                receiver.messages.clear();
+                sender.messages.clear();
+                return;
+            }
+        }
+        throw new AssertionError("구독이 브로커에 등록되지 않았습니다.");
+    }
+
+    /**
+     * 노드 B 는 노드 A 에서 만든 방을 모르므로 참여자 확인 때 공유 DB 에서 읽는다.
+     */
+    private RoomConnection connect(ConfigurableApplicationContext node, String roomId, String username) throws Exception {
+        int port = ((WebServerApplicationContext) node).getWebServer().getPort();
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add(RoomMembershipInterceptor.TOKEN_HEADER, node.getBean(ChatAccessTokenService.class).issue(username));
+        StompSession session = stompClient
+                .connectAsync("ws://localhost:" + port + "/chat/websocket", new WebSocketHttpHeaders(), connectHeaders,
+                        new StompSessionHandlerAdapter() {
+                        })
+                .get(10, TimeUnit.SECONDS);
+
+        RoomConnection connection = new RoomConnection(session, roomId);
+        session.subscribe(RoomBroadcaster.ROOM_TOPIC_PREFIX + roomId, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return ChatMessage.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                connection.messages.add((ChatMessage) payload);
+            }
+        });
+        return connection;
+    }
+
+    private static WebSocketStompClient createStompClient() {
+        WebSocketStompClient client = new WebSocketStompClient(new StandardWebSocketClient());
+        client.setMessageConverter(new ChatMessageConverter(new ChatMessageCodec()));
+        return client;
+    }
+
+    private static ConfigurableApplicationContext startNode(boolean relay, String... args) {
+        List<String> arguments = new ArrayList<>(List.of("--server.port=0", "--logging.level.root=WARN"));
+        arguments.addAll(List.of(args));
+        return new SpringApplicationBuilder(DentalchatApplication.class)
+                .profiles(relay ? new String[]{"test", "relay"} : new String[]{"test"})
+                .run(arguments.toArray(String[]::new));
+    }
+
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static String summarize(List<Long> latencies) {
+        return "p50=" + percentile(latencies, 50) + ", p95=" + percentile(latencies, 95)
+                + ", p99=" + percentile(latencies, 99) + ", max=" + percentile(latencies, 100);
+    }
+
+    private static long percentile(List<Long> latencies, int percentile) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, index));
+    }
+
+    private record ChatParticipants(String roomId, String customer, String admin) {
+
+        static ChatParticipants create(ConfigurableApplicationContext node) {
+            UserService userService = node.getBean(UserService.class);
+            ChatRoomService chatRoomService = node.getBean(ChatRoomService.class);
+            User customer = userService.createCustomer("릴레이 고객");
+            User admin = userService.createAdmin("relay_admin_" + System.nanoTime(), "릴레이 상담원");
+            ChatRoom room = chatRoomService.createChatRoom(customer, "릴레이 테스트");
+            chatRoomService.assignAdmin(room.getRoomId(), admin);
+            return new ChatParticipants(room.getRoomId(), customer.getUsername(), admin.getUsername());
+        }
+
+        ChatMessage customerMessage(String content) {
+            return ChatMessage.of(content, customer, UserRole.CUSTOMER, MessageType.CHAT, roomId);
+        }
+
+        ChatMessage adminMessage(String content) {
+            return ChatMessage.of(content, admin, UserRole.ADMIN, MessageType.CHAT, roomId);
+        }
+    }
+
+    private static final class RoomConnection {
+
+        private final StompSession session;
+        private final String roomId;
+        private final BlockingQueue<ChatMessage> messages = new LinkedBlockingQueue<>();
+
+        private RoomConnection(StompSession session, String roomId) {
+            this.session = session;
+            this.roomId = roomId;
+        }
+
+        void send(ChatMessage message) {
+            session.send("/app/chat.sendMessage/" + roomId, message);
+        }
+
+        ChatMessage awaitContent(String content) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (System.nanoTime() < deadline) {
+                ChatMessage message = messages.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (message != null && content.equals(message.content())) {
+                    return message;
+                }
+            }
+            return null;
+        }
+
+        void disconnect() {
+            session.disconnect();
+        }
+    }
+}
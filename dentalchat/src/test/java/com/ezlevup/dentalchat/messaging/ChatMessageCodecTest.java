@@ -0,0 +1,83 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.ReadReceipt;
+import com.ezlevup.dentalchat.dto.UserRole;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ChatMessageCodecTest {
+
+    private final ChatMessageCodec codec = new ChatMessageCodec();
+
+    @Test
+    void testDecodeClientPayload() {
+        ChatMessage message = codec.decode(bytes(
+                "{\"sender\":\"customer1\",\"senderRole\":\"customer\",\"content\":\"임플란트 비용이 궁금해요\",\"type\":\"CHAT\",\"roomId\":\"room_1\"}"));
+
+        assertThat(message.content()).isEqualTo("임플란트 비용이 궁금해요");
+        assertThat(message.sender()).isEqualTo("customer1");
+        assertThat(message.senderRole()).isEqualTo(UserRole.CUSTOMER);
+        assertThat(message.type()).isEqualTo(MessageType.CHAT);
+        assertThat(message.timestamp()).isNull();
+        assertThat(message.roomId()).isEqualTo("room_1");
+    }
+
+    @Test
+    void testDecodeSnakeCaseAndUnknownFields() {
+        ChatMessage message = codec.decode(bytes(
+                "{\"sender\":\"admin1\",\"sender_role\":\"ADMIN\",\"extra\":{\"nested\":[1,2]},\"room_id\":\"room_2\",\"content\":null,\"type\":\"join\"}"));
+
+        assertThat(message.senderRole()).isEqualTo(UserRole.ADMIN);
+        assertThat(message.roomId()).isEqualTo("room_2");
+        assertThat(message.content()).isNull();
+        assertThat(message.type()).isEqualTo(MessageType.JOIN);
+    }
+
+    @Test
+    void testRoundTrip() {
+        ChatMessage original = new ChatMessage("\"따옴표\" 와 줄바꿈\n", "admin1", UserRole.ADMIN, MessageType.LEAVE,
+                LocalDateTime.of(2024, 5, 1, 9, 30, 15, 123_000_000), "room_3");
+
+        assertThat(codec.decode(codec.encode(original))).isEqualTo(original);
+    }
+
+    @Test
+    void testInvalidPayload() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(bytes("[1,2,3]")));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(bytes("{\"senderRole\":\"DENTIST\"}")));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(bytes("{\"content\":")));
+    }
+
+    @Test
+    void testConverterReadsFrameBytes() {
+        ChatMessageConverter converter = new ChatMessageConverter(codec);
+        Message<byte[]> frame = MessageBuilder.withPayload(bytes(
+                "{\"sender\":\"customer1\",\"senderRole\":\"CUSTOMER\",\"content\":\"hi\",\"type\":\"CHAT\"}")).build();
+
+        Object converted = converter.fromMessage(frame, ChatMessage.class);
+
+        assertThat(converted).isInstanceOf(ChatMessage.class);
+        assertThat(converter.fromMessage(frame, String.class)).isNull();
+    }
+
+    @Test
+    void testEncodeReadReceipt() {
+        byte[] encoded = codec.encode(new ReadReceipt("room_1", "admin1", 42L));
+
+        assertThat(new String(encoded, StandardCharsets.UTF_8))
+                .isEqualTo("{\"type\":\"READ\",\"roomId\":\"room_1\",\"reader\":\"admin1\",\"lastReadMessageId\":42}");
+    }
+
+    private byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
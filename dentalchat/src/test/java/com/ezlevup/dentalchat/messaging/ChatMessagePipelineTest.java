@@ -0,0 +1,136 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.service.MessageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMessagePipelineTest {
+
+    private static final Long MESSAGE_ID = 42L;
+
+    @Mock
+    private MessageService messageService;
+
+    private List<ChatMessageStage> stages;
+
+    @BeforeEach
+    void setUp() {
+        stages = new ArrayList<>(List.of(
+                new ParseMessageStage(new ChatMessageCodec()),
+                new ValidateMessageStage(),
+                new EnrichMessageStage(),
+                new PersistMessageStage(messageService),
+                new BroadcastMessageStage(messageService)
+        ));
+    }
+
+    @Test
+    void testChatMessageRunsThroughAllStages() {
+        when(messageService.enqueueMessage(any(ChatMessage.class))).thenAnswer(invocation -> new MessageService.EnqueuedMessage(MESSAGE_ID, invocation.getArgument(0)));
+
+        ChatMessage result = pipeline().submit(context(MessageType.CHAT,
+                "{\"content\":\"잇몸이 부었어요\",\"sender\":\"customer1\",\"senderRole\":\"CUSTOMER\",\"type\":\"CHAT\"}")).join();
+
+        ArgumentCaptor<ChatMessage> broadcasted = ArgumentCaptor.forClass(ChatMessage.class);
+        verify(messageService).broadcast(broadcasted.capture(), eq(MESSAGE_ID));
+        assertThat(broadcasted.getValue()).isEqualTo(result);
+        assertThat(result.roomId()).isEqualTo("room_1");
+        assertThat(result.type()).isEqualTo(MessageType.CHAT);
+        assertThat(result.timestamp()).isNotNull();
+    }
+
+    @Test
+    void testJoinMessageBindsSessionAndBuildsContent() {
+        when(messageService.enqueueMessage(any(ChatMessage.class))).thenAnswer(invocation -> new MessageService.EnqueuedMessage(MESSAGE_ID, invocation.getArgument(0)));
+        Map<String, Object> sessionAttributes = new HashMap<>(Map.of("username", "customer1"));
+
+        ChatMessage result = pipeline().submit(new ChatMessageContext("room_1", MessageType.JOIN, "session-1", sessionAttributes,
+                "{\"content\":\"\",\"sender\":\"customer1\",\"senderRole\":\"CUSTOMER\",\"type\":\"JOIN\"}"
+                        .getBytes(StandardCharsets.UTF_8))).join();
+
+        assertThat(result.content()).isEqualTo("customer1 joined the room");
+        assertThat(result.type()).isEqualTo(MessageType.JOIN);
+        assertThat(sessionAttributes).containsEntry("roomId", "room_1").containsEntry("username", "customer1");
+    }
+
+    @Test
+    void testInvalidMessageIsNotBroadcast() {
+        CompletionException error = assertThrows(CompletionException.class, () -> pipeline().submit(context(MessageType.CHAT,
+                "{\"content\":\"  \",\"sender\":\"customer1\",\"senderRole\":\"CUSTOMER\",\"type\":\"CHAT\"}")).join());
+
+        assertThat(error.getCause()).isInstanceOf(IllegalArgumentException.class);
+        verify(messageService, never()).enqueueMessage(any());
+        verify(messageService, never()).broadcast(any(), any());
+    }
+
+    @Test
+    void testSenderMustMatchSessionUser() {
+        Map<String, Object> sessionAttributes = new HashMap<>(Map.of("username", "customer1"));
+
+        CompletionException error = assertThrows(CompletionException.class, () -> pipeline().submit(
+                new ChatMessageContext("room_1", MessageType.CHAT, "session-1", sessionAttributes,
+                        "{\"content\":\"안녕하세요\",\"sender\":\"admin1\",\"senderRole\":\"ADMIN\",\"type\":\"CHAT\"}"
+                                .getBytes(StandardCharsets.UTF_8))).join());
+
+        assertThat(error.getCause()).isInstanceOf(IllegalArgumentException.class);
+        verify(messageService, never()).enqueueMessage(any());
+    }
+
+    @Test
+    void testUnknownRoomIsStillBroadcast() {
+        when(messageService.enqueueMessage(any(ChatMessage.class))).thenThrow(new IllegalArgumentException("채팅방을 찾을 수 없습니다."));
+
+        pipeline().submit(context(MessageType.CHAT,
+                "{\"content\":\"안녕하세요\",\"sender\":\"guest\",\"senderRole\":\"CUSTOMER\",\"type\":\"CHAT\"}")).join();
+
+        verify(messageService).broadcast(any(ChatMessage.class), isNull());
+    }
+
+    @Test
+    void testCustomStageIsPluggedIn() {
+        when(messageService.enqueueMessage(any(ChatMessage.class))).thenAnswer(invocation -> new MessageService.EnqueuedMessage(MESSAGE_ID, invocation.getArgument(0)));
+        stages.add(3, context -> {
+            ChatMessage message = context.getMessage();
+            context.setMessage(new ChatMessage(message.content().toUpperCase(), message.sender(), message.senderRole(),
+                    message.type(), message.timestamp(), message.roomId()));
+        });
+
+        ChatMessage result = pipeline().submit(context(MessageType.CHAT,
+                "{\"content\":\"hello\",\"sender\":\"admin1\",\"senderRole\":\"ADMIN\",\"type\":\"CHAT\"}")).join();
+
+        assertThat(result.content()).isEqualTo("HELLO");
+        assertThat(result.senderRole()).isEqualTo(UserRole.ADMIN);
+    }
+
+    private ChatMessagePipeline pipeline() {
+        return new ChatMessagePipeline(stages, (roomId, task) -> task.run());
+    }
+
+    private ChatMessageContext context(MessageType type, String payload) {
+        return new ChatMessageContext("room_1", type, "session-1", new HashMap<>(), payload.getBytes(StandardCharsets.UTF_8));
+    }
+}
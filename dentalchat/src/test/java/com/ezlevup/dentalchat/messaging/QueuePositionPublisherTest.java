@@ -0,0 +1,93 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.QueuePosition;
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.service.AdminLoadIndex;
+import com.ezlevup.dentalchat.service.ConsultationRouter;
+import com.ezlevup.dentalchat.service.WaitTimeEstimator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class QueuePositionPublisherTest {
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+
+    private final ConsultationRouter router = new ConsultationRouter();
+
+    private final AdminLoadIndex admins = new AdminLoadIndex();
+
+    // 상담원 1 명 * 최대 2 건, 평균 상담 시간 4분
+    private final WaitTimeEstimator estimator = new WaitTimeEstimator(admins, 2, 0.5, 240_000);
+
+    private final QueuePositionPublisher publisher =
+            new QueuePositionPublisher(messagingTemplate, router, estimator, new SimpleMeterRegistry());
+
+    @Test
+    void testSendsOnlyChangedPositionsOncePerFlush() {
+        admins.updateStatus(1L, true);
+        for (int i = 1; i <= 3; i++) {
+            router.offer("room_" + i, ConsultationType.GENERAL, i);
+            publisher.subscribe("session_" + i, "sub-0", "room_" + i);
+        }
+
+        assertThat(publisher.flush()).isEqualTo(3);
+        assertThat(sentTo("session_3")).isEqualTo(new QueuePosition("room_3", ConsultationType.GENERAL, 3, 6));
+
+        // 바뀐 것이 없으면 보내지 않는다
+        clearInvocations(messagingTemplate);
+        assertThat(publisher.flush()).isZero();
+        verify(messagingTemplate, never()).convertAndSendToUser(anyString(), anyString(), any(), anyMap());
+
+        // 두 명이 배정되어도 남은 고객에게는 한 번만 보낸다
+        router.remove("room_1");
+        router.remove("room_2");
+        assertThat(publisher.flush()).isEqualTo(3);
+        assertThat(sentTo("session_1")).isEqualTo(new QueuePosition("room_1", null, 0, 0));
+        assertThat(sentTo("session_3")).isEqualTo(new QueuePosition("room_3", ConsultationType.GENERAL, 1, 2));
+        assertThat(publisher.getSubscriberCount()).isEqualTo(1);
+
+        publisher.unsubscribe("session_3", "sub-0");
+        assertThat(publisher.getSubscriberCount()).isZero();
+    }
+
+    @Test
+    void testEstimateFollowsMovingAverageOfHandleTime() {
+        admins.updateStatus(1L, true);
+        assertThat(estimator.estimateWaitMillis(ConsultationType.GENERAL, 2)).isEqualTo(240_000);
+
+        estimator.recordHandleTime(Duration.ofMinutes(8));
+        assertThat(estimator.getAverageHandleMillis()).isEqualTo(360_000);
+
+        // 상담원이 늘면 같은 순번의 예상 대기 시간이 줄어든다
+        admins.updateStatus(2L, true);
+        assertThat(estimator.estimateWaitMillis(ConsultationType.GENERAL, 2)).isEqualTo(180_000);
+        admins.updateSkills(2L, Set.of(ConsultationType.IMPLANT));
+        assertThat(estimator.estimateWaitMillis(ConsultationType.GENERAL, 2)).isEqualTo(360_000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private QueuePosition sentTo(String sessionId) {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Map<String, Object>> headers = ArgumentCaptor.forClass(Map.class);
+        verify(messagingTemplate).convertAndSendToUser(eq(sessionId), eq(QueuePositionPublisher.POSITION_QUEUE),
+                payload.capture(), headers.capture());
+        assertThat(headers.getValue()).containsEntry("simpSessionId", sessionId);
+        return (QueuePosition) payload.getValue();
+    }
+}
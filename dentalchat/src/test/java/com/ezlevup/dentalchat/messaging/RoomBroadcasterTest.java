@@ -0,0 +1,63 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageSendingOperations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class RoomBroadcasterTest {
+
+    private final SimpMessageSendingOperations messagingTemplate = mock(SimpMessageSendingOperations.class);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ChatMessageCodec codec = new ChatMessageCodec();
+
+    private final ChatMessage message = ChatMessage.of("예약 확인 부탁드립니다", "customer1", UserRole.CUSTOMER,
+            MessageType.CHAT, "room_1");
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEncodesOnceAndSharesFrameAcrossTopics() {
+        RoomBroadcaster broadcaster = new RoomBroadcaster(messagingTemplate, codec, meterRegistry, true);
+
+        broadcaster.broadcast(message);
+
+        ArgumentCaptor<Message<?>> sent = ArgumentCaptor.forClass(Message.class);
+        verify(messagingTemplate).send(eq("/topic/room/room_1"), sent.capture());
+        verify(messagingTemplate).send(eq(RoomBroadcaster.ADMIN_MONITOR_TOPIC), sent.capture());
+
+        Object roomPayload = sent.getAllValues().get(0).getPayload();
+        Object monitorPayload = sent.getAllValues().get(1).getPayload();
+        assertThat(roomPayload).isInstanceOf(byte[].class).isSameAs(monitorPayload);
+        assertThat(codec.decode((byte[]) roomPayload)).isEqualTo(message);
+
+        DistributionSummary encodedBytes = meterRegistry.get("dentalchat.broadcast.encoded.bytes").summary();
+        assertThat(encodedBytes.count()).isEqualTo(1);
+        assertThat(encodedBytes.totalAmount()).isEqualTo(((byte[]) roomPayload).length);
+        assertThat(meterRegistry.get("dentalchat.broadcast.frames").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void testAdminMonitorCanBeDisabled() {
+        RoomBroadcaster broadcaster = new RoomBroadcaster(messagingTemplate, codec, meterRegistry, false);
+
+        broadcaster.broadcast(message);
+
+        verify(messagingTemplate, times(1)).send(eq("/topic/room/room_1"), any(Message.class));
+        verify(messagingTemplate, never()).send(eq(RoomBroadcaster.ADMIN_MONITOR_TOPIC), any(Message.class));
+    }
+}
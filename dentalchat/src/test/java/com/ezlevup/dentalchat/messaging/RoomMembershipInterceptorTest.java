@@ -0,0 +1,197 @@
+package com.ezlevup.dentalchat.messaging;
+
+import com.ezlevup.dentalchat.dto.RoomMemberRow;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.ezlevup.dentalchat.service.ChatAccessTokenService;
+import com.ezlevup.dentalchat.service.RoomMembershipIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class RoomMembershipInterceptorTest {
+
+    @Mock
+    private ChatRoomRepository chatRoomRepository;
+
+    @InjectMocks
+    private RoomMembershipIndex roomMembershipIndex;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    private final ChatAccessTokenService chatAccessTokenService = tokenService("interceptor-test-chat-token-secret-0123");
+
+    @Test
+    void testOnlyParticipantsCanSendAndSubscribe() {
+        RoomMembershipInterceptor interceptor = new RoomMembershipInterceptor(roomMembershipIndex, chatAccessTokenService, meterRegistry);
+        roomMembershipIndex.onRoomCreated("room_1", "customer1");
+        roomMembershipIndex.onAdminAssigned("room_1", "admin1");
+        Principal customer = connect(interceptor, chatAccessTokenService.issue("customer1"));
+        Principal stranger = connect(interceptor, chatAccessTokenService.issue("stranger"));
+
+        interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/room/room_1", customer), channel);
+        interceptor.preSend(frame(StompCommand.SEND, "/app/chat.sendMessage/room_1", customer), channel);
+
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/room/room_1", stranger), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/app/chat.joinRoom/room_1", stranger), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        // 참여자라도 방 토픽에 직접 보낼 수 없고, 참여자가 아니면 읽음 처리도 할 수 없다
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/topic/room/room_1", customer), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/app/chat.read/room_1", stranger), channel))
+                .isInstanceOf(AccessDeniedException.class);
+
+        // 상담원까지 배정된 방은 DB 를 조회하지 않는다
+        verifyNoInteractions(chatRoomRepository);
+        assertThat(meterRegistry.get("dentalchat.stomp.denied").tag("command", "SEND").counter().count()).isEqualTo(3);
+        assertThat(meterRegistry.get("dentalchat.stomp.denied").tag("command", "SUBSCRIBE").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testUnknownRoomIsLoadedOnceAndEndedRoomIsDenied() {
+        RoomMembershipInterceptor interceptor = new RoomMembershipInterceptor(roomMembershipIndex, chatAccessTokenService, meterRegistry);
+        when(chatRoomRepository.findOpenRoomMembers("room_2"))
+                .thenReturn(Optional.of(new RoomMemberRow("room_2", "customer2", "admin2")));
+        Principal admin = connect(interceptor, chatAccessTokenService.issue("admin2"));
+
+        // 다른 노드에서 만들어지고 배정된 방
+        interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/room/room_2", admin), channel);
+        interceptor.preSend(frame(StompCommand.SEND, "/app/chat.sendMessage/room_2", admin), channel);
+        verify(chatRoomRepository).findOpenRoomMembers("room_2");
+        assertThat(roomMembershipIndex.size()).isEqualTo(1);
+
+        roomMembershipIndex.onRoomEnded("room_2");
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, "/app/chat.sendMessage/room_2", admin), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(roomMembershipIndex.size()).isZero();
+    }
+
+    @Test
+    void testDeniedFramesDoNotQueryDatabaseEachTime() {
+        ReflectionTestUtils.setField(roomMembershipIndex, "maxLoadsPerSecond", 3);
+        RoomMembershipInterceptor interceptor = new RoomMembershipInterceptor(roomMembershipIndex, chatAccessTokenService, meterRegistry);
+        when(chatRoomRepository.findOpenRoomMembers(anyString())).thenReturn(Optional.empty());
+        Principal stranger = connect(interceptor, chatAccessTokenService.issue("stranger"));
+
+        // 없는 방은 recheck-interval 동안 다시 조회하지 않는다
+        for (int i = 0; i < 10; i++) {
+            assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/room/missing", stranger), channel))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+        verify(chatRoomRepository, times(1)).findOpenRoomMembers("missing");
+
+        // 매번 다른 roomId 를 지어내도 초당 조회 수는 상한을 넘지 않는다
+        for (int i = 0; i < 10; i++) {
+            String destination = "/topic/room/made_up_" + i;
+            assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, destination, stranger), channel))
+                    .isInstanceOf(AccessDeniedException.class);
+        }
+        verify(chatRoomRepository, atMost(3)).findOpenRoomMembers(anyString());
+    }
+
+    @Test
+    void testConnectNeedsLoginOrSignedToken() {
+        RoomMembershipInterceptor interceptor = new RoomMembershipInterceptor(roomMembershipIndex, chatAccessTokenService, meterRegistry);
+        String token = chatAccessTokenService.issue("customer1");
+
+        // 사용자명을 바꾸거나 다른 키로 서명한 토큰은 거부된다
+        String forged = Base64.getUrlEncoder().withoutPadding().encodeToString("admin1".getBytes(StandardCharsets.UTF_8))
+                + token.substring(token.indexOf('.'));
+        assertThatThrownBy(() -> connect(interceptor, forged)).isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> connect(interceptor, tokenService("another-node-chat-token-secret-456789").issue("customer1"))).isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> connect(interceptor, null)).isInstanceOf(AccessDeniedException.class);
+
+        Map<String, Object> sessionAttributes = new HashMap<>();
+        assertThat(connect(interceptor, token, sessionAttributes).getName()).isEqualTo("customer1");
+        assertThat(sessionAttributes).containsEntry(RoomMembershipInterceptor.USERNAME_ATTRIBUTE, "customer1");
+        assertThat(meterRegistry.get("dentalchat.stomp.denied").tag("command", "CONNECT").counter().count()).isEqualTo(3);
+    }
+
+    @Test
+    void testAdminMonitorNeedsAdminLoginAndOtherBrokerDestinationsAreClosed() {
+        RoomMembershipInterceptor interceptor = new RoomMembershipInterceptor(roomMembershipIndex, chatAccessTokenService, meterRegistry);
+        Principal customer = connect(interceptor, chatAccessTokenService.issue("customer1"));
+        Principal admin = UsernamePasswordAuthenticationToken.authenticated("admin", null,
+                List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        interceptor.preSend(frame(StompCommand.SUBSCRIBE, RoomBroadcaster.ADMIN_MONITOR_TOPIC, admin), channel);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, RoomBroadcaster.ADMIN_MONITOR_TOPIC, customer), channel))
+                .isInstanceOf(AccessDeniedException.class);
+
+        // 자기 세션 큐는 구독할 수 있지만 다른 세션의 큐나 알 수 없는 토픽은 안 된다
+        interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/user/queue/history", customer), channel);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/queue/history-usersession-2", customer), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SUBSCRIBE, "/topic/anything", admin), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThatThrownBy(() -> interceptor.preSend(frame(StompCommand.SEND, RoomBroadcaster.ADMIN_MONITOR_TOPIC, admin), channel))
+                .isInstanceOf(AccessDeniedException.class);
+        assertThat(meterRegistry.get("dentalchat.stomp.denied").tag("command", "SUBSCRIBE").counter().count()).isEqualTo(3);
+    }
+
+    private Principal connect(RoomMembershipInterceptor interceptor, String token) {
+        return connect(interceptor, token, new HashMap<>());
+    }
+
+    private Principal connect(RoomMembershipInterceptor interceptor, String token, Map<String, Object> sessionAttributes) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        if (token != null) {
+            accessor.setNativeHeader(RoomMembershipInterceptor.TOKEN_HEADER, token);
+        }
+        accessor.setSessionAttributes(sessionAttributes);
+        accessor.setLeaveMutable(true);
+        Message<byte[]> message = MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+        interceptor.preSend(message, channel);
+        return accessor.getUser();
+    }
+
+    private static ChatAccessTokenService tokenService(String secret) {
+        ChatAccessTokenService service = new ChatAccessTokenService();
+        ReflectionTestUtils.setField(service, "secret", secret);
+        ReflectionTestUtils.setField(service, "ttlMillis", 60_000L);
+        ReflectionTestUtils.invokeMethod(service, "init");
+        return service;
+    }
+
+    private static Message<byte[]> frame(StompCommand command, String destination, Principal user) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setSessionId("session-1");
+        accessor.setUser(user);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+}
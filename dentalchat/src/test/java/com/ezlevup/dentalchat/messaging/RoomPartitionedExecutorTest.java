@@ -0,0 +1,125 @@
+package com.ezlevup.dentalchat.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoomPartitionedExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RoomPartitionedExecutor executor;
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void testMessagesInSameRoomKeepSubmissionOrder() throws Exception {
+        executor = new RoomPartitionedExecutor(4, 1000, meterRegistry);
+        int rooms = 16;
+        int messagesPerRoom = 500;
+        Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(rooms * messagesPerRoom);
+
+        List<Thread> producers = new ArrayList<>();
+        for (int r = 0; r < rooms; r++) {
+            String roomId = "room_" + r;
+            List<Integer> received = new CopyOnWriteArrayList<>();
+            processed.put(roomId, received);
+            producers.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < messagesPerRoom; i++) {
+                    int sequence = i;
+                    executor.execute(roomId, () -> {
+                        received.add(sequence);
+                        done.countDown();
+                    });
+                }
+            }));
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS)).isTrue();
+        processed.values().forEach(received ->
+                assertThat(received).hasSize(messagesPerRoom).isSorted());
+    }
+
+    @Test
+    void testDifferentLanesRunInParallel() throws Exception {
+        executor = new RoomPartitionedExecutor(4, 1000, meterRegistry);
+        String roomA = "room_a";
+        String roomB = findRoomOnOtherLane(roomA);
+        CountDownLatch roomBRan = new CountDownLatch(1);
+        CountDownLatch roomAFinished = new CountDownLatch(1);
+
+        // roomA 작업이 roomB 작업을 기다린다. 같은 레인이었다면 끝나지 않는다.
+        executor.execute(roomA, () -> {
+            try {
+                if (roomBRan.await(5, TimeUnit.SECONDS)) {
+                    roomAFinished.countDown();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(roomB, roomBRan::countDown);
+
+        assertThat(roomAFinished.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void testQueueDepthIsExposedPerLane() throws Exception {
+        executor = new RoomPartitionedExecutor(2, 1000, meterRegistry);
+        String roomId = "room_metrics";
+        int lane = executor.laneOf(roomId);
+        CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(roomId, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int i = 0; i < 3; i++) {
+            executor.execute(roomId, () -> { });
+        }
+
+        double depth = meterRegistry.get("dentalchat.broker.lane.queue.depth")
+                .tag("lane", String.valueOf(lane))
+                .gauge().value();
+        assertThat(depth).isEqualTo(3.0);
+        assertThat(meterRegistry.get("dentalchat.broker.lane.queue.depth").gauges()).hasSize(2);
+        release.countDown();
+    }
+
+    @Test
+    void testZeroPartitionsUsesAvailableProcessors() {
+        executor = new RoomPartitionedExecutor(0, 10, meterRegistry);
+
+        assertThat(executor.getPartitionCount()).isEqualTo(Runtime.getRuntime().availableProcessors());
+    }
+
+    private String findRoomOnOtherLane(String roomId) {
+        int lane = executor.laneOf(roomId);
+        for (int i = 0; ; i++) {
+            String candidate = "room_" + i;
+            if (executor.laneOf(candidate) != lane) {
+                return candidate;
+            }
+        }
+    }
+}
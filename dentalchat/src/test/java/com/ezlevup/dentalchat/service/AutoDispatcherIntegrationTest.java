@@ -0,0 +1,108 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "dental-chat.dispatch.auto.enabled=true",
+        "dental-chat.dispatch.max-rooms-per-admin=1",
+        "spring.datasource.url=jdbc:h2:mem:auto_dispatch"
+})
+@ActiveProfiles("test")
+class AutoDispatcherIntegrationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AutoDispatcherIntegrationTest.class);
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testWaitingRoomsAreDispatchedInArrivalOrderAsAdminsFreeUp() {
+        List<ChatRoom> rooms = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            rooms.add(chatRoomService.createChatRoom(userService.createCustomer("대기 고객 " + i), "자동 배정 " + i));
+        }
+        assertThat(chatRoomService.getWaitingQueueSize()).isEqualTo(3);
+
+        // 상담원이 온라인이 되면 맨 앞 고객부터 배정된다
+        User admin = userService.createAdmin("dispatch_admin", "자동 배정 상담원");
+        awaitCondition(() -> isActive(rooms.get(0)));
+        assertThat(chatRoomService.getWaitingPosition(rooms.get(1).getRoomId())).hasValue(1);
+        assertThat(chatRoomService.getWaitingPosition(rooms.get(2).getRoomId())).hasValue(2);
+
+        // 상담이 끝나 상담원 여유가 생기면 다음 고객이 배정된다
+        chatRoomService.endChatRoom(rooms.get(0).getRoomId());
+        awaitCondition(() -> isActive(rooms.get(1)));
+        assertThat(chatRoomService.findByRoomId(rooms.get(1).getRoomId()).orElseThrow().getAdmin().getId())
+                .isEqualTo(admin.getId());
+        assertThat(chatRoomService.getWaitingPosition(rooms.get(2).getRoomId())).hasValue(1);
+
+        userService.updateUserStatus(admin.getUsername(), User.UserStatus.OFFLINE);
+        chatRoomService.endChatRoom(rooms.get(1).getRoomId());
+        User secondAdmin = userService.createAdmin("dispatch_admin_2", "두 번째 상담원");
+        awaitCondition(() -> isActive(rooms.get(2)));
+        assertThat(chatRoomService.findByRoomId(rooms.get(2).getRoomId()).orElseThrow().getAdmin().getId())
+                .isEqualTo(secondAdmin.getId());
+    }
+
+    @Test
+    void testQueueWaitIsShortWhenAdminsHaveCapacity() {
+        for (int i = 0; i < 10; i++) {
+            userService.createAdmin("capacity_admin_" + i, "상담원 " + i);
+        }
+        Timer waitTimer = meterRegistry.find("dentalchat.dispatch.queue.wait").timer();
+        long before = waitTimer != null ? waitTimer.count() : 0;
+
+        List<ChatRoom> rooms = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            rooms.add(chatRoomService.createChatRoom(userService.createCustomer("즉시 배정 고객 " + i), "대기 시간 측정"));
+        }
+        awaitCondition(() -> rooms.stream().allMatch(this::isActive));
+
+        Timer timer = meterRegistry.get("dentalchat.dispatch.queue.wait").timer();
+        assertThat(timer.count() - before).isEqualTo(10);
+        logger.info("자동 배정 대기 시간: mean={}ms, max={}ms",
+                timer.mean(TimeUnit.MILLISECONDS), timer.max(TimeUnit.MILLISECONDS));
+        assertThat(timer.max(TimeUnit.MILLISECONDS)).isLessThan(1_000);
+    }
+
+    private boolean isActive(ChatRoom room) {
+        return chatRoomService.findByRoomId(room.getRoomId())
+                .map(saved -> saved.getStatus() == ChatRoom.RoomStatus.ACTIVE)
+                .orElse(false);
+    }
+
+    private void awaitCondition(BooleanSupplier condition) {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("자동 배정 대기 시간 초과").isLessThan(deadline);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:assignment_race")
+@ActiveProfiles("test")
+class ChatRoomAssignmentConcurrencyTest {
+
+    private static final int ADMIN_COUNT = 50;
+
+    private static final int ROOM_COUNT = 1000;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Autowired
+    private AdminLoadIndex adminLoadIndex;
+
+    @Autowired
+    private SessionExpiryTracker sessionExpiryTracker;
+
+    @Autowired
+    private RoomMembershipIndex roomMembershipIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void testRolledBackAssignmentAndEndLeaveMemoryStateUnchanged() {
+        User admin = userService.createAdmin("rollback_admin", "롤백 상담원");
+        User customer = userService.createCustomer("롤백 고객");
+        String roomId = chatRoomService.createChatRoom(customer, "롤백").getRoomId();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            chatRoomService.assignAdmin(roomId, admin);
+            status.setRollbackOnly();
+        });
+
+        assertThat(chatRoomService.getWaitingPosition(roomId)).hasValue(1);
+        assertThat(adminLoadIndex.getActiveRooms(admin.getId())).isZero();
+        assertThat(sessionExpiryTracker.getStartTime(roomId)).isEmpty();
+        assertThat(roomMembershipIndex.isMember(roomId, admin.getUsername())).isFalse();
+
+        chatRoomService.assignAdmin(roomId, admin);
+        assertThat(adminLoadIndex.getActiveRooms(admin.getId())).isEqualTo(1);
+
+        transaction.executeWithoutResult(status -> {
+            assertThat(chatRoomService.endChatRooms(List.of(roomId), "롤백될 종료")).hasSize(1);
+            status.setRollbackOnly();
+        });
+
+        assertThat(adminLoadIndex.getActiveRooms(admin.getId())).isEqualTo(1);
+        assertThat(sessionExpiryTracker.getStartTime(roomId)).isPresent();
+        assertThat(roomMembershipIndex.isMember(roomId, admin.getUsername())).isTrue();
+
+        chatRoomService.endChatRooms(List.of(roomId), "상담 종료");
+        assertThat(adminLoadIndex.getActiveRooms(admin.getId())).isZero();
+        assertThat(sessionExpiryTracker.getStartTime(roomId)).isEmpty();
+    }
+
+    @Test
+    void testRolledBackAdminChangesLeaveLoadIndexUnchanged() {
+        User admin = userService.createAdmin("rollback_status_admin", "상태 롤백 상담원");
+        int onlineGeneral = adminLoadIndex.countOnline(ConsultationType.GENERAL);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        transaction.executeWithoutResult(status -> {
+            userService.updateUserStatus(admin.getUsername(), User.UserStatus.OFFLINE);
+            userService.updateAdminSkills(admin.getUsername(), Set.of(ConsultationType.ORTHODONTICS));
+            userService.createAdmin("rollback_new_admin", "생성 롤백 상담원");
+            status.setRollbackOnly();
+        });
+
+        assertThat(adminLoadIndex.countOnline(ConsultationType.GENERAL)).isEqualTo(onlineGeneral);
+
+        userService.updateUserStatus(admin.getUsername(), User.UserStatus.OFFLINE);
+        assertThat(adminLoadIndex.countOnline(ConsultationType.GENERAL)).isEqualTo(onlineGeneral - 1);
+    }
+
+    @Test
+    void testRolledBackCreationLeavesNoWaitingRoom() {
+        User customer = userService.createCustomer("생성 롤백 고객");
+        String roomId = new TransactionTemplate(transactionManager).execute(status -> {
+            status.setRollbackOnly();
+            return chatRoomService.createChatRoom(customer, "롤백될 상담").getRoomId();
+        });
+
+        assertThat(chatRoomService.getWaitingPosition(roomId)).isEmpty();
+        assertThat(roomMembershipIndex.isMember(roomId, customer.getUsername())).isFalse();
+    }
+
+    @Test
+    void testEachRoomIsEndedExactlyOnceUnderContention() throws Exception {
+        User admin = userService.createAdmin("end_race_admin", "종료 경합 상담원");
+        List<String> roomIds = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            User customer = userService.createCustomer("종료 경합 고객 " + i);
+            String roomId = chatRoomService.createChatRoom(customer, "동시 종료").getRoomId();
+            chatRoomService.assignAdmin(roomId, admin);
+            roomIds.add(roomId);
+        }
+
+        // 여러 스레드가 같은 방들을 다른 순서로 동시에 종료한다
+        Map<String, AtomicInteger> endedCounts = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                List<String> order = new ArrayList<>(roomIds);
+                Collections.shuffle(order);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (EndedChatRoom endedRoom : chatRoomService.endChatRooms(order, "동시 종료")) {
+                        endedCounts.computeIfAbsent(endedRoom.roomId(), id -> new AtomicInteger()).incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(endedCounts).hasSize(roomIds.size());
+        assertThat(endedCounts.values()).allSatisfy(count -> assertThat(count.get()).isEqualTo(1));
+        assertThat(adminLoadIndex.getActiveRooms(admin.getId())).isZero();
+    }
+
+    @Test
+    void testEachRoomIsAssignedToExactlyOneAdminUnderContention() throws Exception {
+        List<User> admins = new ArrayList<>();
+        for (int i = 0; i < ADMIN_COUNT; i++) {
+            admins.add(userService.createAdmin("race_admin_" + i, "경합 상담원 " + i));
+        }
+        List<String> roomIds = new ArrayList<>();
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            User customer = userService.createCustomer("경합 고객 " + i);
+            roomIds.add(chatRoomService.createChatRoom(customer, "동시 배정").getRoomId());
+        }
+
+        // 상담원마다 다른 순서로 방을 잡으려고 시도한다. 모든 방이 배정되면 멈춘다.
+        Map<String, List<Long>> winners = new ConcurrentHashMap<>();
+        AtomicInteger lost = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(ADMIN_COUNT);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (User admin : admins) {
+                List<String> order = new ArrayList<>(roomIds);
+                Collections.shuffle(order);
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (String roomId : order) {
+                        if (winners.size() == ROOM_COUNT) {
+                            break;
+                        }
+                        try {
+                            chatRoomService.assignAdmin(roomId, admin);
+                            winners.computeIfAbsent(roomId, id -> Collections.synchronizedList(new ArrayList<>()))
+                                    .add(admin.getId());
+                        } catch (IllegalStateException e) {
+                            lost.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(2, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(winners).hasSize(ROOM_COUNT);
+        assertThat(winners.values()).allSatisfy(ids -> assertThat(ids).hasSize(1));
+        assertThat(lost.get()).isPositive();
+
+        // DB 에 남은 상담원이 성공을 보고받은 상담원과 같아야 한다
+        for (String roomId : roomIds) {
+            ChatRoom room = chatRoomRepository.findByRoomId(roomId).orElseThrow();
+            assertThat(room.getStatus()).isEqualTo(ChatRoom.RoomStatus.ACTIVE);
+            assertThat(room.getAdmin().getId()).isEqualTo(winners.get(roomId).get(0));
+        }
+        assertThat(chatRoomService.getWaitingQueueSize()).isZero();
+    }
+}
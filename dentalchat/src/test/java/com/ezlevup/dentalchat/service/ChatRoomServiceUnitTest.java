@@ -1,26 +1,39 @@
 package com.ezlevup.dentalchat.service;
 
+import com.ezlevup.dentalchat.dto.AdminLoadRow;
+import com.ezlevup.dentalchat.dto.AdminSkillRow;
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
 import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.ConsultationType;
 import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.event.ChatRoomEndedEvent;
 import com.ezlevup.dentalchat.repository.ChatRoomRepository;
 import com.ezlevup.dentalchat.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -34,6 +47,36 @@ class ChatRoomServiceUnitTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private AdminLoadIndex adminLoadIndex;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Mock
+    private MessageService messageService;
+
+    @Spy
+    private SessionExpiryTracker sessionExpiryTracker = createSessionExpiryTracker();
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(0);
+
+    @Spy
+    private ConsultationRouter consultationRouter = new ConsultationRouter();
+
+    @Mock
+    private WaitTimeEstimator waitTimeEstimator;
+
+    @Mock
+    private IdentityCache identityCache;
+
+    @Spy
+    private RoomMembershipIndex roomMembershipIndex = new RoomMembershipIndex();
+
     @InjectMocks
     private ChatRoomService chatRoomService;
 
@@ -76,7 +119,6 @@ class ChatRoomServiceUnitTest {
 
     @Test
     void testCreateChatRoom() {
-        when(chatRoomRepository.findByRoomId(anyString())).thenReturn(Optional.empty());
         when(chatRoomRepository.save(any(ChatRoom.class))).thenReturn(chatRoom);
 
         String customerNotes = "치아 통증으로 상담 요청";
@@ -87,19 +129,20 @@ class ChatRoomServiceUnitTest {
         assertThat(result.getStatus()).isEqualTo(ChatRoom.RoomStatus.WAITING);
         
         verify(chatRoomRepository).save(any(ChatRoom.class));
+        verify(chatRoomRepository, never()).findByRoomId(anyString());
         assertThat(chatRoomService.getWaitingQueueSize()).isGreaterThan(0);
     }
 
     @Test
     void testAssignAdmin() {
         when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
-        when(chatRoomRepository.save(any(ChatRoom.class))).thenReturn(chatRoom);
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(1);
 
         ChatRoom result = chatRoomService.assignAdmin("room_12345678", admin1);
 
         assertThat(result).isNotNull();
         verify(chatRoomRepository).findByRoomId("room_12345678");
-        verify(chatRoomRepository).save(any(ChatRoom.class));
+        verify(chatRoomRepository).assignIfWaiting(eq("room_12345678"), eq(admin1), any(LocalDateTime.class));
     }
 
     @Test
@@ -111,30 +154,102 @@ class ChatRoomServiceUnitTest {
         );
     }
 
+    @Test
+    void testAssignAdminLosesRaceWhenRoomAlreadyTaken() {
+        chatRoomService.addToWaitingQueue("room_12345678");
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThrows(IllegalStateException.class, () ->
+            chatRoomService.assignAdmin("room_12345678", admin1)
+        );
+
+        assertThat(chatRoom.getAdmin()).isNull();
+        verify(chatRoomRepository, never()).save(any(ChatRoom.class));
+        verify(adminLoadIndex, never()).onRoomAssigned(any());
+        assertThat(sessionExpiryTracker.getTrackedCount()).isZero();
+    }
+
     @Test
     void testFindAvailableAdminAndAssign() {
-        List<User> availableAdmins = Arrays.asList(admin1, admin2);
-        when(userRepository.findAvailableAdmins()).thenReturn(availableAdmins);
-        when(chatRoomRepository.findActiveRoomsByAdmin(any(User.class))).thenReturn(Arrays.asList());
+        chatRoomService.addToWaitingQueue("room_12345678");
+        when(adminLoadIndex.findLeastLoaded(ConsultationType.GENERAL, Long.MAX_VALUE)).thenReturn(Optional.of(2L));
+        when(userRepository.getReferenceById(2L)).thenReturn(admin1);
         when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
-        when(chatRoomRepository.save(any(ChatRoom.class))).thenReturn(chatRoom);
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(1);
 
         ChatRoom result = chatRoomService.findAvailableAdminAndAssign("room_12345678");
 
         assertThat(result).isNotNull();
-        verify(userRepository).findAvailableAdmins();
-        verify(chatRoomRepository).save(any(ChatRoom.class));
+        assertThat(chatRoom.getAdmin()).isEqualTo(admin1);
+        verify(adminLoadIndex).onRoomAssigned(2L);
+        verify(chatRoomRepository, never()).findActiveRoomsByAdmin(any(User.class));
+        verify(userRepository, never()).findById(any());
+        verify(chatRoomRepository).assignIfWaiting(eq("room_12345678"), eq(admin1), any(LocalDateTime.class));
+    }
+
+    @Test
+    void testFindAvailableAdminAndAssignUsesRoomConsultationType() {
+        chatRoom.setConsultationType(ConsultationType.IMPLANT);
+        when(adminLoadIndex.findLeastLoaded(ConsultationType.IMPLANT, Long.MAX_VALUE)).thenReturn(Optional.of(3L));
+        when(userRepository.getReferenceById(3L)).thenReturn(admin2);
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(1);
+
+        chatRoomService.findAvailableAdminAndAssign("room_12345678");
+
+        assertThat(chatRoom.getAdmin()).isEqualTo(admin2);
+        verify(adminLoadIndex, never()).findLeastLoaded(eq(ConsultationType.GENERAL), anyLong());
     }
 
     @Test
     void testFindAvailableAdminAndAssignNoAvailableAdmins() {
-        when(userRepository.findAvailableAdmins()).thenReturn(Arrays.asList());
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        when(adminLoadIndex.findLeastLoaded(any(ConsultationType.class), anyLong())).thenReturn(Optional.empty());
 
         assertThrows(IllegalStateException.class, () -> 
             chatRoomService.findAvailableAdminAndAssign("room_12345678")
         );
     }
 
+    @Test
+    void testDispatchNextWaitingCustomerWaitsForAdminCapacity() {
+        chatRoomService.addToWaitingQueue("room_12345678");
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        // 모든 상담원이 max-rooms-per-admin(3) 만큼 상담 중
+        when(adminLoadIndex.findLeastLoaded(ConsultationType.GENERAL, 3L)).thenReturn(Optional.empty());
+
+        assertThat(chatRoomService.dispatchNextWaitingCustomer()).isFalse();
+        assertThat(chatRoomService.getWaitingPosition("room_12345678")).hasValue(1);
+        verify(chatRoomRepository, never()).findByRoomId(anyString());
+
+        when(adminLoadIndex.findLeastLoaded(ConsultationType.GENERAL, 3L)).thenReturn(Optional.of(2L));
+        when(userRepository.getReferenceById(2L)).thenReturn(admin1);
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(1);
+
+        assertThat(chatRoomService.dispatchNextWaitingCustomer()).isTrue();
+        assertThat(chatRoom.getAdmin()).isEqualTo(admin1);
+        assertThat(chatRoomService.getWaitingQueueSize()).isZero();
+        assertThat(meterRegistry.get("dentalchat.dispatch.queue.wait").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void testProcessNextWaitingCustomerKeepsPositionWhenNoAdmin() {
+        ChatRoom secondRoom = new ChatRoom();
+        secondRoom.setRoomId("room_87654321");
+        secondRoom.setStatus(ChatRoom.RoomStatus.WAITING);
+        chatRoomService.addToWaitingQueue("room_12345678");
+        chatRoomService.addToWaitingQueue("room_87654321");
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        when(chatRoomRepository.findByRoomId("room_87654321")).thenReturn(Optional.of(secondRoom));
+
+        assertThrows(IllegalStateException.class, () -> chatRoomService.processNextWaitingCustomer());
+
+        assertThat(chatRoomService.getWaitingPosition("room_12345678")).hasValue(1);
+        assertThat(chatRoomService.getWaitingPosition("room_87654321")).hasValue(2);        // 온라인 상담원이 없어도 배정 시도마다 인덱스를 다시 만들지 않는다
+        verify(adminLoadIndex, never()).rebuild();
+    }
+
     @Test
     void testFindByRoomId() {
         when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
@@ -158,14 +273,15 @@ class ChatRoomServiceUnitTest {
         ChatRoom result = chatRoomService.endChatRoom("room_12345678");
 
         assertThat(result).isNotNull();
+        verify(adminLoadIndex).onRoomEnded(2L);
         verify(chatRoomRepository).findByRoomId("room_12345678");
         verify(chatRoomRepository).save(any(ChatRoom.class));
     }
 
     @Test
     void testIsUserInRoom() {
-        chatRoom.setAdmin(admin1);
-        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        roomMembershipIndex.onRoomCreated("room_12345678", "customer1");
+        roomMembershipIndex.onAdminAssigned("room_12345678", "admin1");
 
         boolean customerInRoom = chatRoomService.isUserInRoom("room_12345678", "customer1");
         boolean adminInRoom = chatRoomService.isUserInRoom("room_12345678", "admin1");
@@ -174,6 +290,8 @@ class ChatRoomServiceUnitTest {
         assertThat(customerInRoom).isTrue();
         assertThat(adminInRoom).isTrue();
         assertThat(strangerInRoom).isFalse();
+        // 상담원까지 배정된 방은 DB 를 조회하지 않고 판단한다
+        verifyNoInteractions(chatRoomRepository);
     }
 
     @Test
@@ -184,6 +302,7 @@ class ChatRoomServiceUnitTest {
         chatRoomService.addToWaitingQueue("room_2");
         
         assertThat(chatRoomService.getWaitingQueueSize()).isEqualTo(2);
+        assertThat(chatRoomService.getWaitingPosition("room_2")).hasValue(2);
 
         String nextRoom = chatRoomService.getNextWaitingCustomer();
         assertThat(nextRoom).isEqualTo("room_1");
@@ -192,4 +311,171 @@ class ChatRoomServiceUnitTest {
         chatRoomService.removeFromWaitingQueue("room_2");
         assertThat(chatRoomService.getWaitingQueueSize()).isEqualTo(0);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testDispatchNextWaitingCustomerDropsRoomTakenElsewhere() {
+        chatRoomService.addToWaitingQueue("room_12345678");
+        when(adminLoadIndex.findLeastLoaded(ConsultationType.GENERAL, 3L)).thenReturn(Optional.of(2L));
+        when(userRepository.getReferenceById(2L)).thenReturn(admin1);
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(0);
+
+        assertThat(chatRoomService.dispatchNextWaitingCustomer()).isTrue();
+        assertThat(chatRoomService.getWaitingQueueSize()).isZero();
+        assertThat(chatRoomService.dispatchNextWaitingCustomer()).isFalse();
+    }
+
+    @Test
+    void testAdminLoadIndexPicksLeastLoadedOnlineAdmin() {
+        AdminLoadIndex index = new AdminLoadIndex();
+        ReflectionTestUtils.setField(index, "chatRoomRepository", chatRoomRepository);
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        when(chatRoomRepository.countActiveRoomsByAdmin()).thenReturn(List.of(
+                new AdminLoadRow(2L, 3L, User.UserStatus.ONLINE), new AdminLoadRow(3L, 1L, User.UserStatus.ONLINE)));
+
+        index.rebuild();
+        assertThat(index.findLeastLoaded()).contains(3L);
+
+        index.onRoomAssigned(3L);
+        index.onRoomAssigned(3L);
+        index.onRoomAssigned(3L);
+        assertThat(index.findLeastLoaded()).contains(2L);
+
+        index.updateStatus(2L, false);
+        assertThat(index.findLeastLoaded()).contains(3L);
+
+        index.onRoomEnded(2L);
+        index.onRoomEnded(2L);
+        index.updateStatus(2L, true);
+        assertThat(index.getActiveRooms(2L)).isEqualTo(1);
+        assertThat(index.findLeastLoaded()).contains(2L);
+    }
+
+    @Test
+    void testAdminLoadIndexFiltersBySkillAndCapacity() {
+        AdminLoadIndex index = new AdminLoadIndex();
+        ReflectionTestUtils.setField(index, "chatRoomRepository", chatRoomRepository);
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        when(chatRoomRepository.countActiveRoomsByAdmin()).thenReturn(List.of(
+                new AdminLoadRow(2L, 0L, User.UserStatus.ONLINE), new AdminLoadRow(3L, 2L, User.UserStatus.ONLINE)));
+        when(userRepository.findAdminSkills()).thenReturn(List.of(
+                new AdminSkillRow(2L, ConsultationType.ORTHODONTICS)));
+
+        index.rebuild();
+
+        // 교정 전문 상담원은 일반 문의를 받지 않고, 담당 분야가 없는 상담원은 모든 분야를 받는다
+        assertThat(index.findLeastLoaded(ConsultationType.ORTHODONTICS, 3)).contains(2L);
+        assertThat(index.findLeastLoaded(ConsultationType.GENERAL, 3)).contains(3L);
+        assertThat(index.findLeastLoaded(ConsultationType.GENERAL, 2)).isEmpty();
+
+        index.updateSkills(3L, Set.of(ConsultationType.EMERGENCY));
+        assertThat(index.findLeastLoaded(ConsultationType.GENERAL, 3)).isEmpty();
+        assertThat(index.findLeastLoaded(ConsultationType.EMERGENCY, 3)).contains(3L);
+        assertThat(index.getActiveRooms(3L)).isEqualTo(2);
+    }
+
+    @Test
+    void testAdminLoadIndexKeepsOfflineAdminsAndLoadsUnknownAdmins() {
+        AdminLoadIndex index = new AdminLoadIndex();
+        ReflectionTestUtils.setField(index, "chatRoomRepository", chatRoomRepository);
+        ReflectionTestUtils.setField(index, "userRepository", userRepository);
+        when(chatRoomRepository.countActiveRoomsByAdmin()).thenReturn(List.of(
+                new AdminLoadRow(2L, 0L, User.UserStatus.ONLINE), new AdminLoadRow(3L, 2L, User.UserStatus.OFFLINE)));
+        when(userRepository.findAdminSkills()).thenReturn(List.of(
+                new AdminSkillRow(3L, ConsultationType.ORTHODONTICS)));
+
+        index.rebuild();
+        assertThat(index.findLeastLoaded(ConsultationType.ORTHODONTICS, 3)).contains(2L);
+
+        // 기동 때 오프라인이던 교정 전문 상담원은 온라인이 되어도 담당 분야와 진행 중인 상담 수를 유지한다
+        index.updateStatus(3L, true);
+        assertThat(index.getActiveRooms(3L)).isEqualTo(2);
+        assertThat(index.findLeastLoaded(ConsultationType.GENERAL, 3)).contains(2L);
+        index.updateStatus(2L, false);
+        assertThat(index.findLeastLoaded(ConsultationType.GENERAL, 3)).isEmpty();
+        assertThat(index.findLeastLoaded(ConsultationType.ORTHODONTICS, 3)).contains(3L);
+
+        // 재구성 뒤에 생긴 상담원은 DB 에서 읽는다
+        when(chatRoomRepository.countActiveRoomsByAdmin(4L)).thenReturn(Optional.of(
+                new AdminLoadRow(4L, 1L, User.UserStatus.OFFLINE)));
+        when(userRepository.findAdminSkills(4L)).thenReturn(List.of(
+                new AdminSkillRow(4L, ConsultationType.IMPLANT)));
+        index.updateStatus(4L, true);
+        assertThat(index.getActiveRooms(4L)).isEqualTo(1);
+        assertThat(index.findLeastLoaded(ConsultationType.IMPLANT, 3)).contains(4L);
+        assertThat(index.findLeastLoaded(ConsultationType.GENERAL, 3)).isEmpty();
+    }
+
+    @Test
+    void testEndChatRoomsNotifiesOnlyTransitionedRooms() {
+        List<String> roomIds = List.of("room_12345678", "room_87654321");
+        EndedChatRoom endedRoom = new EndedChatRoom(1L, "room_12345678", 1L, 2L);
+        when(chatRoomRepository.endActiveRooms(eq(roomIds), any(LocalDateTime.class))).thenReturn(List.of(endedRoom));
+
+        List<EndedChatRoom> endedRooms = chatRoomService.endChatRooms(roomIds, "상담 종료");
+
+        assertThat(endedRooms).containsExactly(endedRoom);
+        verify(chatRoomRepository, never()).save(any(ChatRoom.class));
+        verify(adminLoadIndex).onRoomEnded(2L);
+        verify(messageService).saveSystemMessages(List.of(endedRoom), "상담 종료");
+        verify(eventPublisher, times(1)).publishEvent(any(ChatRoomEndedEvent.class));
+    }
+
+    @Test
+    void testExpiredSessionRecordsHandleTime() throws InterruptedException {
+        ReflectionTestUtils.setField(sessionExpiryTracker, "tickMillis", 1L);
+        ReflectionTestUtils.invokeMethod(sessionExpiryTracker, "init");
+        // 최대 상담 시간(30분)이 이미 지난 세션
+        sessionExpiryTracker.restore("room_12345678", LocalDateTime.now().minusHours(1));
+        when(chatRoomRepository.endActiveRooms(any(), any(LocalDateTime.class)))
+                .thenReturn(List.of(new EndedChatRoom(1L, "room_12345678", 1L, 2L)));
+
+        Thread.sleep(5);
+        chatRoomService.checkExpiredSessions();
+
+        verify(waitTimeEstimator).recordHandleTime(argThat(handleTime -> handleTime.toMinutes() >= 59));
+        verify(adminLoadIndex).onRoomEnded(2L);
+        assertThat(sessionExpiryTracker.getTrackedCount()).isZero();
+    }
+
+    @Test
+    void testExpiredSessionIsRetriedWhenEndingFails() throws InterruptedException {
+        ReflectionTestUtils.setField(sessionExpiryTracker, "tickMillis", 1L);
+        ReflectionTestUtils.invokeMethod(sessionExpiryTracker, "init");
+        sessionExpiryTracker.restore("room_12345678", LocalDateTime.now().minusHours(1));
+        when(chatRoomRepository.endActiveRooms(any(), any(LocalDateTime.class)))
+                .thenThrow(new IllegalStateException("DB 연결 실패"))
+                .thenReturn(List.of(new EndedChatRoom(1L, "room_12345678", 1L, 2L)));
+
+        Thread.sleep(5);
+        chatRoomService.checkExpiredSessions();
+        assertThat(sessionExpiryTracker.getTrackedCount()).isEqualTo(1);
+        verify(adminLoadIndex, never()).onRoomEnded(any());
+
+        Thread.sleep(5);
+        chatRoomService.checkExpiredSessions();
+        verify(chatRoomRepository, times(2)).endActiveRooms(eq(Set.of("room_12345678")), any(LocalDateTime.class));
+        verify(waitTimeEstimator).recordHandleTime(argThat(handleTime -> handleTime.toMinutes() >= 59));
+        verify(adminLoadIndex).onRoomEnded(2L);
+        assertThat(sessionExpiryTracker.getTrackedCount()).isZero();
+    }
+
+    @Test
+    void testSessionTimerIsCancelledWhenRoomEnds() {
+        when(chatRoomRepository.findByRoomId("room_12345678")).thenReturn(Optional.of(chatRoom));
+        when(chatRoomRepository.assignIfWaiting(eq("room_12345678"), any(User.class), any(LocalDateTime.class))).thenReturn(1);
+
+        chatRoomService.assignAdmin("room_12345678", admin1);
+        assertThat(sessionExpiryTracker.getTrackedCount()).isEqualTo(1);
+
+        chatRoomService.endChatRoom("room_12345678");
+        assertThat(sessionExpiryTracker.getTrackedCount()).isZero();
+        assertThat(chatRoomService.isSessionExpired("room_12345678")).isFalse();
+    }
+
+    private static SessionExpiryTracker createSessionExpiryTracker() {
+        SessionExpiryTracker tracker = new SessionExpiryTracker();
+        ReflectionTestUtils.invokeMethod(tracker, "init");
+        return tracker;
+    }
+}
@@ -0,0 +1,76 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsultationRouterTest {
+
+    private static final long AGING_STEP = 60_000;
+
+    @Test
+    void testHigherPriorityLaneOvertakesOnlyWithinAgingWindow() {
+        ConsultationRouter router = new ConsultationRouter(AGING_STEP);
+        AdminLoadIndex admins = new AdminLoadIndex();
+        admins.updateStatus(1L, true);
+
+        router.offer("room_general", ConsultationType.GENERAL, 0);
+        router.offer("room_emergency", ConsultationType.EMERGENCY, 10_000);
+
+        // 응급(priority 3)은 일반 문의보다 3 단계, 즉 3분 늦게 온 것까지 앞지른다
+        assertThat(router.nextRoute(admins, 3, 20_000)).get()
+                .extracting(ConsultationRouter.Route::roomId).isEqualTo("room_emergency");
+        router.remove("room_emergency");
+
+        // 일반 문의 고객이 3분 넘게 기다린 뒤에 온 응급 고객은 앞지르지 못한다
+        long later = 3 * AGING_STEP + 10_000;
+        router.offer("room_late_emergency", ConsultationType.EMERGENCY, later);
+        assertThat(router.nextRoute(admins, 3, later + 10_000)).get()
+                .extracting(ConsultationRouter.Route::roomId).isEqualTo("room_general");
+        assertThat(router.peek(later + 10_000)).isEqualTo("room_general");
+    }
+
+    @Test
+    void testRouteFallsBackToLaneWithAvailableSpecialist() {
+        ConsultationRouter router = new ConsultationRouter(AGING_STEP);
+        AdminLoadIndex admins = new AdminLoadIndex();
+        admins.updateSkills(1L, Set.of(ConsultationType.ORTHODONTICS));
+        admins.updateStatus(1L, true);
+
+        router.offer("room_emergency", ConsultationType.EMERGENCY, 0);
+        router.offer("room_ortho", ConsultationType.ORTHODONTICS, 0);
+
+        // 응급을 맡을 상담원이 없으면 교정 상담원에게 교정 고객을 배정한다
+        ConsultationRouter.Route route = router.nextRoute(admins, 3, 1_000).orElseThrow();
+        assertThat(route.roomId()).isEqualTo("room_ortho");
+        assertThat(route.adminId()).isEqualTo(1L);
+        assertThat(route.waitedMillis()).isEqualTo(1_000);
+
+        router.remove("room_ortho");
+        admins.onRoomAssigned(1L);
+        assertThat(router.nextRoute(admins, 3, 2_000)).isEmpty();
+        assertThat(router.contains("room_emergency")).isTrue();
+    }
+
+    @Test
+    void testPositionsAreCountedPerLane() {
+        ConsultationRouter router = new ConsultationRouter(AGING_STEP);
+        router.offer("room_1", ConsultationType.GENERAL, 0);
+        router.offer("room_2", ConsultationType.IMPLANT, 1);
+        router.offer("room_3", ConsultationType.GENERAL, 2);
+
+        assertThat(router.offer("room_1", ConsultationType.EMERGENCY, 3)).isFalse();
+        assertThat(router.positionOf("room_2")).hasValue(1);
+        assertThat(router.positionOf("room_3")).hasValue(2);
+        assertThat(router.typeOf("room_1")).contains(ConsultationType.GENERAL);
+        assertThat(router.size()).isEqualTo(3);
+        assertThat(router.size(ConsultationType.GENERAL)).isEqualTo(2);
+
+        assertThat(router.remove("room_1")).isTrue();
+        assertThat(router.positionOf("room_3")).hasValue(1);
+        assertThat(router.positionOf("room_1")).isEmpty();
+    }
+}
@@ -0,0 +1,147 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 분야별 배정을 가상 시계로 돌려 보는 이산 사건 시뮬레이션.
+ * 실제 {@link ConsultationRouter} 와 {@link AdminLoadIndex} 로 배정을 결정하고, 분야별 대기 시간 분포를 출력한다.
+ * aging 을 사실상 끈 엄격한 우선순위와 기본 aging-step(3분)을 같은 도착 순서와 상담 시간으로 비교한다.
+ */
+class ConsultationRoutingSimulationTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConsultationRoutingSimulationTest.class);
+
+    private static final long MINUTE = 60_000;
+
+    private static final long OPEN_HOURS = 4 * 60 * MINUTE;
+
+    private static final long MEAN_CONSULTATION = 6 * MINUTE;
+
+    private static final int MAX_ROOMS_PER_ADMIN = 3;
+
+    // 분당 도착 고객 수
+    private static final Map<ConsultationType, Double> ARRIVALS_PER_MINUTE = new EnumMap<>(Map.of(
+            ConsultationType.EMERGENCY, 0.2,
+            ConsultationType.IMPLANT, 0.4,
+            ConsultationType.ORTHODONTICS, 0.4,
+            ConsultationType.GENERAL, 1.2));
+
+    private static final List<Set<ConsultationType>> ADMIN_SKILLS = List.of(
+            Set.of(),
+            Set.of(),
+            Set.of(ConsultationType.EMERGENCY, ConsultationType.GENERAL),
+            Set.of(ConsultationType.ORTHODONTICS),
+            Set.of(ConsultationType.IMPLANT));
+
+    // adminId 가 없으면 도착, 있으면 상담 종료. 상담 시간은 도착 시 정해 두어 두 정책이 같은 부하를 받게 한다.
+    private record Event(long time, String roomId, ConsultationType type, long consultationMillis, Long adminId) {
+    }
+
+    @Test
+    void testReportsPerLaneWaitTimesAndAgingBoundsLowPriorityWait() {
+        Map<ConsultationType, long[]> strict = simulate(24 * 60 * MINUTE);
+        Map<ConsultationType, long[]> aging = simulate(3 * MINUTE);
+
+        report("엄격한 우선순위", strict);
+        report("aging-step 3분", aging);
+
+        // 모든 고객이 배정되었고, 응급 고객은 일반 문의보다 짧게 기다린다
+        for (ConsultationType type : ConsultationType.values()) {
+            assertThat(aging.get(type).length).isEqualTo(strict.get(type).length).isPositive();
+        }
+        assertThat(percentile(aging.get(ConsultationType.EMERGENCY), 90))
+                .isLessThan(percentile(aging.get(ConsultationType.GENERAL), 90));
+        // aging 은 일반 문의의 최악 대기 시간을 줄인다
+        assertThat(max(aging.get(ConsultationType.GENERAL)))
+                .isLessThanOrEqualTo(max(strict.get(ConsultationType.GENERAL)));
+    }
+
+    private Map<ConsultationType, long[]> simulate(long agingStepMillis) {
+        Random random = new Random(20240501L);
+        ConsultationRouter router = new ConsultationRouter(agingStepMillis);
+        AdminLoadIndex admins = new AdminLoadIndex();
+        for (int i = 0; i < ADMIN_SKILLS.size(); i++) {
+            admins.updateSkills((long) i, ADMIN_SKILLS.get(i));
+            admins.updateStatus((long) i, true);
+        }
+
+        PriorityQueue<Event> events = new PriorityQueue<>((a, b) -> Long.compare(a.time(), b.time()));
+        int sequence = 0;
+        for (ConsultationType type : ConsultationType.values()) {
+            double meanGap = MINUTE / ARRIVALS_PER_MINUTE.get(type);
+            for (long time = exponential(random, meanGap); time < OPEN_HOURS; time += exponential(random, meanGap)) {
+                events.add(new Event(time, "room_" + sequence++, type, exponential(random, MEAN_CONSULTATION), null));
+            }
+        }
+
+        Map<String, Long> consultationMillis = new HashMap<>();
+        Map<ConsultationType, List<Long>> waits = new EnumMap<>(ConsultationType.class);
+        for (ConsultationType type : ConsultationType.values()) {
+            waits.put(type, new ArrayList<>());
+        }
+
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            long now = event.time();
+            if (event.adminId() == null) {
+                router.offer(event.roomId(), event.type(), now);
+                consultationMillis.put(event.roomId(), event.consultationMillis());
+            } else {
+                admins.onRoomEnded(event.adminId());
+            }
+
+            Optional<ConsultationRouter.Route> route;
+            while ((route = router.nextRoute(admins, MAX_ROOMS_PER_ADMIN, now)).isPresent()) {
+                ConsultationRouter.Route assigned = route.get();
+                router.remove(assigned.roomId());
+                admins.onRoomAssigned(assigned.adminId());
+                waits.get(assigned.type()).add(assigned.waitedMillis());
+                long duration = consultationMillis.remove(assigned.roomId());
+                events.add(new Event(now + duration, assigned.roomId(), assigned.type(), duration, assigned.adminId()));
+            }
+        }
+        assertThat(router.size()).isZero();
+
+        Map<ConsultationType, long[]> result = new EnumMap<>(ConsultationType.class);
+        waits.forEach((type, list) -> result.put(type, list.stream().mapToLong(Long::longValue).sorted().toArray()));
+        return result;
+    }
+
+    private void report(String label, Map<ConsultationType, long[]> waits) {
+        logger.info("[{}] 분야별 대기 시간 (초)", label);
+        for (Map.Entry<ConsultationType, long[]> lane : waits.entrySet()) {
+            long[] sorted = lane.getValue();
+            logger.info("  {}: n={}, p50={}, p90={}, p99={}, max={}", lane.getKey(), sorted.length,
+                    percentile(sorted, 50) / 1000, percentile(sorted, 90) / 1000,
+                    percentile(sorted, 99) / 1000, max(sorted) / 1000);
+        }
+    }
+
+    private static long exponential(Random random, double mean) {
+        return Math.max(1, Math.round(-mean * Math.log(1 - random.nextDouble())));
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static long max(long[] sorted) {
+        return sorted[sorted.length - 1];
+    }
+}
@@ -0,0 +1,103 @@
+package com.ezlevup.dentalchat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdGeneratorTest {
+
+    private static final long NOW = IdGenerator.EPOCH_MILLIS + 1_000_000L;
+
+    @Test
+    void testTenMillionIdsFromConcurrentThreadsAreUnique() throws Exception {
+        IdGenerator generator = new IdGenerator(7);
+        int threads = 8;
+        int perThread = 10_000_000 / threads;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                long[] ids = new long[perThread];
+                for (int i = 0; i < perThread; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+
+        long[] all = new long[threads * perThread];
+        int offset = 0;
+        for (Future<long[]> future : futures) {
+            long[] ids = future.get();
+            // 한 스레드 안에서는 만든 순서대로 증가해야 한다
+            for (int i = 1; i < ids.length; i++) {
+                assertThat(ids[i]).isGreaterThan(ids[i - 1]);
+            }
+            System.arraycopy(ids, 0, all, offset, ids.length);
+            offset += ids.length;
+        }
+        executor.shutdown();
+
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                throw new AssertionError("중복 ID: " + all[i]);
+            }
+        }
+        assertThat(IdGenerator.nodeIdOf(all[0])).isEqualTo(7);
+        assertThat(all[0]).isPositive();
+    }
+
+    @Test
+    void testSequenceOverflowAndClockRollbackKeepIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator generator = new IdGenerator(1, clock::get);
+
+        long previous = generator.nextId();
+        assertThat(IdGenerator.timestampOf(previous)).isEqualTo(NOW);
+
+        // 한 밀리초에 4096개를 넘기면 다음 밀리초를 당겨 쓴다
+        for (int i = 0; i < 5000; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(IdGenerator.timestampOf(previous)).isEqualTo(NOW + 1);
+
+        // 시계가 뒤로 가도 마지막 시각에서 이어간다
+        clock.set(NOW - 10_000);
+        long afterRollback = generator.nextId();
+        assertThat(afterRollback).isGreaterThan(previous);
+
+        clock.set(NOW + 50);
+        long afterRecovery = generator.nextId();
+        assertThat(IdGenerator.timestampOf(afterRecovery)).isEqualTo(NOW + 50);
+        assertThat(IdGenerator.nodeIdOf(afterRecovery)).isEqualTo(1);
+    }
+
+    @Test
+    void testKeysSortLikeIdsAndNodesDoNotCollide() {
+        AtomicLong clock = new AtomicLong(NOW);
+        IdGenerator nodeA = new IdGenerator(0, clock::get);
+        IdGenerator nodeB = new IdGenerator(IdGenerator.MAX_NODE_ID, clock::get);
+
+        String first = nodeA.nextKey("room_");
+        clock.addAndGet(1);
+        String second = nodeA.nextKey("room_");
+
+        assertThat(first).startsWith("room_").hasSize("room_".length() + 13);
+        assertThat(second).isGreaterThan(first);
+        assertThat(nodeB.nextKey("room_")).isNotEqualTo(second);
+        assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+    }
+}
@@ -0,0 +1,77 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.RoomIdentity;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdentityCacheTest {
+
+    @Autowired
+    private IdentityCache identityCache;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testRepeatedLookupsHitCacheAndMissesAreNotCached() {
+        User customer = userService.createCustomer("캐시 테스트 고객");
+        double hits = gets("users", "hit");
+        double misses = gets("users", "miss");
+
+        assertThat(identityCache.findUser(customer.getUsername())).hasValueSatisfying(user -> {
+            assertThat(user.id()).isEqualTo(customer.getId());
+            assertThat(user.userType()).isEqualTo(User.UserType.CUSTOMER);
+        });
+        assertThat(identityCache.findUser(customer.getUsername())).isPresent();
+        assertThat(gets("users", "miss")).isEqualTo(misses + 1);
+        assertThat(gets("users", "hit")).isEqualTo(hits + 1);
+
+        // 없는 사용자는 매번 DB 를 확인한다
+        assertThat(identityCache.findUser("no_such_user")).isEmpty();
+        assertThat(identityCache.findUser("no_such_user")).isEmpty();
+        assertThat(gets("users", "miss")).isEqualTo(misses + 3);
+    }
+
+    @Test
+    void testAssignAdminEvictsRoomSoUnreadCountReachesAdmin() {
+        User customer = userService.createCustomer("캐시 테스트 고객");
+        User admin = userService.createAdmin("cache_admin_" + System.nanoTime(), "캐시 테스트 상담원");
+        ChatRoom chatRoom = chatRoomService.createChatRoom(customer, "캐시 무효화 테스트");
+        String roomId = chatRoom.getRoomId();
+
+        // 대기 중에 보낸 메시지로 상담원 없는 방 정보가 캐시된다
+        messageService.saveMessage(ChatMessage.of("대기 중", customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, roomId));
+        assertThat(identityCache.findRoom(roomId).map(RoomIdentity::adminId)).isEmpty();
+
+        chatRoomService.assignAdmin(roomId, admin);
+        assertThat(identityCache.findRoom(roomId).map(RoomIdentity::adminId)).hasValue(admin.getId());
+
+        messageService.saveMessage(ChatMessage.of("배정 후", customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, roomId));
+        assertThat(messageService.getUnreadCount(roomId, admin.getUsername())).isEqualTo(1);
+    }
+
+    private double gets(String cache, String result) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,162 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.ChatHistoryPage;
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.MessageRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:message_archive",
+        "dental-chat.archive.enabled=true",
+        "dental-chat.archive.segment-max-bytes=4096"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class MessageArchiverTest {
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("dental-chat.archive.directory", archiveDirectory::toString);
+    }
+
+    @Autowired
+    private MessageArchiver messageArchiver;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private MessageBatchWriter messageBatchWriter;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private User customer;
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        customer = userService.createCustomer("보관 테스트 고객");
+        admin = userService.createAdmin("archive_admin_" + System.nanoTime(), "보관 테스트 상담원");
+    }
+
+    @Test
+    void testEndedRoomMovesToSegmentAndHistoryIsUnchanged() {
+        String endedRoomId = roomWithMessages(5, () -> "임플란트 상담 내용");
+        String activeRoomId = roomWithMessages(3, () -> "진행 중 상담");
+        chatRoomService.endChatRoom(endedRoomId);
+        messageBatchWriter.awaitFlush(5000);
+
+        List<ChatMessage> history = freshHistory(endedRoomId);
+        ChatHistoryPage latestPage = freshPage(endedRoomId, null, 2);
+        ChatHistoryPage olderPage = freshPage(endedRoomId, latestPage.nextBeforeMessageId(), 100);
+        long hotMessages = messageRepository.count();
+
+        MessageArchiver.ArchiveResult result = messageArchiver.archiveEndedRooms(LocalDateTime.now().plusMinutes(1));
+
+        assertThat(result.rooms()).isEqualTo(1);
+        assertThat(result.messages()).isEqualTo(history.size());
+        assertThat(result.hotMessagesBefore()).isEqualTo(hotMessages);
+        assertThat(result.hotMessagesAfter()).isEqualTo(hotMessages - history.size());
+        assertThat(result.hotTableReduction()).isGreaterThan(0);
+        assertThat(result.compressedBytes()).isPositive();
+        assertThat(messageRepository.findHistoryByRoomId(endedRoomId)).isEmpty();
+        assertThat(messageRepository.findHistoryByRoomId(activeRoomId)).hasSize(3);
+        assertThat(meterRegistry.get("dentalchat.archive.hot.messages").gauge().value()).isEqualTo(result.hotMessagesAfter());
+
+        // 같은 이력과 페이지가 세그먼트 파일에서 읽힌다
+        assertThat(freshHistory(endedRoomId)).isEqualTo(history);
+        assertThat(freshPage(endedRoomId, null, 2)).isEqualTo(latestPage);
+        assertThat(freshPage(endedRoomId, latestPage.nextBeforeMessageId(), 100)).isEqualTo(olderPage);
+
+        // 이미 보관된 방은 다시 옮기지 않는다
+        assertThat(messageArchiver.archiveEndedRooms(LocalDateTime.now().plusMinutes(1)).rooms()).isZero();
+    }
+
+    @Test
+    void testSegmentsRollOverAndRetentionDeletesThem() throws IOException {
+        // 잘 압축되지 않는 메시지로 방 하나가 세그먼트 최대 크기(4KB)의 절반 정도가 되게 한다
+        Supplier<String> content = () -> IntStream.range(0, 40).mapToObj(i -> UUID.randomUUID().toString()).collect(Collectors.joining());
+        List<String> roomIds = List.of(roomWithMessages(3, content), roomWithMessages(3, content), roomWithMessages(3, content));
+        roomIds.forEach(chatRoomService::endChatRoom);
+        messageBatchWriter.awaitFlush(5000);
+        List<List<ChatMessage>> histories = roomIds.stream().map(this::freshHistory).toList();
+
+        messageArchiver.archiveEndedRooms(LocalDateTime.now().plusMinutes(1));
+
+        assertThat(segmentFiles()).hasSizeGreaterThan(1);
+        assertThat(roomIds.stream().map(this::freshHistory).toList()).isEqualTo(histories);
+
+        assertThat(messageArchiver.purgeSegments(LocalDateTime.now().plusMinutes(1))).isPositive();
+        assertThat(segmentFiles()).isEmpty();
+        assertThat(freshHistory(roomIds.get(0))).isEmpty();
+    }
+
+    private String roomWithMessages(int count, Supplier<String> content) {
+        ChatRoom chatRoom = chatRoomService.createChatRoom(customer, "보관 테스트");
+        chatRoomService.assignAdmin(chatRoom.getRoomId(), admin);
+        for (int i = 0; i < count; i++) {
+            String sender = i % 2 == 0 ? customer.getUsername() : admin.getUsername();
+            UserRole role = i % 2 == 0 ? UserRole.CUSTOMER : UserRole.ADMIN;
+            messageService.saveMessage(ChatMessage.of(content.get(), sender, role, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+        return chatRoom.getRoomId();
+    }
+
+    private List<ChatMessage> freshHistory(String roomId) {
+        recentMessageCache.evict(roomId);
+        return messageService.getChatHistory(roomId);
+    }
+
+    private ChatHistoryPage freshPage(String roomId, Long beforeMessageId, int limit) {
+        recentMessageCache.evict(roomId);
+        return messageService.getChatHistory(roomId, beforeMessageId, limit);
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("segment-")).toList();
+        }
+    }
+}
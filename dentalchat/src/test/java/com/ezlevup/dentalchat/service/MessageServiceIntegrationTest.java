@@ -0,0 +1,341 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.ChatHistoryPage;
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.EndedChatRoom;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.ReadReceipt;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.Message;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.MessageRepository;
+import com.ezlevup.dentalchat.repository.ReadWatermarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class MessageServiceIntegrationTest {
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private MessageBatchWriter messageBatchWriter;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ReadWatermarkRepository readWatermarkRepository;
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private RecentMessageCache recentMessageCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private User customer;
+    private User admin;
+    private ChatRoom chatRoom;
+
+    @BeforeEach
+    void setUp() {
+        customer = userService.createCustomer("메시지 테스트 고객");
+        admin = userService.createAdmin("msg_admin_" + System.nanoTime(), "메시지 테스트 상담원");
+        chatRoom = chatRoomService.createChatRoom(customer, "메시지 저장 테스트");
+        chatRoomService.assignAdmin(chatRoom.getRoomId(), admin);
+    }
+
+    @Test
+    void testSubmitMessageIsPersistedInBatches() {
+        for (int i = 0; i < 55; i++) {
+            ChatMessage result = messageService.submitMessage(ChatMessage.of(
+                    "메시지 " + i, customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+            assertThat(result.timestamp()).isNotNull();
+        }
+
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        List<Message> messages = messageRepository.findByRoomIdOrderBySentAtAsc(chatRoom.getRoomId());
+        assertThat(messages).hasSize(55);
+        assertThat(messages.get(0).getContent()).isEqualTo("메시지 0");
+        assertThat(messages.get(54).getContent()).isEqualTo("메시지 54");
+    }
+
+    @Test
+    void testFailedMessageIsRetriedAndKeptAsDeadLetter() {
+        long savedId = idGenerator.nextId();
+        long failingId = idGenerator.nextId();
+        LocalDateTime now = LocalDateTime.now();
+        // 없는 채팅방을 가리키는 메시지는 같은 배치의 다른 메시지 저장을 막지 않고, 재시도 후 dead letter 로 남는다
+        messageBatchWriter.enqueue(new MessageBatchWriter.PendingMessage(
+                failingId, -1L, customer.getId(), "저장 실패 메시지", Message.MessageType.CHAT, now));
+        messageBatchWriter.enqueue(new MessageBatchWriter.PendingMessage(
+                savedId, chatRoom.getId(), customer.getId(), "정상 메시지", Message.MessageType.CHAT, now));
+
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        assertThat(messageRepository.findById(savedId)).isPresent();
+        assertThat(messageRepository.findById(failingId)).isEmpty();
+        assertThat(messageBatchWriter.getRetryCount()).isZero();
+        assertThat(jdbcTemplate.queryForMap(
+                "SELECT content, attempts FROM message_dead_letters WHERE id = ?", failingId))
+                .containsEntry("CONTENT", "저장 실패 메시지")
+                .containsEntry("ATTEMPTS", 2);
+    }
+
+    @Test
+    void testSubmitMessageResolvesSenderRole() {
+        ChatMessage result = messageService.submitMessage(ChatMessage.of(
+                "안녕하세요, 상담원입니다.", admin.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+
+        assertThat(result.senderRole()).isEqualTo(UserRole.ADMIN);
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+        assertThat(messageService.getChatHistory(chatRoom.getRoomId()))
+                .extracting(ChatMessage::content)
+                .containsExactly("안녕하세요, 상담원입니다.");
+    }
+
+    @Test
+    void testChatHistoryIsPagedByMessageId() {
+        for (int i = 0; i < 45; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "이력 " + i, customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        ChatHistoryPage latest = messageService.getChatHistory(chatRoom.getRoomId(), null, 20);
+        assertThat(latest.messages()).extracting(ChatMessage::content)
+                .startsWith("이력 25").endsWith("이력 44").hasSize(20);
+        assertThat(latest.hasMore()).isTrue();
+
+        ChatHistoryPage middle = messageService.getChatHistory(chatRoom.getRoomId(), latest.nextBeforeMessageId(), 20);
+        assertThat(middle.messages()).extracting(ChatMessage::content)
+                .startsWith("이력 5").endsWith("이력 24").hasSize(20);
+
+        ChatHistoryPage oldest = messageService.getChatHistory(chatRoom.getRoomId(), middle.nextBeforeMessageId(), 20);
+        assertThat(oldest.messages()).extracting(ChatMessage::content)
+                .containsExactly("이력 0", "이력 1", "이력 2", "이력 3", "이력 4");
+        assertThat(oldest.hasMore()).isFalse();
+        assertThat(oldest.messages()).allSatisfy(message -> {
+            assertThat(message.sender()).isEqualTo(customer.getUsername());
+            assertThat(message.senderRole()).isEqualTo(UserRole.CUSTOMER);
+        });
+    }
+
+    @Test
+    void testChatHistoryPageSizeIsCapped() {
+        for (int i = 0; i < 105; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "대량 " + i, admin.getUsername(), UserRole.ADMIN, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        ChatHistoryPage page = messageService.getChatHistory(chatRoom.getRoomId(), null, 10_000);
+
+        assertThat(page.messages()).hasSize(100);
+        assertThat(page.hasMore()).isTrue();
+        assertThat(messageService.getChatHistory(chatRoom.getRoomId(), null, null).messages()).hasSize(50);
+    }
+
+    @Test
+    void testLatestHistoryPageIsServedFromRecentMessageCache() {
+        for (int i = 0; i < 3; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "최근 " + i, customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+
+        // 배치 저장을 기다리지 않아도 새 방의 최근 메시지는 버퍼에서 바로 나온다
+        ChatHistoryPage page = messageService.getChatHistory(chatRoom.getRoomId(), null, 10);
+        assertThat(page.messages()).extracting(ChatMessage::content).containsExactly("최근 0", "최근 1", "최근 2");
+        assertThat(page.hasMore()).isFalse();
+
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+        chatRoomService.endChatRoom(chatRoom.getRoomId());
+        assertThat(recentMessageCache.latest(chatRoom.getRoomId(), 10)).isEmpty();
+    }
+
+    @Test
+    void testBulkEndClosesActiveRoomsOnceWithSystemMessage() {
+        ChatRoom waitingRoom = chatRoomService.createChatRoom(userService.createCustomer("대기 고객"), "대기 중");
+        ChatRoom otherRoom = chatRoomService.createChatRoom(userService.createCustomer("두 번째 고객"), "두 번째 방");
+        chatRoomService.assignAdmin(otherRoom.getRoomId(), admin);
+        List<String> roomIds = List.of(chatRoom.getRoomId(), otherRoom.getRoomId(), waitingRoom.getRoomId());
+
+        List<EndedChatRoom> endedRooms = chatRoomService.endChatRooms(roomIds, "진료가 종료되었습니다.");
+
+        assertThat(endedRooms).extracting(EndedChatRoom::roomId)
+                .containsExactlyInAnyOrder(chatRoom.getRoomId(), otherRoom.getRoomId());
+        assertThat(endedRooms).extracting(EndedChatRoom::adminId).containsOnly(admin.getId());
+        assertThat(chatRoomService.endChatRooms(roomIds, "진료가 종료되었습니다.")).isEmpty();
+        assertThat(chatRoomService.findByRoomId(waitingRoom.getRoomId()).orElseThrow().getStatus())
+                .isEqualTo(ChatRoom.RoomStatus.WAITING);
+        assertThat(chatRoomService.findByRoomId(chatRoom.getRoomId()).orElseThrow().getEndedAt()).isNotNull();
+
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+        assertThat(messageService.getChatHistory(otherRoom.getRoomId()))
+                .extracting(ChatMessage::sender, ChatMessage::content)
+                .containsExactly(tuple("system", "진료가 종료되었습니다."));
+    }
+
+    @Test
+    void testReadWatermarkDrivesUnreadCount() {
+        for (int i = 0; i < 3; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "문의 " + i, customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        assertThat(messageService.getUnreadCount(chatRoom.getRoomId(), admin.getUsername())).isEqualTo(3);
+        assertThat(messageService.getUnreadCount(chatRoom.getRoomId(), customer.getUsername())).isZero();
+
+        ReadReceipt receipt = messageService.markMessagesAsRead(chatRoom.getRoomId(), admin.getUsername());
+
+        assertThat(receipt.reader()).isEqualTo(admin.getUsername());
+        assertThat(messageService.getUnreadCount(chatRoom.getRoomId(), admin.getUsername())).isZero();
+
+        messageService.submitMessage(ChatMessage.of(
+                "추가 문의", customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+        assertThat(messageService.getUnreadCount(chatRoom.getRoomId(), admin.getUsername())).isEqualTo(1);
+    }
+
+    @Test
+    void testRolledBackReadKeepsUnreadCount() {
+        for (int i = 0; i < 2; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "롤백 문의 " + i, customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            assertThat(messageService.markMessagesAsRead(chatRoom.getRoomId(), admin.getUsername())).isNotNull();
+            status.setRollbackOnly();
+        });
+
+        // 카운터 초기화와 읽음 브로드캐스트는 커밋 후에만 일어난다
+        assertThat(messageService.getUnreadCount(chatRoom.getRoomId(), admin.getUsername())).isEqualTo(2);
+        assertThat(readWatermarkRepository.findLastReadMessageId(chatRoom.getId(), admin.getId())).isEmpty();
+    }
+
+    @Test
+    void testReadWatermarkNeverMovesBackwards() {
+        readWatermarkRepository.advance(chatRoom.getId(), admin.getId(), 100L);
+        readWatermarkRepository.advance(chatRoom.getId(), admin.getId(), 50L);
+
+        assertThat(readWatermarkRepository.findLastReadMessageId(chatRoom.getId(), admin.getId())).contains(100L);
+
+        readWatermarkRepository.advance(chatRoom.getId(), admin.getId(), 150L);
+
+        assertThat(readWatermarkRepository.findLastReadMessageId(chatRoom.getId(), admin.getId())).contains(150L);
+    }
+
+    @Test
+    void testConcurrentFirstReadsBothAdvanceWatermark() throws Exception {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // 첫 번째 읽음 처리가 행을 INSERT 한 채 커밋을 미루는 동안 두 번째 읽음 처리가 같은 행을 INSERT 하려 한다
+            Future<?> first = executor.submit(() -> transaction.executeWithoutResult(status -> {
+                readWatermarkRepository.advance(chatRoom.getId(), admin.getId(), 10L);
+                inserted.countDown();
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+            Future<Integer> second = executor.submit(() -> transaction.execute(status ->
+                    readWatermarkRepository.advance(chatRoom.getId(), admin.getId(), 20L)));
+            Thread.sleep(200);
+            release.countDown();
+
+            first.get(10, TimeUnit.SECONDS);
+            assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(readWatermarkRepository.findLastReadMessageId(chatRoom.getId(), admin.getId())).contains(20L);
+    }
+
+    @Test
+    void testUnreadCountsAreAvailableInBulk() {
+        ChatRoom otherRoom = chatRoomService.createChatRoom(userService.createCustomer("두 번째 고객"), "두 번째 방");
+        chatRoomService.assignAdmin(otherRoom.getRoomId(), admin);
+        User otherCustomer = otherRoom.getCustomer();
+
+        messageService.submitMessage(ChatMessage.of(
+                "첫 번째 방 문의", customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        for (int i = 0; i < 2; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "두 번째 방 문의 " + i, otherCustomer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, otherRoom.getRoomId()));
+        }
+
+        Map<String, Long> counts = messageService.getUnreadCounts(admin.getUsername(),
+                List.of(chatRoom.getRoomId(), otherRoom.getRoomId(), "room_unknown"));
+
+        assertThat(counts).containsEntry(chatRoom.getRoomId(), 1L)
+                .containsEntry(otherRoom.getRoomId(), 2L)
+                .containsEntry("room_unknown", 0L);
+    }
+
+    @Test
+    void testReconcileAndRebuildRestoreDatabaseCounts() {
+        for (int i = 0; i < 4; i++) {
+            messageService.submitMessage(ChatMessage.of(
+                    "대조 " + i, customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        }
+        assertThat(messageBatchWriter.awaitFlush(10_000)).isTrue();
+
+        // 카운터를 일부러 어긋나게 만든다
+        unreadCounterService.reset(chatRoom.getRoomId(), admin.getId());
+        unreadCounterService.onMessage(chatRoom.getRoomId(), admin.getId(), customer.getId(), null);
+        assertThat(unreadCounterService.getUnreadCount(chatRoom.getRoomId(), customer.getId())).isEqualTo(1);
+
+        assertThat(unreadCounterService.reconcile()).isGreaterThanOrEqualTo(2);
+        assertThat(unreadCounterService.getUnreadCount(chatRoom.getRoomId(), admin.getId())).isEqualTo(4);
+        assertThat(unreadCounterService.getUnreadCount(chatRoom.getRoomId(), customer.getId())).isZero();
+
+        unreadCounterService.rebuild();
+        assertThat(unreadCounterService.getUnreadCount(chatRoom.getRoomId(), admin.getId())).isEqualTo(4);
+    }
+}
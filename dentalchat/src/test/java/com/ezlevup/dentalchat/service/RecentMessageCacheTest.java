@@ -0,0 +1,143 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.CachedMessage;
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.event.ChatRoomCreatedEvent;
+import com.ezlevup.dentalchat.event.ChatRoomEndedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RecentMessageCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RecentMessageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = createCache(5, 64 * 1024 * 1024, 600_000);
+    }
+
+    @Test
+    void testNewRoomIsServedCompletelyFromBuffer() {
+        cache.onRoomCreated(new ChatRoomCreatedEvent("room_1"));
+        cache.append("room_1", 1L, message("room_1", "안녕하세요"));
+        cache.append("room_1", 2L, message("room_1", "예약 문의드려요"));
+
+        Optional<RecentMessageCache.RecentMessages> recent = cache.latest("room_1", 10);
+
+        assertThat(recent).isPresent();
+        assertThat(recent.get().hasMore()).isFalse();
+        assertThat(recent.get().messages()).extracting(entry -> entry.message().content())
+                .containsExactly("안녕하세요", "예약 문의드려요");
+    }
+
+    @Test
+    void testRingBufferKeepsMostRecentMessages() {
+        cache.onRoomCreated(new ChatRoomCreatedEvent("room_1"));
+        for (long i = 1; i <= 8; i++) {
+            cache.append("room_1", i, message("room_1", "메시지 " + i));
+        }
+
+        RecentMessageCache.RecentMessages recent = cache.latest("room_1", 3).orElseThrow();
+        assertThat(recent.hasMore()).isTrue();
+        assertThat(recent.messages()).extracting(CachedMessage::id).containsExactly(6L, 7L, 8L);
+
+        // 버퍼가 한 번 넘친 방은 버퍼보다 큰 요청에 답할 수 없다
+        assertThat(cache.latest("room_1", 10)).isEmpty();
+    }
+
+    @Test
+    void testUnknownRoomAndShortIncompleteBufferAreMisses() {
+        cache.append("room_2", 1L, message("room_2", "이전 이력을 모르는 방의 메시지"));
+
+        assertThat(cache.latest("room_unknown", 10)).isEmpty();
+        // 이전 이력을 모르는 방은 버퍼에 요청한 건수만큼 있어야 답한다
+        assertThat(cache.latest("room_2", 2)).isEmpty();
+        assertThat(meterRegistry.get("dentalchat.recent.cache.requests").tag("result", "miss").counter().count())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void testPrimeMergesBufferFilledByBroadcast() {
+        cache.append("room_1", 2L, message("room_1", "브로드캐스트 2"));
+        cache.append("room_1", 3L, message("room_1", "브로드캐스트 3"));
+        assertThat(cache.latest("room_1", 3)).isEmpty();
+
+        // DB 조회와 브로드캐스트가 겹친 메시지(2)는 한 번만 들어간다
+        cache.prime("room_1", List.of(new CachedMessage(1L, message("room_1", "DB 1")),
+                new CachedMessage(2L, message("room_1", "브로드캐스트 2"))), true);
+
+        RecentMessageCache.RecentMessages recent = cache.latest("room_1", 10).orElseThrow();
+        assertThat(recent.hasMore()).isFalse();
+        assertThat(recent.messages()).extracting(CachedMessage::id).containsExactly(1L, 2L, 3L);
+        assertThat(cache.getTotalBytes()).isPositive();
+    }
+
+    @Test
+    void testOutOfOrderMessageClearsBuffer() {
+        cache.onRoomCreated(new ChatRoomCreatedEvent("room_1"));
+        cache.append("room_1", 5L, message("room_1", "나중 메시지"));
+        cache.append("room_1", 4L, message("room_1", "늦게 도착한 메시지"));
+
+        // 순서를 보장할 수 없으므로 다음 조회는 DB 로 간다
+        assertThat(cache.latest("room_1", 1)).isEmpty();
+        assertThat(cache.getTotalBytes()).isZero();
+    }
+
+    @Test
+    void testRoomIsEvictedWhenEndedOrIdle() throws InterruptedException {
+        cache = createCache(5, 64 * 1024 * 1024, 1);
+        cache.onRoomCreated(new ChatRoomCreatedEvent("room_1"));
+        cache.onRoomCreated(new ChatRoomCreatedEvent("room_2"));
+
+        cache.onRoomEnded(new ChatRoomEndedEvent("room_1"));
+        assertThat(cache.latest("room_1", 1)).isEmpty();
+
+        Thread.sleep(5);
+        cache.evictIdleRooms();
+        assertThat(cache.getRoomCount()).isZero();
+        assertThat(meterRegistry.get("dentalchat.recent.cache.evictions").tag("cause", "idle").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void testLeastRecentlyUsedRoomIsEvictedOverBudget() {
+        cache = createCache(5, 1_000, 600_000);
+        cache.append("room_1", 1L, message("room_1", "a"));
+        cache.append("room_2", 2L, message("room_2", "b"));
+        cache.append("room_3", 3L, message("room_3", "c"));
+        cache.latest("room_1", 1);
+
+        cache.append("room_4", 4L, message("room_4", "x".repeat(200)));
+
+        assertThat(cache.getTotalBytes()).isLessThanOrEqualTo(1_000);
+        assertThat(cache.latest("room_2", 1)).isEmpty();
+        assertThat(cache.latest("room_1", 1)).isPresent();
+        assertThat(cache.latest("room_4", 1)).isPresent();
+    }
+
+    private RecentMessageCache createCache(int messagesPerRoom, long maxBytes, long idleTimeoutMillis) {
+        meterRegistry = new SimpleMeterRegistry();
+        RecentMessageCache recentMessageCache = new RecentMessageCache();
+        ReflectionTestUtils.setField(recentMessageCache, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(recentMessageCache, "messagesPerRoom", messagesPerRoom);
+        ReflectionTestUtils.setField(recentMessageCache, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(recentMessageCache, "idleTimeoutMillis", idleTimeoutMillis);
+        recentMessageCache.registerMetrics();
+        return recentMessageCache;
+    }
+
+    private ChatMessage message(String roomId, String content) {
+        return ChatMessage.of(content, "customer1", UserRole.CUSTOMER, MessageType.CHAT, roomId);
+    }
+}
@@ -0,0 +1,197 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.dto.ChatMessage;
+import com.ezlevup.dentalchat.dto.MessageType;
+import com.ezlevup.dentalchat.dto.UserRole;
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.Message;
+import com.ezlevup.dentalchat.entity.User;
+import com.ezlevup.dentalchat.repository.ChatRoomRepository;
+import com.ezlevup.dentalchat.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hibernate 통계로 2차 캐시와 조회 캐시가 배정, 메시지 경로의 DB 조회를 줄이는지 확인한다.
+ * 같은 흐름을 캐시를 비운 상태와 채워진 상태로 한 번씩 실행해서 준비된 SQL 문 수를 비교한다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:second_level_cache",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class SecondLevelCacheTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(SecondLevelCacheTest.class);
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatRoomRepository chatRoomRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private SessionFactory sessionFactory;
+
+    private Statistics statistics;
+
+    private User customer;
+
+    private User admin;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+        customer = userService.createCustomer("캐시 고객");
+        admin = userService.createAdmin("l2_admin_" + System.nanoTime(), "캐시 상담원");
+    }
+
+    @Test
+    void testAssignPathReadsParticipantsFromSecondLevelCache() {
+        String firstRoomId = chatRoomService.createChatRoom(customer, "첫 번째 상담").getRoomId();
+        String secondRoomId = chatRoomService.createChatRoom(customer, "두 번째 상담").getRoomId();
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+
+        long cold = statementsFor(() -> assignAndRender(firstRoomId));
+        long usersHitsBefore = statistics.getDomainDataRegionStatistics("users").getHitCount();
+        long warm = statementsFor(() -> assignAndRender(secondRoomId));
+        logger.info("배정 경로 SQL 문 수: 캐시 전 {}, 캐시 후 {}", cold, warm);
+
+        // 상담원(배정 시 사용자명 확인)과 고객(응답 변환) 두 건을 DB 대신 캐시에서 읽는다
+        assertThat(warm).isEqualTo(cold - 2);
+        assertThat(statistics.getDomainDataRegionStatistics("users").getHitCount() - usersHitsBefore).isEqualTo(2);
+    }
+
+    @Test
+    void testMessageHistorySendersComeFromSecondLevelCache() {
+        ChatRoom chatRoom = chatRoomService.createChatRoom(customer, "메시지 상담");
+        chatRoomService.assignAdmin(chatRoom.getRoomId(), admin);
+        messageService.saveMessage(ChatMessage.of("질문", customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId()));
+        messageService.saveMessage(ChatMessage.of("답변", admin.getUsername(), UserRole.ADMIN, MessageType.CHAT, chatRoom.getRoomId()));
+        sessionFactory.getCache().evictAllRegions();
+        statistics.clear();
+
+        long cold = statementsFor(() -> renderSenders(chatRoom.getRoomId()));
+        long warm = statementsFor(() -> renderSenders(chatRoom.getRoomId()));
+        logger.info("메시지 이력 SQL 문 수: 캐시 전 {}, 캐시 후 {}", cold, warm);
+
+        // 발신자 두 명은 처음에만 DB 에서 읽는다
+        assertThat(cold).isEqualTo(3);
+        assertThat(warm).isEqualTo(1);
+
+        // 식별 정보가 캐시된 뒤 메시지 저장은 INSERT 한 문장이다
+        long save = statementsFor(() -> messageService.saveMessage(
+                ChatMessage.of("추가 질문", customer.getUsername(), UserRole.CUSTOMER, MessageType.CHAT, chatRoom.getRoomId())));
+        assertThat(save).isEqualTo(1);
+    }
+
+    @Test
+    void testQueryCacheIsInvalidatedByWrites() {
+        ChatRoom waiting = chatRoomService.createChatRoom(customer, "대기 상담");
+        chatRoomService.findWaitingRooms();
+        userService.findAvailableAdmins();
+        statistics.clear();
+
+        assertThat(statementsFor(chatRoomService::findWaitingRooms)).isZero();
+        assertThat(statementsFor(userService::findAvailableAdmins)).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+
+        ChatRoom added = chatRoomService.createChatRoom(customer, "새 대기 상담");
+        assertThat(chatRoomService.findWaitingRooms()).extracting(ChatRoom::getRoomId)
+                .contains(waiting.getRoomId(), added.getRoomId());
+
+        userService.updateUserStatus(admin.getUsername(), User.UserStatus.OFFLINE);
+        assertThat(userService.findAvailableAdmins()).extracting(User::getId).doesNotContain(admin.getId());
+    }
+
+    @Test
+    void testBulkEndEvictsCachedRooms() {
+        ChatRoom chatRoom = chatRoomService.createChatRoom(customer, "일괄 종료 상담");
+        chatRoomService.assignAdmin(chatRoom.getRoomId(), admin);
+        assertThat(chatRoomRepository.findById(chatRoom.getId())).isPresent();
+        assertThat(sessionFactory.getCache().containsEntity(ChatRoom.class, chatRoom.getId())).isTrue();
+
+        // JDBC 로 종료하므로 Hibernate 가 모르는 변경이다
+        chatRoomService.endChatRooms(List.of(chatRoom.getRoomId()), "종료");
+
+        assertThat(sessionFactory.getCache().containsEntity(ChatRoom.class, chatRoom.getId())).isFalse();
+        assertThat(chatRoomRepository.findById(chatRoom.getId())).get()
+                .extracting(ChatRoom::getStatus).isEqualTo(ChatRoom.RoomStatus.ENDED);
+    }
+
+    @Test
+    void testLastSeenUpdateEvictsOnlyThatUser() {
+        userService.findAvailableAdmins();
+        assertThat(userRepository.findById(customer.getId())).isPresent();
+        assertThat(sessionFactory.getCache().containsEntity(User.class, customer.getId())).isTrue();
+        assertThat(sessionFactory.getCache().containsEntity(User.class, admin.getId())).isTrue();
+        statistics.clear();
+
+        userService.updateLastSeen(customer.getUsername());
+
+        // 하트비트는 해당 사용자 항목만 비우고 다른 사용자 캐시와 조회 캐시는 그대로 둔다
+        assertThat(sessionFactory.getCache().containsEntity(User.class, customer.getId())).isFalse();
+        assertThat(sessionFactory.getCache().containsEntity(User.class, admin.getId())).isTrue();
+        assertThat(statementsFor(userService::findAvailableAdmins)).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+
+        // 다시 읽으면 DB 에서 갱신된 lastSeen 을 가져온다
+        User reloaded = userRepository.findById(customer.getId()).orElseThrow();
+        assertThat(reloaded.getLastSeen()).isNotNull();
+    }
+
+    /**
+     * 관리자 API 처럼 배정 후 같은 트랜잭션에서 고객 정보를 읽는다.
+     */
+    private void assignAndRender(String roomId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            ChatRoom room = chatRoomService.assignAdmin(roomId, userRepository.getReferenceById(admin.getId()));
+            assertThat(room.getCustomer().getNickname()).isEqualTo("캐시 고객");
+        });
+    }
+
+    private void renderSenders(String roomId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Message> messages = messageService.findMessagesByRoomId(roomId);
+            assertThat(messages).extracting(message -> message.getSender().getUsername())
+                    .containsExactly(customer.getUsername(), admin.getUsername());
+        });
+    }
+
+    private long statementsFor(Runnable action) {
+        long before = statistics.getPrepareStatementCount();
+        action.run();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
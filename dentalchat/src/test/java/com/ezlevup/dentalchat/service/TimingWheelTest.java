@@ -0,0 +1,73 @@
+package com.ezlevup.dentalchat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long START = 1_000_000L;
+
+    @Test
+    void testTimerFiresWithinOneTickOfDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("room_1", START + 95);
+
+        assertThat(wheel.advance(START + 90)).isEmpty();
+        assertThat(wheel.advance(START + 100)).containsExactly("room_1");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void testCancelAndRescheduleReplaceTimer() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("room_1", START + 50);
+        wheel.schedule("room_2", START + 50);
+
+        assertThat(wheel.cancel("room_1")).isTrue();
+        // 유휴 만료 연장처럼 같은 키를 다시 등록하면 이전 deadline 은 사라진다
+        wheel.schedule("room_2", START + 500);
+
+        assertThat(wheel.advance(START + 100)).isEmpty();
+        assertThat(wheel.advance(START + 500)).containsExactly("room_2");
+        assertThat(wheel.cancel("room_1")).isFalse();
+    }
+
+    @Test
+    void testPastDeadlineIsReportedOnNextAdvance() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 8, 3, START);
+        wheel.schedule("room_1", START - 1_000);
+
+        assertThat(wheel.advance(START)).containsExactly("room_1");
+    }
+
+    @Test
+    void testTimersCascadeAcrossLevelsAndBeyondRange() {
+        // 10ms x 8칸 x 2레벨 = 640ms 범위, 그보다 먼 타이머도 정확히 만료되어야 한다
+        TimingWheel<Integer> wheel = new TimingWheel<>(10, 8, 2, START);
+        Random random = new Random(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            long deadline = START + 1 + random.nextInt(5_000);
+            deadlines.put(i, deadline);
+            wheel.schedule(i, deadline);
+        }
+
+        List<Integer> fired = new ArrayList<>();
+        for (long now = START; now <= START + 5_100; now += 7) {
+            for (Integer key : wheel.advance(now)) {
+                long deadline = deadlines.get(key);
+                assertThat(now).isGreaterThanOrEqualTo(deadline).isLessThan(deadline + 10 + 7);
+                fired.add(key);
+            }
+        }
+
+        assertThat(fired).hasSize(500).doesNotHaveDuplicates();
+    }
+}
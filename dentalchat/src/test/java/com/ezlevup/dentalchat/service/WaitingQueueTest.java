@@ -0,0 +1,67 @@
+package com.ezlevup.dentalchat.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WaitingQueueTest {
+
+    @Test
+    void testQueueKeepsArrivalOrderAndIgnoresDuplicates() {
+        WaitingQueue queue = new WaitingQueue();
+
+        assertThat(queue.offer("room_1")).isTrue();
+        assertThat(queue.offer("room_2")).isTrue();
+        assertThat(queue.offer("room_1")).isFalse();
+
+        assertThat(queue.size()).isEqualTo(2);
+        assertThat(queue.poll()).isEqualTo("room_1");
+        assertThat(queue.poll()).isEqualTo("room_2");
+        assertThat(queue.poll()).isNull();
+    }
+
+    @Test
+    void testPositionReflectsCancellations() {
+        WaitingQueue queue = new WaitingQueue();
+        for (int i = 1; i <= 5; i++) {
+            queue.offer("room_" + i);
+        }
+
+        assertThat(queue.positionOf("room_4")).hasValue(4);
+
+        queue.remove("room_2");
+        queue.poll();
+
+        assertThat(queue.contains("room_2")).isFalse();
+        assertThat(queue.positionOf("room_4")).hasValue(2);
+        assertThat(queue.positionOf("room_1")).isEqualTo(OptionalInt.empty());
+    }
+
+    @Test
+    void testSlotsAreRenumberedWhenCapacityIsReached() {
+        WaitingQueue queue = new WaitingQueue(4);
+        List<String> expected = new ArrayList<>();
+
+        // 취소와 재입장을 반복해 슬롯 번호가 여러 번 끝에 닿도록 한다
+        for (int i = 0; i < 50; i++) {
+            queue.offer("room_" + i);
+            expected.add("room_" + i);
+            if (i % 3 == 0) {
+                queue.remove("room_" + i);
+                expected.remove("room_" + i);
+            }
+        }
+
+        assertThat(queue.size()).isEqualTo(expected.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(queue.positionOf(expected.get(i))).hasValue(i + 1);
+        }
+        for (String roomId : expected) {
+            assertThat(queue.poll()).isEqualTo(roomId);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.ezlevup.dentalchat.service;
+
+import com.ezlevup.dentalchat.entity.ChatRoom;
+import com.ezlevup.dentalchat.entity.ConsultationType;
+import com.ezlevup.dentalchat.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 재시작 후 대기열과 세션 만료 일정 복원.
+ * 10% 는 대기 중, 10% 는 상담 중(그중 절반은 최대 상담 시간 초과), 나머지는 종료된 방이다.
+ * 만료 스케줄러가 복원 도중 세션을 가져가지 않도록 tick 을 1시간으로 둔다.
+ * 채팅방 100만 건에서의 복원 시간은 {@code WarmStartRebuildBenchmark} 로 잰다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:warm_start",
+        "dental-chat.chat-room.expiry-tick=3600000"
+})
+@ActiveProfiles("test")
+@DirtiesContext
+class WarmStartRebuildTest {
+
+    private static final int ROOM_COUNT = 400;
+
+    @Autowired
+    private ChatRoomService chatRoomService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SessionExpiryTracker sessionExpiryTracker;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void testRebuildsWaitingQueueAndExpiryScheduleAfterRestart() {
+        User customer = userService.createCustomer("복원 고객");
+        LocalDateTime now = LocalDateTime.now();
+        insertRooms(customer.getId(), now);
+
+        chatRoomService.restoreInMemoryState();
+
+        assertThat(meterRegistry.get("dentalchat.startup.rebuild").tag("state", "waiting-queue").timer().count())
+                .isPositive();
+        assertThat(meterRegistry.get("dentalchat.startup.rebuild").tag("state", "session-expiry").timer().count())
+                .isPositive();
+
+        // 대기 중인 방은 id 가 아니라 createdAt 순서로 분야별 대기열에 들어간다
+        assertThat(chatRoomService.getWaitingQueueSize()).isEqualTo(ROOM_COUNT / 10);
+        for (ConsultationType type : ConsultationType.values()) {
+            assertThat(chatRoomService.getWaitingQueueSize(type)).isEqualTo(ROOM_COUNT / 40);
+        }
+        int lastGeneral = ROOM_COUNT - 10;
+        while (typeOf(lastGeneral) != ConsultationType.GENERAL) {
+            lastGeneral -= 10;
+        }
+        assertThat(chatRoomService.getWaitingPosition(roomId(lastGeneral))).hasValue(1);
+        assertThat(chatRoomService.getWaitingPosition(roomId(typeIndex(ConsultationType.GENERAL) * 10)))
+                .hasValue(ROOM_COUNT / 40);
+
+        // 상담 중인 방은 모두 다시 추적되고, 최대 상담 시간이 지난 방은 바로 만료된다
+        assertThat(sessionExpiryTracker.getTrackedCount()).isEqualTo(ROOM_COUNT / 10);
+        Map<String, LocalDateTime> expired = sessionExpiryTracker.pollExpired();
+        assertThat(expired.keySet()).hasSize(ROOM_COUNT / 20).contains(roomId(1)).doesNotContain(roomId(11));
+        assertThat(sessionExpiryTracker.getStartTime(roomId(11))).isPresent();
+    }
+
+    /**
+     * i % 10 == 0 은 대기, 1 은 상담 중, 나머지는 종료. createdAt 은 i 가 클수록 이르다.
+     */
+    private void insertRooms(Long customerId, LocalDateTime now) {
+        String sql = "INSERT INTO chat_rooms (roomId, customer_id, status, created_at, started_at, ended_at, consultationType) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(ROOM_COUNT);
+        for (int i = 0; i < ROOM_COUNT; i++) {
+            LocalDateTime createdAt = now.minusSeconds(i);
+            ChatRoom.RoomStatus status = i % 10 == 0 ? ChatRoom.RoomStatus.WAITING
+                    : i % 10 == 1 ? ChatRoom.RoomStatus.ACTIVE : ChatRoom.RoomStatus.ENDED;
+            // 상담 중인 방은 하나 건너 하나씩 2시간 전(만료), 1분 전에 시작했다
+            LocalDateTime startedAt = status == ChatRoom.RoomStatus.WAITING ? null
+                    : (i / 10) % 2 == 0 ? now.minusHours(2) : now.minusMinutes(1);
+            batch.add(new Object[]{
+                    roomId(i), customerId, status.name(), Timestamp.valueOf(createdAt),
+                    startedAt != null ? Timestamp.valueOf(startedAt) : null,
+                    status == ChatRoom.RoomStatus.ENDED ? Timestamp.valueOf(now) : null,
+                    typeOf(i).name()});
+        }
+        jdbcTemplate.batchUpdate(sql, batch);
+    }
+
+    private static String roomId(int i) {
+        return "warm_" + i;
+    }
+
+    private static ConsultationType typeOf(int i) {
+        return ConsultationType.values()[(i / 10) % ConsultationType.values().length];
+    }
+
+    private static int typeIndex(ConsultationType type) {
+        return type.ordinal();
+    }
+}